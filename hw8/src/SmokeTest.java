@@ -1,19 +1,41 @@
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import controller.GameController;
 import enginedriver.GameEngineApp;
 
 public class SmokeTest {
   public static void main(String[] args) throws IOException {
     // smoke tests - first send synthetic data via a string
-    //String s = "Sir Mix-A-Lot\nT NOTEBOOK\nN\nT HAIR CLIPPERS\nT KEY\nD NOTEBOOK\nQuit";
-    //BufferedReader stringReader = new BufferedReader(new StringReader(s));
-    GameEngineApp gameEngineApp = new GameEngineApp();
-    gameEngineApp.start("src/json_data");
+    String s = "Sir Mix-A-Lot\nT HAIR CLIPPERS\nN\nT THUMB DRIVE\nT MODULO 2\nD HAIR CLIPPERS\nQuit";
+    BufferedReader stringReader = new BufferedReader(new StringReader(s));
+    GameEngineApp gameEngineApp = new GameEngineApp("src/json_data/align_quest_game_elements.json",
+            stringReader, System.out);
+    gameEngineApp.start();
 
+    // save, then load that save right away by its paths: the load must wait for the save,
+    // in a directory of its own so there is no older save to find instead
+    Path saves = Files.createTempDirectory("smoke-saves");
+    s = "Sir Mix-A-Lot\nT HAIR CLIPPERS\nSave\nN\nLoad\n" + saves.resolve("game_data.json")
+            + "\n" + saves.resolve("player_data.json") + "\nI\nQuit";
+    StringBuilder output = new StringBuilder();
+    GameController controller = new GameController("src/json_data/align_quest_game_elements.json",
+            new BufferedReader(new StringReader(s)), output);
+    controller.setSaveDirectory(saves.toString());
+    controller.gameLoop();
+    System.out.print(output);
+    if (output.toString().contains("Invalid file")
+            || !output.toString().contains("Game loaded successfully!")
+            || !output.toString().contains("Items in your inventory: Hair Clippers")) {
+      throw new IllegalStateException("save then load failed");
+    }
 
     // Next, comment the above and uncomment this to do some ad-hoc testing by hand via System.in
-    // enginedriver.GameEngineApp gameEngineApp = new enginedriver.GameEngineApp("./resources/museum.json", new InputStreamReader(System.in), System.out);
-    // gameEngineApp.start();
+    // GameEngineApp gameEngineApp = new GameEngineApp();
+    // gameEngineApp.start("src/json_data");
 
   }
 }
\ No newline at end of file
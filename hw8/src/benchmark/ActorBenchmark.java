@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import controller.GameController;
+import controller.RoomLocks;
+import model.Map;
+import server.RoomActors;
+
+/**
+ * Compares command throughput on one shared world under a single global lock,
+ * per-room striped locks and room actors, with players spread over many rooms.
+ *
+ * Usage: java benchmark.ActorBenchmark [maxPlayers] [commandsPerPlayer]
+ */
+public class ActorBenchmark {
+  private static final int ROOMS_PER_PLAYER = 4;
+
+  public static void main(String[] args) throws Exception {
+    int maxPlayers = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    int commands = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+    System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+    for (int players = 1; players <= maxPlayers; players *= 2) {
+      System.out.printf("%3d players   global lock %10.0f/s   striped %10.0f/s   actors %10.0f/s%n",
+              players, run("global", players, commands), run("striped", players, commands),
+              run("actors", players, commands));
+    }
+  }
+
+  private static double run(String mode, int players, int commands) throws InterruptedException {
+    int rooms = players * ROOMS_PER_PLAYER;
+    Map world = SharedWorldStress.ringWorld(rooms, rooms * 2);
+    RoomLocks locks = new RoomLocks(mode.equals("global") ? 1 : 256);
+    RoomActors actors = mode.equals("actors") ? new RoomActors(world) : null;
+
+    List<GameController> sessions = new ArrayList<>();
+    for (int p = 0; p < players; p++) {
+      GameController session = new GameController(world, null,
+              new StringReader("player-" + p + "\n"), Writer.nullWriter());
+      // every player starts in their own part of the ring
+      session.getPlayer().setCurrentRoom(world.getRoom(1 + p * ROOMS_PER_PLAYER));
+      if (actors != null) {
+        session.setCommandRouter(actors);
+      } else {
+        session.setRoomLocks(locks);
+      }
+      sessions.add(session);
+    }
+
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (GameController session : sessions) {
+      Thread thread = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < commands; i++) {
+          switch (random.nextInt(8)) {
+            case 0 -> session.getCommand(new String[] {i % 16 < 8 ? "n" : "s", ""});
+            case 1 -> session.getCommand(new String[] {"t", "gem-" + random.nextInt(8)});
+            case 2 -> session.getCommand(new String[] {"d", "gem-" + random.nextInt(8)});
+            case 3 -> session.getCommand(new String[] {"i", ""});
+            default -> session.getCommand(new String[] {"l", ""});
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    long began = System.nanoTime();
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double seconds = (System.nanoTime() - began) / 1e9;
+    if (actors != null) {
+      actors.shutdown();
+    }
+    return players * (double) commands / seconds;
+  }
+}
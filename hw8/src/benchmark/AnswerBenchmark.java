@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+import model.*;
+
+/**
+ * Compares answering puzzles and monsters the old way (two replaceAll calls per attempt)
+ * with the precomputed solutions in model.Challenge, under a storm of bot answers:
+ * mostly wrong guesses, some right ones with changed case, spacing and punctuation.
+ * Both must agree on every answer before anything is timed.
+ *
+ * Usage: java benchmark.AnswerBenchmark [answers]
+ */
+public class AnswerBenchmark {
+  private static final int CHALLENGES = 1_000;
+  private static final int WARMUP = 5;
+  private static final int ROUNDS = 10;
+  private static final String NOISE = "  .,!?'\"-_()\t";
+
+  public static void main(String[] args) {
+    int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    SplittableRandom random = new SplittableRandom(15);
+    Challenge[] challenges = new Challenge[CHALLENGES];
+    for (int i = 0; i < CHALLENGES; i++) {
+      Challenge challenge = i % 2 == 0 ? new Puzzle() : new Monster();
+      challenge.setSolution("'" + words(random, 1 + random.nextInt(4)) + "'");
+      challenges[i] = challenge;
+    }
+    int[] targets = new int[count];
+    String[] answers = new String[count];
+    for (int i = 0; i < count; i++) {
+      targets[i] = random.nextInt(CHALLENGES);
+      String solution = challenges[targets[i]].getSolution();
+      answers[i] = random.nextInt(10) == 0
+              ? disguise(solution.substring(1, solution.length() - 1), random)
+              : words(random, 1 + random.nextInt(4));
+    }
+
+    int differ = 0;
+    for (int i = 0; i < count; i++) {
+      Challenge challenge = challenges[targets[i]];
+      boolean oldWay = solvedTheOldWay(challenge.getSolution(), answers[i]);
+      if (oldWay != isSolved(challenge, answers[i])) {
+        differ++;
+      }
+    }
+    System.out.println(count + " answers, " + differ + " judged differently");
+
+    report("replaceAll (old)", challenges, targets, answers, true);
+    report("precomputed solution", challenges, targets, answers, false);
+  }
+
+  private static void report(String label, Challenge[] challenges, int[] targets,
+                             String[] answers, boolean oldWay) {
+    for (int i = 0; i < WARMUP; i++) {
+      storm(challenges, targets, answers, oldWay);
+    }
+    long start = System.nanoTime();
+    int solved = 0;
+    for (int i = 0; i < ROUNDS; i++) {
+      solved += storm(challenges, targets, answers, oldWay);
+    }
+    double nanos = (System.nanoTime() - start) / (double) ROUNDS / answers.length;
+    System.out.printf("%-22s %8.1f ns/answer %12.0f answers/s  (%d solved)%n",
+            label, nanos, 1e9 / nanos, solved / ROUNDS);
+  }
+
+  private static int storm(Challenge[] challenges, int[] targets, String[] answers,
+                           boolean oldWay) {
+    int solved = 0;
+    for (int i = 0; i < answers.length; i++) {
+      Challenge challenge = challenges[targets[i]];
+      boolean hit = oldWay ? solvedTheOldWay(challenge.getSolution(), answers[i])
+              : isSolved(challenge, answers[i]);
+      if (hit) {
+        solved++;
+      }
+    }
+    return solved;
+  }
+
+  // solve() also clears active, which would end the storm, so put it back
+  private static boolean isSolved(Challenge challenge, String answer) {
+    boolean hit = challenge.solve(answer) == Challenge.SOLVE_SUCCESS;
+    if (hit) {
+      challenge.setActive(true);
+    }
+    return hit;
+  }
+
+  // the check Puzzle.solve(String) and Monster.solve(String) made before
+  private static boolean solvedTheOldWay(String solution, String magicWord) {
+    String processedSolution = solution.replaceAll("[\\p{Punct}\\s]", "");
+    String processedMagicWord = magicWord.replaceAll("[\\p{Punct}\\s]", "");
+    if (!(solution.startsWith("'") || solution.endsWith("'"))) {
+      return false;
+    }
+    return processedSolution.equalsIgnoreCase(processedMagicWord);
+  }
+
+  private static String words(SplittableRandom random, int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      int length = 2 + random.nextInt(6);
+      for (int j = 0; j < length; j++) {
+        sb.append((char) ('a' + random.nextInt(26)));
+      }
+    }
+    return sb.toString();
+  }
+
+  // the right answer as a bot might type it
+  private static String disguise(String answer, SplittableRandom random) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < answer.length(); i++) {
+      char c = answer.charAt(i);
+      sb.append(random.nextBoolean() ? Character.toUpperCase(c) : c);
+      if (random.nextInt(4) == 0) {
+        sb.append(NOISE.charAt(random.nextInt(NOISE.length())));
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,227 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import controller.GameController;
+import controller.LoadGameData;
+import controller.PlayerLoad;
+import controller.SaveGameData;
+import controller.SavePlayerData;
+import enginedriver.WorldGenerator;
+import model.*;
+
+/**
+ * Performance harness for the engine: world load, player load, both saves,
+ * GameController.getCommand per command type and Player.move.
+ * Runs on the bundled worlds and on generated worlds (enginedriver.WorldGenerator) of the
+ * given sizes, and writes a JSON report (one entry per benchmark and world) that can be
+ * compared between releases.
+ *
+ * Every benchmark runs warmup iterations and then measured iterations of at least
+ * ITERATION_MILLIS each; the score is the mean time per operation with its standard deviation.
+ *
+ * The default sizes stop at 100000 rooms: at 1000000 a load takes about 19 s, and the whole
+ * world save builds a JSON tree of the world that doesn't fit in a 4 GB heap. LazyMapBenchmark,
+ * NavigationBenchmark and ValidatorBenchmark cover a million rooms by default.
+ *
+ * Usage: java benchmark.BenchmarkSuite [--sizes 1000,10000,100000] [--out report.json]
+ *        [--filter regex] [--warmup n] [--iterations n]
+ */
+public class BenchmarkSuite {
+  private static final long ITERATION_MILLIS = 200;
+  private static final String[] BUNDLED = {
+      "src/json_data/align_quest_game_elements.json",
+      "src/json_data/museum.json",
+      "src/json_data/simple_hallway.json"};
+
+  private final List<java.util.Map<String, Object>> results = new ArrayList<>();
+  private final Pattern filter;
+  private final int warmup;
+  private final int iterations;
+  private final Path scratch;
+
+  BenchmarkSuite(Pattern filter, int warmup, int iterations) throws IOException {
+    this.filter = filter;
+    this.warmup = warmup;
+    this.iterations = iterations;
+    this.scratch = Files.createTempDirectory("hw8-bench");
+  }
+
+  public static void main(String[] args) throws IOException {
+    String sizes = "1000,10000,100000";
+    String out = "benchmark-report.json";
+    String filter = ".*";
+    int warmup = 3;
+    int iterations = 5;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--sizes" -> sizes = args[i + 1];
+        case "--out" -> out = args[i + 1];
+        case "--filter" -> filter = args[i + 1];
+        case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+        case "--iterations" -> iterations = Integer.parseInt(args[i + 1]);
+        default -> throw new IllegalArgumentException("unknown option " + args[i]);
+      }
+    }
+
+    BenchmarkSuite suite = new BenchmarkSuite(Pattern.compile(filter), warmup, iterations);
+    List<String> worlds = new ArrayList<>(List.of(BUNDLED));
+    for (String size : sizes.split(",")) {
+      if (!size.isBlank()) {
+        worlds.add(suite.syntheticWorld(Integer.parseInt(size.trim())));
+      }
+    }
+    for (String world : worlds) {
+      suite.runWorld(world);
+    }
+
+    ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    mapper.writeValue(new File(out), suite.results);
+    System.out.println("report written to " + out);
+  }
+
+  private String syntheticWorld(int rooms) throws IOException {
+    Path path = scratch.resolve("synthetic-" + rooms + ".json");
+    WorldGenerator generator = new WorldGenerator();
+    generator.setRooms(rooms);
+    generator.write(path);
+    return path.toString();
+  }
+
+  private void runWorld(String world) throws IOException {
+    Map map = LoadGameData.loadMap(world, false);
+    int rooms = map.getRooms().size();
+    String label = new File(world).getName();
+    System.out.println("== " + label + " (" + rooms + " rooms)");
+
+    // load and save
+    measure("loadMap", label, rooms, () -> LoadGameData.loadMap(world, false));
+    String gameFile = scratch.resolve("game_data.json").toString();
+    String playerFile = scratch.resolve("player_data.json").toString();
+    GameController session = newSession(map, world);
+    Player player = session.getPlayer();
+    measure("saveGameData", label, rooms, () -> SaveGameData.saveGameData(map, gameFile));
+    measure("savePlayer", label, rooms, () -> SavePlayerData.savePlayer(player, playerFile));
+    SavePlayerData.savePlayer(player, playerFile);
+    measure("loadPlayer", label, rooms, () -> PlayerLoad.loadPlayer(playerFile, world, map));
+    // the save command only copies the game, the writer thread does the rest
+    session.setSaveDirectory(scratch.resolve("session").toString());
+    measureCommand("getCommand.save", label, rooms, session, player.getCurrentRoom(), "save", "");
+    session.flushSaves(); // the writes queued must not run into the next measurements
+
+    // movement and command dispatch from the starting room
+    Room start = player.getCurrentRoom();
+    String direction = openDirection(start);
+    if (direction != null) {
+      measure("Player.move", label, rooms, () -> {
+        player.setCurrentRoom(start);
+        player.move(direction, map);
+      });
+      measureCommand("getCommand.move", label, rooms, session, start, direction, "");
+    }
+    measureCommand("getCommand.look", label, rooms, session, start, "l", "");
+    measureCommand("getCommand.inventory", label, rooms, session, start, "i", "");
+    measureCommand("getCommand.invalid", label, rooms, session, start, "dance", "");
+    measureCommand("getCommand.answer", label, rooms, session, start, "a", "no idea");
+    measureCommand("getCommand.use", label, rooms, session, start, "u", "nothing");
+    if (!start.getItem().isEmpty()) {
+      String item = start.getItem().get(0).getName().toLowerCase();
+      measureCommand("getCommand.examine", label, rooms, session, start, "x", item);
+      measure("getCommand.take+drop", label, rooms, () -> {
+        player.setCurrentRoom(start);
+        session.getCommand(new String[] {"t", item});
+        session.getCommand(new String[] {"d", item});
+      });
+    }
+  }
+
+  private void measureCommand(String name, String world, int rooms, GameController session,
+                              Room start, String action, String argument) {
+    Player player = session.getPlayer();
+    String[] command = {action, argument};
+    measure(name, world, rooms, () -> {
+      player.setCurrentRoom(start);
+      session.getCommand(command);
+    });
+  }
+
+  private static GameController newSession(Map map, String world) {
+    return new GameController(map, world, new StringReader("bench\n"), Writer.nullWriter());
+  }
+
+  private static String openDirection(Room room) {
+    if (room.getN() > 0) return "n";
+    if (room.getS() > 0) return "s";
+    if (room.getE() > 0) return "e";
+    if (room.getW() > 0) return "w";
+    return null;
+  }
+
+  private void measure(String name, String world, int rooms, Operation operation) {
+    if (!filter.matcher(name).matches()) {
+      return;
+    }
+    try {
+      for (int i = 0; i < warmup; i++) {
+        runIteration(operation);
+      }
+      double[] nanosPerOp = new double[iterations];
+      for (int i = 0; i < iterations; i++) {
+        nanosPerOp[i] = runIteration(operation);
+      }
+      double mean = 0;
+      for (double value : nanosPerOp) {
+        mean += value / iterations;
+      }
+      double variance = 0;
+      for (double value : nanosPerOp) {
+        variance += (value - mean) * (value - mean) / Math.max(iterations - 1, 1);
+      }
+      double error = Math.sqrt(variance);
+
+      java.util.Map<String, Object> result = new LinkedHashMap<>();
+      result.put("benchmark", name);
+      result.put("world", world);
+      result.put("rooms", rooms);
+      result.put("mode", "avgt");
+      result.put("score", mean);
+      result.put("scoreError", error);
+      result.put("scoreUnit", "ns/op");
+      result.put("opsPerSecond", 1e9 / mean);
+      result.put("iterations", iterations);
+      results.add(result);
+      System.out.printf("  %-24s %14.1f ns/op  +- %10.1f%n", name, mean, error);
+    } catch (Exception e) {
+      System.out.println("  " + name + " failed: " + e);
+    }
+  }
+
+  // runs the operation for at least ITERATION_MILLIS, returns the mean nanoseconds per call
+  private static double runIteration(Operation operation) throws Exception {
+    long budget = ITERATION_MILLIS * 1_000_000L;
+    long start = System.nanoTime();
+    long calls = 0;
+    long elapsed;
+    do {
+      operation.run();
+      calls++;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < budget);
+    return elapsed / (double) calls;
+  }
+
+  interface Operation {
+    void run() throws Exception;
+  }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.SplittableRandom;
+
+import controller.CommandRegistry;
+import controller.GameController;
+import controller.LoadGameData;
+import model.*;
+
+/**
+ * Measures resolving verbs in controller.CommandRegistry while plugin verbs pile up,
+ * and a full GameController.getCommand with a plugin verb, next to the old string switch.
+ * The cost should stay flat as the number of verbs grows.
+ *
+ * Usage: java benchmark.DispatchBenchmark [world.json] [maxVerbs]
+ */
+public class DispatchBenchmark {
+  private static final int WARMUP = 5;
+  private static final int ROUNDS = 10;
+  private static final int CALLS = 100_000; // per round
+  private static final String[] TYPED = {
+      "n", "north", "t", "take", "examine", "l", "a", "answer", "save", "dance", "inventoryx"};
+  private static volatile int sink; // keeps the results alive
+
+  public static void main(String[] args) throws Exception {
+    String world = args.length > 0 ? args[0] : "src/json_data/align_quest_game_elements.json";
+    int maxVerbs = args.length > 1 ? Integer.parseInt(args[1]) : 65_536;
+
+    report("switch (old)", 0, DispatchBenchmark::oldSwitch);
+
+    Map map = LoadGameData.loadMap(world, false);
+    GameController session = new GameController(map, world, new StringReader("bench\n"),
+            Writer.nullWriter());
+    SplittableRandom random = new SplittableRandom(16);
+    CommandRegistry registry = GameController.standardCommands();
+    session.setCommands(registry);
+    int[] pings = {0};
+    registry.register("ping", CommandRegistry.Kind.FREE, (game, stuff) -> pings[0]++);
+    String[] ping = {"ping", ""};
+    int verbs = registry.getVerbs().size();
+    for (int target = 16; target <= maxVerbs; target *= 4) {
+      while (verbs < target) {
+        registry.register(randomWord(random), CommandRegistry.Kind.FREE, (game, stuff) -> { });
+        verbs = registry.getVerbs().size();
+      }
+      report("registry.resolve", verbs, () -> {
+        int found = 0;
+        for (String word : TYPED) {
+          if (registry.resolve(word) != null) {
+            found++;
+          }
+        }
+        return found;
+      });
+      report("getCommand(ping)", verbs, () -> {
+        session.getCommand(ping);
+        return pings[0];
+      });
+    }
+  }
+
+  // how executeCommand picked the command before the registry, per typed word
+  private static int oldSwitch() {
+    int found = 0;
+    for (String word : TYPED) {
+      switch (word) {
+        case "n", "north", "s", "south", "e", "east", "w", "west", "i", "inventory", "t", "take",
+             "d", "drop", "x", "examine", "l", "look", "u", "use", "a", "answer", "q", "quit",
+             "save", "load":
+          found++;
+          break;
+        default:
+          break;
+      }
+    }
+    return found;
+  }
+
+  private static String randomWord(SplittableRandom random) {
+    int length = 3 + random.nextInt(8);
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      sb.append((char) ('a' + random.nextInt(26)));
+    }
+    return sb.toString();
+  }
+
+  private static void report(String label, int verbs, Operation operation) {
+    int total = 0;
+    for (int i = 0; i < WARMUP; i++) {
+      for (int j = 0; j < CALLS; j++) {
+        total += operation.run();
+      }
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      for (int j = 0; j < CALLS; j++) {
+        total += operation.run();
+      }
+    }
+    double nanos = (System.nanoTime() - start) / (double) ROUNDS / (CALLS);
+    sink = total;
+    System.out.printf("%-18s %8d verbs %10.1f ns/op%n", label, verbs, nanos);
+  }
+
+  interface Operation {
+    int run();
+  }
+}
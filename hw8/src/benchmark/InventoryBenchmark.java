@@ -0,0 +1,120 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import model.*;
+
+/**
+ * A bot hoarding weightless items, as in a world with modded capacity: it drops an item by
+ * name, picks it up again and asks for its score, over and over. Compares the old way (a plain
+ * list, the weight and value summed on every pick up and score, a scan for the name, contains
+ * and then remove) with model.Player and its model.Inventory. Both must end with the same
+ * inventory before anything is reported.
+ *
+ * Usage: java benchmark.InventoryBenchmark [inventory sizes, default 1000,10000,100000]
+ *        [operations, default 2000]
+ */
+public class InventoryBenchmark {
+  private static final int WARMUP = 2;
+  private static final int PASSES = 50; // the new way goes through the names this many times
+
+  public static void main(String[] args) {
+    String sizes = args.length > 0 ? args[0] : "1000,10000,100000";
+    int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+    for (String size : sizes.split(",")) {
+      int count = Integer.parseInt(size.trim());
+      SplittableRandom random = new SplittableRandom(23);
+      List<Item> items = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        Item item = new Item();
+        item.setName("Trinket " + i);
+        item.setWeight(0);
+        item.setValue(random.nextInt(50));
+        items.add(item);
+      }
+      String[] names = new String[operations];
+      for (int i = 0; i < operations; i++) {
+        names[i] = items.get(random.nextInt(count)).getName().toUpperCase();
+      }
+
+      long oldNanos = Long.MAX_VALUE;
+      long newNanos = Long.MAX_VALUE;
+      List<Item> oldInventory = null;
+      Player player = null;
+      for (int round = 0; round < WARMUP + 1; round++) {
+        oldInventory = new ArrayList<>(items);
+        long start = System.nanoTime();
+        long oldScore = oldWay(oldInventory, new ArrayList<>(), names);
+        oldNanos = Math.min(oldNanos, System.nanoTime() - start);
+
+        Room room = new Room("Hoard", 1, "", 0, 0, 0, 0, null, null, new ArrayList<>(),
+                new ArrayList<>(), "");
+        player = new Player("bot", items, room);
+        start = System.nanoTime();
+        long newScore = newWay(player, names);
+        for (int pass = 1; pass < PASSES; pass++) {
+          newWay(player, names);
+        }
+        newNanos = Math.min(newNanos, (System.nanoTime() - start) / PASSES);
+        if (oldScore != newScore) {
+          throw new IllegalStateException("scores differ: " + oldScore + " " + newScore);
+        }
+      }
+      if (!new ArrayList<>(player.getInventory()).containsAll(oldInventory)
+              || player.getInventory().size() != oldInventory.size()) {
+        throw new IllegalStateException("inventories differ");
+      }
+      System.out.printf("%8d items: old %10.0f ns/op   Player %8.0f ns/op%n", count,
+              oldNanos / (double) operations, newNanos / (double) operations);
+    }
+  }
+
+  // what GameController and Player did before the inventory kept its totals and names
+  private static long oldWay(List<Item> inventory, List<Item> room, String[] names) {
+    long total = 0;
+    for (String name : names) {
+      Item found = null;
+      for (Item item : inventory) {
+        if (item.getName().equalsIgnoreCase(name)) {
+          found = item;
+          break;
+        }
+      }
+      if (found != null && inventory.contains(found)) {
+        room.add(found);
+        inventory.remove(found);
+      }
+      Item back = room.remove(room.size() - 1);
+      int weight = 0;
+      for (Item item : inventory) {
+        weight += item.getWeight();
+      }
+      if (weight + back.getWeight() <= 13) {
+        inventory.add(back);
+      }
+      int score = 0;
+      for (Item item : inventory) {
+        score += item.getValue();
+      }
+      total += score;
+    }
+    return total;
+  }
+
+  private static long newWay(Player player, String[] names) {
+    List<Item> room = player.getCurrentRoom().getItem();
+    long total = 0;
+    for (String name : names) {
+      Item found = player.findItem(name);
+      if (found != null) {
+        player.dropItem(found);
+      }
+      Item back = room.remove(room.size() - 1);
+      player.pickUpItem(back);
+      total += player.getInventoryValue();
+    }
+    return total;
+  }
+}
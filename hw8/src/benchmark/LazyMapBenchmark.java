@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import controller.LoadGameData;
+import enginedriver.WorldGenerator;
+import model.*;
+
+/**
+ * Compares model.LazyMap with loading the whole world on generated worlds: load time, heap
+ * after loading, and a random walk through the exits like a player, where every room entered
+ * for the first time is read from the file. Heap is measured after a full GC, so it is what
+ * the map keeps, and it should follow the rooms kept in memory rather than the world size.
+ *
+ * Usage: java benchmark.LazyMapBenchmark [sizes, default 100000,1000000]
+ *        [rooms kept in memory, default 1000]
+ */
+public class LazyMapBenchmark {
+  private static final int STEPS = 200_000;
+
+  public static void main(String[] args) throws IOException {
+    String sizes = args.length > 0 ? args[0] : "100000,1000000";
+    int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    Path scratch = Files.createTempDirectory("hw8-lazy");
+    for (String size : sizes.split(",")) {
+      int rooms = Integer.parseInt(size.trim());
+      Path world = scratch.resolve("world-" + rooms + ".json");
+      WorldGenerator generator = new WorldGenerator();
+      generator.setRooms(rooms);
+      generator.setBlocked(0); // a walk can't get through blocked exits
+      generator.write(world);
+      System.out.printf("%8d rooms, %.0f MB of JSON%n", rooms, Files.size(world) / 1e6);
+
+      loadWhole(world);
+
+      long before = usedHeap();
+      long start = System.nanoTime();
+      LazyMap lazy = LoadGameData.loadLazyMap(world.toString(), capacity);
+      double lazyMillis = (System.nanoTime() - start) / 1e6;
+      System.out.printf("  load lazy (index):    %8.1f ms  %8.1f MB%n",
+              lazyMillis, (usedHeap() - before) / 1e6);
+      walk(lazy, "lazy");
+      System.out.printf("  lazy after the walk:  %d rooms read, %d in memory, %.1f MB%n",
+              lazy.getLoads(), lazy.getLoadedRooms().size(), (usedHeap() - before) / 1e6);
+      Files.delete(world);
+    }
+  }
+
+  // in a method of its own, so nothing refers to the map once it returns
+  private static void loadWhole(Path world) throws IOException {
+    long before = usedHeap();
+    long start = System.nanoTime();
+    try {
+      Map eager = LoadGameData.loadMap(world.toString(), false);
+      double eagerMillis = (System.nanoTime() - start) / 1e6;
+      System.out.printf("  load whole map:       %8.1f ms  %8.1f MB%n",
+              eagerMillis, (usedHeap() - before) / 1e6);
+      walk(eager, "whole map");
+    } catch (OutOfMemoryError e) {
+      System.out.printf("  load whole map: does not fit in %.0f MB of heap%n",
+              Runtime.getRuntime().maxMemory() / 1e6);
+    }
+  }
+
+  // walks through random open exits, timing every step
+  private static void walk(Map map, String label) {
+    SplittableRandom random = new SplittableRandom(21);
+    long[] nanos = new long[STEPS];
+    Room room = map.getRooms().get(0);
+    for (int step = 0; step < STEPS; step++) {
+      int[] exits = {room.getN(), room.getS(), room.getE(), room.getW()};
+      int next = exits[random.nextInt(exits.length)];
+      long start = System.nanoTime();
+      Room target = next > 0 ? map.getRoom(next) : null;
+      nanos[step] = System.nanoTime() - start;
+      if (target != null) {
+        room = target;
+      }
+    }
+    Arrays.sort(nanos);
+    long total = 0;
+    for (long n : nanos) {
+      total += n;
+    }
+    System.out.printf("  walk (%s): mean %8.0f ns  p50 %8d ns  p99 %8d ns  max %8.2f ms%n",
+            label, total / (double) STEPS, nanos[STEPS / 2], nanos[STEPS * 99 / 100],
+            nanos[STEPS - 1] / 1e6);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,154 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.GameData;
+import controller.LoadGameData;
+import controller.WorldImage;
+import model.*;
+
+/**
+ * Compares the old double parse (databind + readTree of the whole file string, then the rooms
+ * wired by linear searches) with the streaming controller.LoadGameData.loadMap and, when the world has been compiled,
+ * the controller.WorldImage loader, reporting load time and peak heap. An image map reads its
+ * rooms when they are looked up, so it is timed both opened and with every room read.
+ *
+ * Usage: java benchmark.LoadBenchmark [world.json ...]
+ */
+public class LoadBenchmark {
+  private static final int WARMUP = 5;
+  private static final int ROUNDS = 20;
+
+  public static void main(String[] args) throws IOException {
+    String[] worlds = args.length > 0 ? args : new String[] {
+        "src/json_data/align_quest_game_elements.json",
+        "src/json_data/museum.json",
+        "src/json_data/simple_hallway.json"};
+
+    for (String world : worlds) {
+      System.out.println("== " + world + " (" + new File(world).length() + " bytes)");
+      checkSame(loadDoubleParse(world), LoadGameData.loadMap(world, false));
+      report("double parse (old)", world, LoadBenchmark::loadDoubleParse);
+      report("streaming loadMap", world, path -> LoadGameData.loadMap(path, false));
+      if (WorldImage.loadIfFresh(world) != null) {
+        checkSame(LoadGameData.loadMap(world, false), WorldImage.loadIfFresh(world));
+        report("compiled image", world, WorldImage::loadIfFresh);
+        report("image, every room", world, path -> {
+          Map map = WorldImage.loadIfFresh(path);
+          map.getRooms().forEach(Room::getRoom_number);
+          return map;
+        });
+      }
+    }
+  }
+
+  // the path LoadGameData.loadMap and the GameController constructor used before streaming,
+  // rooms and all, so both ways end with the same model.Map
+  private static Map loadDoubleParse(String pathname) throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    GameData gameData = objectMapper.readValue(new File(pathname), GameData.class);
+    JsonNode rootNode = objectMapper.readTree(Files.readString(new File(pathname).toPath()));
+    List<Room> roomList = new ArrayList<>();
+    for (JsonNode roomNode : rootNode.get("rooms")) {
+      roomList.add(createRoom(roomNode, gameData));
+    }
+    return new Map(roomList, gameData.getName(), gameData.getVersion());
+  }
+
+  private static Room createRoom(JsonNode roomNode, GameData gameData) {
+    String puzzleName = roomNode.get("puzzle").asText(null);
+    Puzzle puzzle = puzzleName == null ? null : gameData.getPuzzles().stream()
+            .filter(p -> p.getName().equalsIgnoreCase(puzzleName)).findFirst().orElse(null);
+    String monsterName = roomNode.get("monster").asText(null);
+    Monster monster = monsterName == null ? null : gameData.getMonsters().stream()
+            .filter(m -> m.getName().equalsIgnoreCase(monsterName)).findFirst().orElse(null);
+    List<Item> roomItems = new ArrayList<>();
+    String itemNames = roomNode.get("items").asText(null);
+    if (itemNames != null) {
+      for (String itemName : itemNames.split(",")) {
+        gameData.getItems().stream()
+                .filter(item -> item.getName().equalsIgnoreCase(itemName.trim()))
+                .findFirst().ifPresent(roomItems::add);
+      }
+    }
+    List<Fixture> roomFixtures = new ArrayList<>();
+    String fixtureNames = roomNode.get("fixtures").asText(null);
+    if (fixtureNames != null) {
+      for (String fixtureName : fixtureNames.split(",")) {
+        gameData.getFixtures().stream()
+                .filter(fixture -> fixture.getName().equalsIgnoreCase(fixtureName.trim()))
+                .findFirst().ifPresent(roomFixtures::add);
+      }
+    }
+    return new Room(roomNode.get("room_name").asText(), roomNode.get("room_number").asInt(),
+            roomNode.get("description").asText(), roomNode.get("N").asInt(),
+            roomNode.get("S").asInt(), roomNode.get("E").asInt(), roomNode.get("W").asInt(),
+            puzzle, monster, roomItems, roomFixtures, roomNode.get("picture").asText());
+  }
+
+  // both ways must build the same rooms before their times mean anything
+  private static void checkSame(Map expected, Map actual) {
+    List<Room> expectedRooms = expected.getRooms();
+    List<Room> actualRooms = actual.getRooms();
+    boolean same = expectedRooms.size() == actualRooms.size();
+    for (int i = 0; same && i < expectedRooms.size(); i++) {
+      Room a = expectedRooms.get(i);
+      Room b = actualRooms.get(i);
+      same = a.getRoom_number() == b.getRoom_number()
+              && a.getRoom_name().equals(b.getRoom_name())
+              && a.getItem().size() == b.getItem().size()
+              && a.getFixtures().size() == b.getFixtures().size()
+              && (a.getPuzzles() == null) == (b.getPuzzles() == null)
+              && (a.getMonsters() == null) == (b.getMonsters() == null);
+    }
+    if (!same) {
+      throw new IllegalStateException("the loaders built different maps");
+    }
+  }
+
+  private static void report(String label, String world, Loader loader) throws IOException {
+    for (int i = 0; i < WARMUP; i++) {
+      loader.load(world);
+    }
+    System.gc();
+    resetPeakHeap();
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      loader.load(world);
+    }
+    double avgMillis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+    System.out.printf("  %-20s %10.3f ms/load   peak heap %8.1f MB%n",
+            label, avgMillis, peakHeap() / (1024.0 * 1024.0));
+  }
+
+  static void resetPeakHeap() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  static long peakHeap() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
+  interface Loader {
+    Object load(String pathname) throws IOException;
+  }
+}
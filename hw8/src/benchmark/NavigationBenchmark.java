@@ -0,0 +1,80 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import controller.LoadGameData;
+import enginedriver.WorldGenerator;
+import model.*;
+
+/**
+ * Measures model.NavigationGraph on generated worlds: building the graph, the first route
+ * question about a room (one BFS) and repeated questions like a hint system or bots ask them,
+ * towards a handful of goal rooms from anywhere.
+ *
+ * Usage: java benchmark.NavigationBenchmark [sizes, default 1000,100000,1000000]
+ */
+public class NavigationBenchmark {
+  private static final int GOALS = 8;
+  private static final int QUERIES = 2_000_000;
+
+  public static void main(String[] args) throws IOException {
+    String sizes = args.length > 0 ? args[0] : "1000,100000,1000000";
+    Path scratch = Files.createTempDirectory("hw8-nav");
+    for (String size : sizes.split(",")) {
+      int rooms = Integer.parseInt(size.trim());
+      Path world = scratch.resolve("world-" + rooms + ".json");
+      WorldGenerator generator = new WorldGenerator();
+      generator.setRooms(rooms);
+      generator.write(world);
+      Map map = LoadGameData.loadMap(world.toString(), false);
+      Files.delete(world);
+      run(map);
+    }
+  }
+
+  private static void run(Map map) {
+    List<Room> rooms = map.getRooms();
+    SplittableRandom random = new SplittableRandom(19);
+    long start = System.nanoTime();
+    NavigationGraph graph = map.getNavigation();
+    double buildMillis = (System.nanoTime() - start) / 1e6;
+
+    int[] goals = new int[GOALS];
+    start = System.nanoTime();
+    for (int i = 0; i < GOALS; i++) {
+      goals[i] = rooms.get(random.nextInt(rooms.size())).getRoom_number();
+      graph.distance(rooms.get(0).getRoom_number(), goals[i]);
+    }
+    double firstMillis = (System.nanoTime() - start) / 1e6 / GOALS;
+
+    int[] from = new int[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      from[i] = rooms.get(random.nextInt(rooms.size())).getRoom_number();
+    }
+    int reachable = 0;
+    start = System.nanoTime();
+    for (int i = 0; i < QUERIES; i++) {
+      if (graph.distance(from[i], goals[i % GOALS]) >= 0) {
+        reachable++;
+      }
+    }
+    double distanceNanos = (System.nanoTime() - start) / (double) QUERIES;
+    start = System.nanoTime();
+    int hints = 0;
+    for (int i = 0; i < QUERIES; i++) {
+      if (graph.nextDirection(from[i], goals[i % GOALS]) != null) {
+        hints++;
+      }
+    }
+    double hintNanos = (System.nanoTime() - start) / (double) QUERIES;
+
+    System.out.printf("%8d rooms  build %8.1f ms  first question %8.2f ms  distance %6.1f ns"
+                    + "  next direction %6.1f ns  (%d%% reachable, %d hints)%n",
+            rooms.size(), buildMillis, firstMillis, distanceNanos, hintNanos,
+            reachable * 100L / QUERIES, hints);
+  }
+}
@@ -0,0 +1,199 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import controller.CommandJournal;
+import controller.GameController;
+import controller.JournalReplay;
+import controller.LoadGameData;
+import controller.SaveGameData;
+import enginedriver.WorldGenerator;
+import model.*;
+
+/**
+ * Measures how fast controller.JournalReplay rebuilds a session, in commands per second.
+ * Replays the given journal, or records a seeded bot session on a generated world first and
+ * then checks that the replay ends in the same world state as the recorded session.
+ *
+ * Usage: java benchmark.ReplayBenchmark [commands.journal] [--rooms n] [--commands n]
+ *        [--rounds n]
+ */
+public class ReplayBenchmark {
+  private static final int WARMUP = 3;
+  private static final String[] ANSWERS = {"no idea", "yes", "42"};
+
+  public static void main(String[] args) throws IOException {
+    String journal = null;
+    int rooms = 10_000;
+    int commands = 100_000;
+    int rounds = 5;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--rooms" -> rooms = Integer.parseInt(args[++i]);
+        case "--commands" -> commands = Integer.parseInt(args[++i]);
+        case "--rounds" -> rounds = Integer.parseInt(args[++i]);
+        default -> journal = args[i];
+      }
+    }
+
+    Path scratch = Files.createTempDirectory("hw8-replay");
+    GameController recorded = null;
+    if (journal == null) {
+      Path world = scratch.resolve("world.json");
+      WorldGenerator generator = new WorldGenerator();
+      generator.setRooms(rooms);
+      generator.setBlocked(0); // GameController can't move through a blocked exit yet
+      generator.setMonsters(0); // the bot would not survive a long journal with monsters
+      generator.write(world);
+      journal = scratch.resolve("commands.journal").toString();
+      recorded = record(world.toString(), Paths.get(journal), commands);
+    }
+
+    JournalReplay replay = JournalReplay.read(Paths.get(journal));
+    Map template = LoadGameData.loadMap(replay.getWorldPath(), false);
+    int size = replay.getCommands().size();
+    System.out.println("== " + journal + " (" + size + " commands, "
+            + template.getRooms().size() + " rooms)");
+    if (!replay.isComplete()) {
+      System.out.println("  the session loaded a game, only the commands before it replay");
+    }
+
+    for (int i = 0; i < WARMUP; i++) {
+      replay.replay(template.copy(), Writer.nullWriter());
+    }
+    double best = 0;
+    double total = 0;
+    GameController last = null;
+    for (int i = 0; i < rounds; i++) {
+      Map map = template.copy(); // copying the world is not part of the replay
+      long start = System.nanoTime();
+      last = replay.replay(map, Writer.nullWriter());
+      double perSecond = size / ((System.nanoTime() - start) / 1e9);
+      best = Math.max(best, perSecond);
+      total += perSecond;
+    }
+    System.out.printf("  replay %14.0f commands/s (best %.0f)%n", total / rounds, best);
+
+    if (recorded != null && last != null) {
+      Path expected = scratch.resolve("recorded.json");
+      Path actual = scratch.resolve("replayed.json");
+      SaveGameData.saveGameData(recorded.getMap(), expected.toString());
+      SaveGameData.saveGameData(last.getMap(), actual.toString());
+      boolean same = sameGame(expected, actual)
+              && samePlayer(recorded.getPlayer(), last.getPlayer());
+      System.out.println("  replayed world " + (same ? "matches" : "DIFFERS from")
+              + " the recorded session");
+    }
+  }
+
+  // saves list items, fixtures, monsters and puzzles in no particular order
+  private static boolean sameGame(Path expected, Path actual) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode left = mapper.readTree(expected.toFile());
+    JsonNode right = mapper.readTree(actual.toFile());
+    Iterator<String> fields = left.fieldNames();
+    while (fields.hasNext()) {
+      String field = fields.next();
+      JsonNode a = left.get(field);
+      JsonNode b = right.get(field);
+      if (b == null) {
+        return false;
+      }
+      boolean same = a.isArray() && !field.equals("rooms")
+              ? new HashSet<>(toList(a)).equals(new HashSet<>(toList(b))) : a.equals(b);
+      if (!same) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<JsonNode> toList(JsonNode array) {
+    List<JsonNode> list = new ArrayList<>();
+    array.forEach(list::add);
+    return list;
+  }
+
+  private static boolean samePlayer(Player expected, Player actual) {
+    List<String> expectedItems = new ArrayList<>();
+    expected.getInventory().forEach(item -> expectedItems.add(item.getName()));
+    List<String> actualItems = new ArrayList<>();
+    actual.getInventory().forEach(item -> actualItems.add(item.getName()));
+    return expected.getScore().equals(actual.getScore())
+            && expected.getHealth().equals(actual.getHealth())
+            && expected.getCurrentRoom().getRoom_number()
+                == actual.getCurrentRoom().getRoom_number()
+            && expectedItems.equals(actualItems);
+  }
+
+  // plays a seeded bot session on the world with the journal on, returns the finished session
+  private static GameController record(String world, Path journal, int commands)
+          throws IOException {
+    Map map = LoadGameData.loadMap(world, false);
+    GameController session = new GameController(map, world, new StringReader("bot\n"),
+            Writer.nullWriter());
+    SplittableRandom random = new SplittableRandom(7);
+    try (CommandJournal out = CommandJournal.create(journal, world,
+            session.getPlayer().getName())) {
+      session.setJournal(out);
+      for (int i = 0; i < commands && !session.isGameOver(); i++) {
+        session.getCommand(nextCommand(session.getPlayer(), random));
+      }
+    }
+    return session;
+  }
+
+  private static String[] nextCommand(Player player, SplittableRandom random) {
+    Room room = player.getCurrentRoom();
+    List<Item> here = room.getItem();
+    List<Item> carried = player.getInventory();
+    switch (random.nextInt(10)) {
+      case 0:
+        return new String[] {"l", ""};
+      case 1:
+        return new String[] {"i", ""};
+      case 2:
+        if (!here.isEmpty()) {
+          return new String[] {"t", pick(here, random)};
+        }
+        break;
+      case 3:
+        if (!carried.isEmpty()) {
+          return new String[] {"d", pick(carried, random)};
+        }
+        break;
+      case 4:
+        if (!carried.isEmpty()) {
+          return new String[] {"u", pick(carried, random)};
+        }
+        break;
+      case 5:
+        if (!here.isEmpty()) {
+          return new String[] {"x", pick(here, random)};
+        }
+        break;
+      case 6:
+        return new String[] {"a", ANSWERS[random.nextInt(ANSWERS.length)]};
+      default:
+        break;
+    }
+    String[] directions = {"n", "s", "e", "w"};
+    return new String[] {directions[random.nextInt(directions.length)], ""};
+  }
+
+  private static String pick(List<Item> items, SplittableRandom random) {
+    return items.get(random.nextInt(items.size())).getName().toLowerCase();
+  }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import controller.EntityIndex;
+import controller.GameData;
+import model.*;
+
+/**
+ * Compares resolving room entity names with the old linear stream scan
+ * against controller.EntityIndex, on synthetic worlds of growing size.
+ *
+ * Usage: java benchmark.ResolveBenchmark [maxRooms]
+ */
+public class ResolveBenchmark {
+  private static final int NAMES_PER_ROOM = 3;
+
+  public static void main(String[] args) {
+    int maxRooms = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+    for (int rooms = 1_000; rooms <= maxRooms; rooms *= 2) {
+      GameData gameData = syntheticGameData(rooms);
+      String[] roomItemNames = roomItemNames(rooms);
+
+      long start = System.nanoTime();
+      int scanned = 0;
+      for (String names : roomItemNames) {
+        scanned += findItemsByScan(names, gameData).size();
+      }
+      double scanMillis = (System.nanoTime() - start) / 1e6;
+
+      start = System.nanoTime();
+      EntityIndex index = new EntityIndex(gameData);
+      int indexed = 0;
+      for (String names : roomItemNames) {
+        List<Item> found = new ArrayList<>();
+        index.findItems(names, found);
+        indexed += found.size();
+      }
+      double indexMillis = (System.nanoTime() - start) / 1e6;
+
+      System.out.printf("%8d rooms %8d items   scan %10.2f ms   index %8.2f ms   (%d/%d resolved)%n",
+              rooms, gameData.getItems().size(), scanMillis, indexMillis, scanned, indexed);
+    }
+  }
+
+  // the per-name search LoadGameData and GameController used before the index
+  private static List<Item> findItemsByScan(String itemNames, GameData gameData) {
+    List<Item> roomItems = new ArrayList<>();
+    for (String itemName : itemNames.split(",")) {
+      gameData.getItems().stream()
+              .filter(item -> item.getName().equalsIgnoreCase(itemName.trim()))
+              .findFirst()
+              .ifPresent(roomItems::add);
+    }
+    return roomItems;
+  }
+
+  static GameData syntheticGameData(int rooms) {
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < rooms * NAMES_PER_ROOM; i++) {
+      Item item = new Item();
+      item.setName("Item " + i);
+      items.add(item);
+    }
+    GameData gameData = new GameData();
+    gameData.setItems(items);
+    gameData.setFixtures(new ArrayList<>());
+    gameData.setPuzzles(new ArrayList<>());
+    gameData.setMonsters(new ArrayList<>());
+    return gameData;
+  }
+
+  private static String[] roomItemNames(int rooms) {
+    String[] names = new String[rooms];
+    for (int r = 0; r < rooms; r++) {
+      StringBuilder sb = new StringBuilder();
+      for (int j = 0; j < NAMES_PER_ROOM; j++) {
+        if (j > 0) sb.append(", ");
+        sb.append("ITEM ").append(r * NAMES_PER_ROOM + j);
+      }
+      names[r] = sb.toString();
+    }
+    return names;
+  }
+}
@@ -0,0 +1,124 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import model.*;
+
+/**
+ * Crowded rooms, like the room of a shared world where everybody drops their things: a player
+ * examines something in the room, takes an item by name and drops it again, over and over.
+ * Compares the scans GameController used to run on plain lists (items, then fixtures,
+ * equalsIgnoreCase on every name) with the name index of model.Room. Both must find the
+ * same things before anything is reported.
+ *
+ * Usage: java benchmark.RoomLookupBenchmark [items per room, default 100,1000,10000]
+ *        [operations, default 20000]
+ */
+public class RoomLookupBenchmark {
+  private static final int FIXTURES = 100;
+  private static final int ROUNDS = 3;
+
+  public static void main(String[] args) {
+    String sizes = args.length > 0 ? args[0] : "100,1000,10000";
+    int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+    for (String size : sizes.split(",")) {
+      int count = Integer.parseInt(size.trim());
+      SplittableRandom random = new SplittableRandom(24);
+      String[] names = new String[operations];
+      for (int i = 0; i < operations; i++) {
+        // mostly items, some fixtures and some names that are nowhere
+        int pick = random.nextInt(10);
+        names[i] = pick < 7 ? "PEBBLE " + random.nextInt(count)
+                : pick < 9 ? "statue " + random.nextInt(FIXTURES) : "nothing " + i;
+      }
+
+      long oldNanos = Long.MAX_VALUE;
+      long newNanos = Long.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        Room oldRoom = crowdedRoom(count);
+        List<Item> roomItems = new ArrayList<>(oldRoom.getItem());
+        List<Fixture> fixtures = new ArrayList<>(oldRoom.getFixtures());
+        long start = System.nanoTime();
+        long oldFound = oldWay(roomItems, fixtures, names);
+        oldNanos = Math.min(oldNanos, System.nanoTime() - start);
+
+        Player newPlayer = new Player("new", new ArrayList<>(), crowdedRoom(count));
+        start = System.nanoTime();
+        long newFound = newWay(newPlayer, names);
+        newNanos = Math.min(newNanos, System.nanoTime() - start);
+        if (oldFound != newFound) {
+          throw new IllegalStateException("found " + oldFound + " and " + newFound);
+        }
+      }
+      System.out.printf("%6d items: scans %9.0f ns/op   index %6.0f ns/op%n", count,
+              oldNanos / (double) operations, newNanos / (double) operations);
+    }
+  }
+
+  private static Room crowdedRoom(int count) {
+    List<Item> items = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Item item = new Item();
+      item.setName("Pebble " + i);
+      item.setWeight(0);
+      items.add(item);
+    }
+    List<Fixture> fixtures = new ArrayList<>(FIXTURES);
+    for (int i = 0; i < FIXTURES; i++) {
+      Fixture fixture = new Fixture();
+      fixture.setName("Statue " + i);
+      fixtures.add(fixture);
+    }
+    return new Room("Drop zone", 1, "", 0, 0, 0, 0, null, null, items, fixtures, "");
+  }
+
+  // examine, then take and drop, the way GameController and Player did it before the index
+  private static long oldWay(List<Item> roomItems, List<Fixture> fixtures, String[] names) {
+    List<Item> inventory = new ArrayList<>();
+    long found = 0;
+    for (String name : names) {
+      for (int i = 0; i < roomItems.size(); i++) {
+        if (roomItems.get(i).getName().equalsIgnoreCase(name)) {
+          found++;
+        }
+      }
+      for (int i = 0; i < fixtures.size(); i++) {
+        if (fixtures.get(i).getName().equalsIgnoreCase(name)) {
+          found++;
+        }
+      }
+      for (Iterator<Item> it = roomItems.iterator(); it.hasNext();) {
+        Item item = it.next();
+        if (item.getName().equalsIgnoreCase(name)) {
+          it.remove();
+          inventory.add(item);
+          // and dropped again
+          if (inventory.contains(item)) {
+            roomItems.add(item);
+            inventory.remove(item);
+          }
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+  private static long newWay(Player player, String[] names) {
+    Room room = player.getCurrentRoom();
+    long found = 0;
+    for (String name : names) {
+      found += room.findItems(name).size();
+      found += room.findFixtures(name).size();
+      Item item = room.findItem(name);
+      if (item != null && player.pickUpItem(item)) {
+        room.getItem().remove(item);
+        player.dropItem(item);
+      }
+    }
+    return found;
+  }
+}
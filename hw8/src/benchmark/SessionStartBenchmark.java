@@ -0,0 +1,108 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import controller.LoadGameData;
+import controller.WorldTemplate;
+import enginedriver.WorldGenerator;
+import model.*;
+
+/**
+ * What it costs to start a game session, the three ways a session got its world:
+ * a parse of the world file of its own (what a headless GameController did), a copy of a
+ * world loaded once (what GameServer did) and a session on a shared controller.WorldTemplate.
+ * Every session gets its first room, like a new player does.
+ *
+ * Reported per session: the best time to start one, and the heap the sessions keep, from
+ * a class histogram of the heap taken with all of them alive (GC.class_histogram, which runs
+ * a full GC first). The world itself, loaded once or the template, is not counted.
+ *
+ * Usage: java benchmark.SessionStartBenchmark [generated sizes, default 1000,10000]
+ *        [sessions, default 50]
+ */
+public class SessionStartBenchmark {
+
+  private interface Start {
+    Map session() throws IOException;
+  }
+
+  public static void main(String[] args) throws IOException, JMException {
+    String sizes = args.length > 0 ? args[0] : "1000,10000";
+    int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    System.out.printf("%d sessions of every world%n", sessions);
+
+    File[] bundled = new File("json_data").listFiles((dir, name) -> name.endsWith(".json"));
+    if (bundled == null) {
+      bundled = new File[0];
+    }
+    for (File world : bundled) {
+      measure(world.getPath(), sessions);
+    }
+    Path scratch = Files.createTempDirectory("hw8-sessions");
+    for (String size : sizes.split(",")) {
+      WorldGenerator generator = new WorldGenerator();
+      generator.setRooms(Integer.parseInt(size.trim()));
+      Path world = scratch.resolve("generated-" + size.trim() + ".json");
+      generator.write(world);
+      measure(world.toString(), sessions);
+      Files.delete(world);
+    }
+  }
+
+  private static void measure(String world, int sessions) throws IOException, JMException {
+    System.out.printf("%n%s%n", world);
+    report("parse per session", sessions, () -> LoadGameData.loadMap(world, false));
+    Map loaded = LoadGameData.loadMap(world, false);
+    report("copy of one load", sessions, loaded::copy);
+    WorldTemplate template = WorldTemplate.of(world);
+    report("template session", sessions, template::newSession);
+  }
+
+  private static void report(String label, int sessions, Start start)
+          throws IOException, JMException {
+    List<Map> kept = new ArrayList<>(sessions);
+    for (int i = 0; i < sessions; i++) {
+      kept.add(started(start)); // warm up, then dropped
+    }
+    kept.clear();
+    heapBytes(); // what the histogram itself leaves is gone by the next one
+    long before = heapBytes();
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < sessions; i++) {
+      long begin = System.nanoTime();
+      kept.add(started(start));
+      best = Math.min(best, System.nanoTime() - begin);
+    }
+    long bytes = heapBytes() - before;
+    System.out.printf("  %-20s %12.1f us %12.1f KB%n", label, best / 1000.0,
+            bytes / 1024.0 / kept.size());
+  }
+
+  private static Map started(Start start) throws IOException {
+    Map session = start.session();
+    session.getRooms().get(0);
+    return session;
+  }
+
+  // heap in use after a full GC, the total line of GC.class_histogram
+  private static long heapBytes() throws JMException {
+    String table = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+            new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+            new Object[] {null}, new String[] {String[].class.getName()});
+    for (String line : table.split("\n")) {
+      String[] columns = line.trim().split("\\s+");
+      if (columns.length == 3 && columns[0].equals("Total")) {
+        return Long.parseLong(columns[2]);
+      }
+    }
+    throw new IllegalStateException("no total in the class histogram");
+  }
+}
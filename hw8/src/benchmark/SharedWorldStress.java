@@ -0,0 +1,138 @@
+package benchmark;
+
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import controller.GameController;
+import controller.RoomLocks;
+import model.*;
+import server.RoomActors;
+
+/**
+ * Stress check for the shared-world mode.
+ * Many players on few rooms take, drop and move as fast as they can on one model.Map,
+ * then every item must be in exactly one place: one room or one inventory.
+ *
+ * Usage: java benchmark.SharedWorldStress [players] [rooms] [items] [commandsPerPlayer] [--unlocked | --actors]
+ * --unlocked runs without controller.RoomLocks to show the races it prevents,
+ * --actors routes the commands through server.RoomActors instead of locking.
+ */
+public class SharedWorldStress {
+
+  public static void main(String[] args) throws Exception {
+    int players = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    int rooms = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int items = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+    int commands = args.length > 3 ? Integer.parseInt(args[3]) : 50_000;
+    String mode = args.length > 4 ? args[4].substring(2) : "locked";
+
+    Map world = ringWorld(rooms, items);
+    RoomLocks locks = new RoomLocks(64);
+    RoomActors actors = mode.equals("actors") ? new RoomActors(world) : null;
+    List<GameController> sessions = new ArrayList<>();
+    for (int p = 0; p < players; p++) {
+      GameController session = new GameController(world, null,
+              new StringReader("player-" + p + "\n"), Writer.nullWriter());
+      if (mode.equals("locked")) {
+        session.setRoomLocks(locks);
+      } else if (actors != null) {
+        session.setCommandRouter(actors);
+      }
+      sessions.add(session);
+    }
+
+    AtomicInteger failures = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (GameController session : sessions) {
+      Thread thread = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+          start.await();
+          for (int i = 0; i < commands; i++) {
+            int roll = random.nextInt(10);
+            if (roll < 5) {
+              session.getCommand(new String[] {"t", "gem-" + random.nextInt(items)});
+            } else if (roll < 9) {
+              List<Item> inventory = session.getPlayer().getInventory();
+              if (!inventory.isEmpty()) {
+                String name = inventory.get(random.nextInt(inventory.size())).getName();
+                session.getCommand(new String[] {"d", name});
+              }
+            } else {
+              session.getCommand(new String[] {random.nextBoolean() ? "n" : "s", ""});
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+          failures.incrementAndGet();
+          System.out.println(Thread.currentThread().getName() + " crashed: " + e);
+        }
+      }, "player-" + threads.size());
+      threads.add(thread);
+      thread.start();
+    }
+
+    long began = System.nanoTime();
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double seconds = (System.nanoTime() - began) / 1e9;
+
+    // every item must be in exactly one room or one inventory
+    IdentityHashMap<Item, Integer> seen = new IdentityHashMap<>();
+    for (Room room : world.getRooms()) {
+      for (Item item : room.getItem()) {
+        seen.merge(item, 1, Integer::sum);
+      }
+    }
+    for (GameController session : sessions) {
+      for (Item item : session.getPlayer().getInventory()) {
+        seen.merge(item, 1, Integer::sum);
+      }
+    }
+    int duplicated = 0;
+    for (int count : seen.values()) {
+      if (count > 1) {
+        duplicated++;
+      }
+    }
+    int lost = items - seen.size();
+
+    System.out.printf("%s: %d players x %d commands on %d rooms in %.2f s (%.0f commands/s)%n",
+            mode, players, commands, rooms, seconds,
+            players * (double) commands / seconds);
+    System.out.printf("items %d, duplicated %d, lost %d, crashed players %d -> %s%n",
+            items, duplicated, lost, failures.get(),
+            duplicated == 0 && lost == 0 && failures.get() == 0 ? "OK" : "BROKEN");
+    if (actors != null) {
+      actors.shutdown();
+    }
+  }
+
+  // rooms 1..n in a ring, north goes up and south goes down, items spread over the rooms
+  static Map ringWorld(int rooms, int items) {
+    List<Room> roomList = new ArrayList<>();
+    for (int r = 1; r <= rooms; r++) {
+      int north = r == rooms ? 1 : r + 1;
+      int south = r == 1 ? rooms : r - 1;
+      roomList.add(new Room("Room " + r, r, "Stress room " + r, north, south, 0, 0,
+              null, null, new ArrayList<>(), new ArrayList<>(), null));
+    }
+    for (int i = 0; i < items; i++) {
+      Item item = new Item();
+      item.setName("gem-" + i);
+      item.setWeight(1);
+      roomList.get(i % rooms).getItem().add(item);
+    }
+    return new Map(roomList, "stress", "1");
+  }
+}
@@ -0,0 +1,181 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import controller.LoadGameData;
+import enginedriver.WorldGenerator;
+import model.*;
+
+/**
+ * Heap kept by the text of loaded worlds, with and without a model.StringPool. Every world is
+ * loaded several times and the maps are kept together, like sessions that each loaded a save
+ * of the same world, once for each way of keeping text:
+ * as read (what LoadGameData.loadMap does for a world without a template), one pool per load,
+ * one pool for every load (the pool of a controller.WorldTemplate), the same with a weak pool
+ * (what a LazyMap uses), and one pool that packs long descriptions.
+ *
+ * The numbers come from a class histogram of the heap (the GC.class_histogram diagnostic
+ * command, which runs a full GC first): String and byte[] objects and bytes, the packed
+ * descriptions, the tables (the pools, but also the lists of the rooms, which every way has
+ * alike) and all of it together.
+ * Worlds: the ones in json_data, generated worlds, and the same generated worlds with a
+ * typographic ellipsis at the end of each text, which makes Java keep it in UTF-16.
+ *
+ * Usage: java benchmark.StringPoolBenchmark [generated sizes, default 1000,10000]
+ *        [loads of each world, default 8]
+ */
+public class StringPoolBenchmark {
+  private static final int PACK_ABOVE = 64;
+
+  public static void main(String[] args) throws IOException, JMException {
+    String sizes = args.length > 0 ? args[0] : "1000,10000";
+    int loads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    System.out.printf("%d loads of every world, heap in KB after a full GC%n", loads);
+
+    File[] bundled = new File("json_data").listFiles((dir, name) -> name.endsWith(".json"));
+    if (bundled == null) {
+      bundled = new File[0];
+    }
+    for (File world : bundled) {
+      // classes and constants the loader creates once should not count for the first world
+      LoadGameData.loadMap(world.getPath(), false, null);
+      LoadGameData.loadMap(world.getPath(), false, new StringPool(PACK_ABOVE, true));
+    }
+    for (File world : bundled) {
+      measure(world.getPath(), loads);
+    }
+
+    Path scratch = Files.createTempDirectory("hw8-strings");
+    for (String size : sizes.split(",")) {
+      int rooms = Integer.parseInt(size.trim());
+      Path world = scratch.resolve("generated-" + rooms + ".json");
+      WorldGenerator generator = new WorldGenerator();
+      generator.setRooms(rooms);
+      generator.write(world);
+      measure(world.toString(), loads);
+
+      Path typographic = scratch.resolve("typographic-" + rooms + ".json");
+      String json = Files.readString(world, StandardCharsets.UTF_8);
+      Files.writeString(typographic, json.replace(".\"", "\u2026\""), StandardCharsets.UTF_8);
+      measure(typographic.toString(), loads);
+      Files.delete(world);
+      Files.delete(typographic);
+    }
+  }
+
+  private static void measure(String world, int loads) throws IOException, JMException {
+    System.out.printf("%n%s%n", world);
+    System.out.printf("  %-20s %9s %10s %9s %10s %9s %10s %10s%n", "", "strings", "string KB",
+            "byte[]", "byte[] KB", "packed", "tables KB", "text KB");
+    Histogram before = Histogram.take();
+    List<Map> maps = new ArrayList<>();
+    for (int i = 0; i < loads; i++) {
+      maps.add(LoadGameData.loadMap(world, false, null));
+    }
+    report("text as read", Histogram.take().minus(before));
+    maps.clear();
+
+    before = Histogram.take();
+    for (int i = 0; i < loads; i++) {
+      maps.add(LoadGameData.loadMap(world, false, new StringPool()));
+    }
+    report("one pool per load", Histogram.take().minus(before));
+    maps.clear();
+
+    before = Histogram.take();
+    StringPool shared = new StringPool();
+    for (int i = 0; i < loads; i++) {
+      maps.add(LoadGameData.loadMap(world, false, shared));
+    }
+    report("one pool", Histogram.take().minus(before));
+    maps.clear();
+
+    before = Histogram.take();
+    StringPool weak = StringPool.weak();
+    for (int i = 0; i < loads; i++) {
+      maps.add(LoadGameData.loadMap(world, false, weak));
+    }
+    report("one weak pool", Histogram.take().minus(before));
+    maps.clear();
+
+    before = Histogram.take();
+    StringPool packing = new StringPool(PACK_ABOVE, false);
+    for (int i = 0; i < loads; i++) {
+      maps.add(LoadGameData.loadMap(world, false, packing));
+    }
+    report("one pool, packed", Histogram.take().minus(before));
+    maps.clear();
+  }
+
+  private static void report(String label, Histogram delta) {
+    long text = delta.stringBytes + delta.arrayBytes + delta.packedBytes + delta.tableBytes;
+    System.out.printf("  %-20s %9d %10.1f %9d %10.1f %9d %10.1f %10.1f%n", label,
+            delta.strings, delta.stringBytes / 1024.0, delta.arrays, delta.arrayBytes / 1024.0,
+            delta.packed, delta.tableBytes / 1024.0, text / 1024.0);
+  }
+
+  // the classes that hold text, read from GC.class_histogram
+  private static class Histogram {
+    long strings;
+    long stringBytes;
+    long arrays;
+    long arrayBytes;
+    long packed;
+    long packedBytes;
+    long tableBytes;
+
+    static Histogram take() throws JMException {
+      String table = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+              new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+              new Object[] {null}, new String[] {String[].class.getName()});
+      Histogram histogram = new Histogram();
+      for (String line : table.split("\n")) {
+        String[] columns = line.trim().split("\\s+");
+        if (columns.length < 4 || !columns[0].endsWith(":")) {
+          continue;
+        }
+        long instances = Long.parseLong(columns[1]);
+        long bytes = Long.parseLong(columns[2]);
+        switch (columns[3]) {
+          case "java.lang.String" -> {
+            histogram.strings = instances;
+            histogram.stringBytes = bytes;
+          }
+          case "[B" -> {
+            histogram.arrays = instances;
+            histogram.arrayBytes = bytes;
+          }
+          case "model.Utf8Text" -> {
+            histogram.packed = instances;
+            histogram.packedBytes = bytes;
+          }
+          case "model.StringPool$Entry", "[Lmodel.StringPool$Entry;", "[Ljava.lang.Object;" ->
+                  histogram.tableBytes += bytes;
+          default -> { }
+        }
+      }
+      return histogram;
+    }
+
+    Histogram minus(Histogram before) {
+      Histogram delta = new Histogram();
+      delta.strings = strings - before.strings;
+      delta.stringBytes = stringBytes - before.stringBytes;
+      delta.arrays = arrays - before.arrays;
+      delta.arrayBytes = arrayBytes - before.arrayBytes;
+      delta.packed = packed - before.packed;
+      delta.packedBytes = packedBytes - before.packedBytes;
+      delta.tableBytes = tableBytes - before.tableBytes;
+      return delta;
+    }
+  }
+}
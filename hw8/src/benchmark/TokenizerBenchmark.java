@@ -0,0 +1,92 @@
+package benchmark;
+
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.util.Scanner;
+
+import view.View;
+
+/**
+ * Compares reading commands the old way (Scanner, trim, toLowerCase, split) with
+ * view.View.getInput on view.CommandTokenizer: time and bytes allocated per command,
+ * read from the JVM's per-thread allocation counter. After warmup the tokenizer should
+ * allocate nothing for commands it has seen before.
+ *
+ * Usage: java benchmark.TokenizerBenchmark [commands]
+ */
+public class TokenizerBenchmark {
+  private static final int WARMUP = 3;
+  private static final String SCRIPT = String.join("\n",
+          "n", "North", "  look ", "i", "t Hair Clippers", "x teddy bear", "u hair clippers",
+          "a  Open Sesame", "D thumb drive", "dance", "e", "w", "s", "");
+
+  public static void main(String[] args) {
+    int commands = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    for (int round = 0; round <= WARMUP; round++) {
+      boolean report = round == WARMUP;
+      measure("Scanner + split (old)", commands, report, TokenizerBenchmark::oldWay);
+      measure("View.getInput", commands, report, TokenizerBenchmark::tokenizer);
+    }
+  }
+
+  private static int oldWay(Readable input, int commands) {
+    Scanner scanner = new Scanner(input);
+    int length = 0;
+    for (int i = 0; i < commands && scanner.hasNextLine(); i++) {
+      String line = scanner.nextLine().trim().toLowerCase();
+      String[] partition = line.split(" ", 2);
+      String[] command = {partition[0], partition.length > 1 ? partition[1] : ""};
+      length += command[0].length() + command[1].length();
+    }
+    return length;
+  }
+
+  private static int tokenizer(Readable input, int commands) {
+    View view = new View(input, Writer.nullWriter());
+    int length = 0;
+    for (int i = 0; i < commands; i++) {
+      String[] command = view.getInput();
+      length += command[0].length() + command[1].length();
+    }
+    return length;
+  }
+
+  private static void measure(String label, int commands, boolean report, Parser parser) {
+    com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    Readable input = new ScriptInput();
+    long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    int length = parser.parse(input, commands);
+    long nanos = System.nanoTime() - start;
+    long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+    if (report) {
+      System.out.printf("%-22s %8.1f ns/command %10.2f B/command  (%d chars)%n",
+              label, nanos / (double) commands, allocated / (double) commands, length);
+    }
+  }
+
+  /**
+   * Plays SCRIPT over and over without allocating, like a client that never stops typing.
+   */
+  private static class ScriptInput implements Readable {
+    private int next;
+
+    @Override
+    public int read(CharBuffer target) {
+      int count = 0;
+      while (target.hasRemaining()) {
+        target.put(SCRIPT.charAt(next));
+        next = (next + 1) % SCRIPT.length();
+        count++;
+      }
+      return count;
+    }
+  }
+
+  interface Parser {
+    int parse(Readable input, int commands);
+  }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import controller.WorldValidator;
+import enginedriver.WorldGenerator;
+
+/**
+ * Times controller.WorldValidator on generated worlds with pools of different sizes, reading
+ * and checking apart, and makes sure every pool size reports the same problems.
+ *
+ * Usage: java benchmark.ValidatorBenchmark [sizes, default 10000,100000,1000000]
+ *        [threads, default 1 and the number of processors]
+ */
+public class ValidatorBenchmark {
+  private static final int ROUNDS = 3;
+
+  public static void main(String[] args) throws IOException {
+    String sizes = args.length > 0 ? args[0] : "10000,100000,1000000";
+    String threads = args.length > 1 ? args[1]
+            : "1," + Runtime.getRuntime().availableProcessors();
+    Path scratch = Files.createTempDirectory("hw8-validate");
+    for (String size : sizes.split(",")) {
+      int rooms = Integer.parseInt(size.trim());
+      Path world = scratch.resolve("world-" + rooms + ".json");
+      WorldGenerator generator = new WorldGenerator();
+      generator.setRooms(rooms);
+      generator.setDescriptionLength(40);
+      generator.write(world);
+      List<String> expected = null;
+      for (String count : threads.split(",")) {
+        ForkJoinPool pool = new ForkJoinPool(Integer.parseInt(count.trim()));
+        WorldValidator validator = new WorldValidator(pool);
+        long read = Long.MAX_VALUE;
+        long check = Long.MAX_VALUE;
+        WorldValidator.Report report = null;
+        for (int round = 0; round < ROUNDS; round++) {
+          report = validator.validate(world.toString());
+          read = Math.min(read, report.getReadNanos());
+          check = Math.min(check, report.getCheckNanos());
+        }
+        pool.shutdown();
+        List<String> problems = new ArrayList<>();
+        for (WorldValidator.Problem problem : report.getProblems()) {
+          problems.add(problem.toString());
+        }
+        if (expected == null) {
+          expected = problems;
+        }
+        System.out.printf("%8d rooms  %2s threads  read %8.1f ms  check %8.1f ms"
+                        + "  %d reachable, %d problems%s%n",
+                rooms, count.trim(), read / 1e6, check / 1e6, report.getReachable(),
+                problems.size(), problems.equals(expected) ? "" : "  DIFFERENT PROBLEMS");
+      }
+      Files.delete(world);
+    }
+  }
+}
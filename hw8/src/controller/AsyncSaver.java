@@ -0,0 +1,175 @@
+package controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import model.*;
+
+/**
+ * Saves a game on a background writer thread so the command thread never waits for the disk.
+ *
+ * save() takes a snapshot of the map on the calling thread (Map.snapshot: only the rooms with
+ * unsaved changes are copied, the rest as they are read or before a command changes them) and a
+ * copy of the player, and hands them to the writer, which writes them with
+ * controller.DeltaSaveData and an atomic move of the player file. A save that arrives while an
+ * earlier one is still waiting replaces it, taking over the dirty flags of the replaced snapshot
+ * so its changes are still written.
+ */
+public class AsyncSaver {
+  // one writer for every session, saves go to the disk in the order they were made
+  private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "save-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private Snapshot pending; // waiting for the writer, guarded by this
+
+  /**
+   * Takes a snapshot of the game and queues it for writing.
+   *
+   * @param map        the live map, its dirty flags move to the snapshot.
+   * @param player     the live player.
+   * @param gameFile   where the game data goes.
+   * @param playerFile where the player data goes.
+   */
+  public synchronized void save(Map map, Player player, String gameFile, String playerFile) {
+    Snapshot replaced = pending;
+    pending = new Snapshot(map, player, gameFile, playerFile);
+    map.clearDirty();
+    if (replaced != null) {
+      pending.takeOver(replaced);
+      replaced.map.release();
+    } else {
+      WRITER.execute(this::writePending);
+    }
+  }
+
+  /**
+   * Runs a write on the writer thread, after the saves queued so far.
+   *
+   * @param write the write to run
+   */
+  static void submit(Runnable write) {
+    WRITER.execute(write);
+  }
+
+  /**
+   * Waits until every save queued so far is on disk.
+   */
+  public void flush() {
+    try {
+      WRITER.submit(() -> { }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private void writePending() {
+    Snapshot snapshot;
+    synchronized (this) {
+      snapshot = pending;
+      pending = null;
+    }
+    if (snapshot == null) {
+      return;
+    }
+    // earlier saves of this map are written by now, so its save id is current
+    snapshot.map.setSaveId(snapshot.full ? null : snapshot.live.getSaveId());
+    boolean written;
+    try {
+      written = DeltaSaveData.saveGameData(snapshot.map, snapshot.gameFile);
+    } finally {
+      snapshot.map.release();
+    }
+    if (written) {
+      try {
+        ObjectMapper mapper = new ObjectMapper();
+        SaveGameData.writeAtomically(mapper, SavePlayerData.toJson(snapshot.player, mapper),
+                new File(snapshot.playerFile));
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    // the next save of the live map is a delta on what was just written, or a full one
+    snapshot.live.setSaveId(written ? snapshot.map.getSaveId() : null);
+  }
+
+  /**
+   * Snapshot of a game to be written.
+   */
+  private static class Snapshot {
+    final Map live;
+    final Map map;
+    final Player player;
+    final String gameFile;
+    final String playerFile;
+    boolean full;
+
+    Snapshot(Map live, Player player, String gameFile, String playerFile) {
+      this.live = live;
+      this.map = live.snapshot();
+      this.player = player.copy();
+      this.gameFile = gameFile;
+      this.playerFile = playerFile;
+    }
+
+    /**
+     * Adds the changes of an older snapshot that will not be written.
+     * Its changed rooms are all in memory (getLoadedRooms) and found here by number; a room
+     * that was dirty or held a dirty item is marked dirty, which writes all of its items.
+     * Items that left the room are in a dirty room by now.
+     */
+    void takeOver(Snapshot older) {
+      if (older.full || older.live != live || !older.gameFile.equals(gameFile)
+              || older.map.getRooms().size() != map.getRooms().size()) {
+        full = true;
+        return;
+      }
+      for (Room olderRoom : older.map.getLoadedRooms()) {
+        boolean dirtyRoom = olderRoom.isDirty() || hasDirtyItem(olderRoom);
+        boolean dirtyPuzzle = olderRoom.getPuzzles() != null && olderRoom.getPuzzles().isDirty();
+        boolean dirtyMonster = olderRoom.getMonsters() != null
+                && olderRoom.getMonsters().isDirty();
+        if (dirtyRoom || dirtyPuzzle || dirtyMonster) {
+          // only rooms with changes get a copy in this snapshot
+          takeOver(map.getRoom(olderRoom.getRoom_number()), olderRoom);
+        }
+      }
+    }
+
+    private static void takeOver(Room room, Room olderRoom) {
+      if (room == null) {
+        return;
+      }
+      if (olderRoom.isDirty() || hasDirtyItem(olderRoom)) {
+        room.markDirty();
+      }
+      if (olderRoom.getPuzzles() != null && olderRoom.getPuzzles().isDirty()
+              && room.getPuzzles() != null) {
+        room.getPuzzles().markDirty();
+      }
+      if (olderRoom.getMonsters() != null && olderRoom.getMonsters().isDirty()
+              && room.getMonsters() != null) {
+        room.getMonsters().markDirty();
+      }
+    }
+
+    private static boolean hasDirtyItem(Room room) {
+      if (room.getItem() != null) {
+        for (Item item : room.getItem()) {
+          if (item.isDirty()) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+}
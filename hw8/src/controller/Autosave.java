@@ -0,0 +1,178 @@
+package controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import model.*;
+
+/**
+ * Autosave of one session into a rotating set of slots (slot-0, slot-1, ... in a directory).
+ *
+ * An autosave is due after a number of commands or after some time, checked when a command
+ * comes in (an idle session has nothing new to save). It is skipped while the session's previous
+ * autosave is still being written or while the shared controller.SaveBudget is used up, and
+ * tried again after the next command. Like a save, a snapshot of the game is taken on the command
+ * thread (Map.snapshot, rooms are copied as the writer reads them) and written on the writer
+ * thread of controller.AsyncSaver; every slot holds a full game, so any of them can be loaded on
+ * its own. Manual saves and their deltas are not affected.
+ */
+public class Autosave {
+  private final String directory;
+  private final int slots;
+  private final int everyCommands;
+  private final long everyNanos;
+  private final SaveBudget budget;
+  private final AtomicBoolean writing = new AtomicBoolean(); // an autosave is on its way
+  private static final long FIRST_ESTIMATE = 64 * 1024; // bytes, until the first one is written
+
+  // state of the session, only touched by the command that runs it
+  private int commandsSinceSave;
+  private long lastSaveAt = System.nanoTime();
+  private int nextSlot;
+
+  // metrics, deferred is written by the command thread, the rest by the writer thread
+  private volatile long saves;
+  private volatile long bytesWritten;
+  private volatile long deferred;
+  private volatile long lastLatencyNanos;
+  private volatile long maxLatencyNanos;
+  private volatile long totalLatencyNanos;
+  private volatile long lastBytes;
+
+  /**
+   * @param directory     where the slot directories are created.
+   * @param slots         number of slots to rotate through, at least 1.
+   * @param everyCommands autosave after this many commands.
+   * @param everyMillis   or after this much time, whichever comes first.
+   * @param budget        disk budget shared with the other sessions.
+   */
+  public Autosave(String directory, int slots, int everyCommands, long everyMillis,
+                  SaveBudget budget) {
+    if (slots < 1) {
+      throw new IllegalArgumentException("at least one slot is needed");
+    }
+    this.directory = directory;
+    this.slots = slots;
+    this.everyCommands = everyCommands;
+    this.everyNanos = everyMillis * 1_000_000L;
+    this.budget = budget;
+  }
+
+  /**
+   * Counts one command of the session.
+   *
+   * @return true if an autosave should run now.
+   */
+  boolean commandDone() {
+    commandsSinceSave++;
+    if (commandsSinceSave < everyCommands && System.nanoTime() - lastSaveAt < everyNanos) {
+      return false;
+    }
+    if (writing.get()) {
+      return false;
+    }
+    if (!budget.tryAcquire(estimate())) {
+      deferred++;
+      return false;
+    }
+    return true;
+  }
+
+  // what the next autosave will take out of the budget, it rarely differs much from the last one
+  private long estimate() {
+    long bytes = lastBytes;
+    return bytes > 0 ? bytes : FIRST_ESTIMATE;
+  }
+
+  /**
+   * Takes a snapshot of the game and queues it for the next slot.
+   * Must run where the map can be read safely, like a save command.
+   *
+   * @param map    the live map.
+   * @param player the live player.
+   */
+  void save(Map map, Player player) {
+    long requestedAt = System.nanoTime();
+    Map snapshot = map.snapshot();
+    Player playerCopy = player.copy();
+    int slot = nextSlot;
+    nextSlot = (nextSlot + 1) % slots;
+    commandsSinceSave = 0;
+    lastSaveAt = requestedAt;
+    long reserved = estimate();
+    writing.set(true);
+    AsyncSaver.submit(() -> write(snapshot, playerCopy, slot, requestedAt, reserved));
+  }
+
+  private void write(Map map, Player player, int slot, long requestedAt, long reserved) {
+    try {
+      File slotDirectory = new File(directory, "slot-" + slot);
+      slotDirectory.mkdirs();
+      File gameFile = new File(slotDirectory, "game_data.json");
+      File playerFile = new File(slotDirectory, "player_data.json");
+      ObjectMapper mapper = new ObjectMapper();
+      SaveGameData.writeWorld(map, null, gameFile);
+      SaveGameData.writeAtomically(mapper, SavePlayerData.toJson(player, mapper), playerFile);
+
+      long bytes = gameFile.length() + playerFile.length();
+      budget.charge(bytes - reserved);
+      lastBytes = bytes;
+      long latency = System.nanoTime() - requestedAt;
+      saves++;
+      bytesWritten += bytes;
+      lastLatencyNanos = latency;
+      maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+      totalLatencyNanos += latency;
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      map.release();
+      writing.set(false);
+    }
+  }
+
+  /**
+   * @return number of autosaves written.
+   */
+  public long getSaves() {
+    return saves;
+  }
+
+  /**
+   * @return bytes written by all autosaves of this session.
+   */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * @return number of commands after which a due autosave waited for the budget.
+   */
+  public long getDeferred() {
+    return deferred;
+  }
+
+  /**
+   * @return time from the command that started the last autosave until it was on disk.
+   */
+  public double getLastLatencyMillis() {
+    return lastLatencyNanos / 1e6;
+  }
+
+  /**
+   * @return the longest autosave latency so far.
+   */
+  public double getMaxLatencyMillis() {
+    return maxLatencyNanos / 1e6;
+  }
+
+  /**
+   * @return the average autosave latency, 0 before the first one.
+   */
+  public double getAverageLatencyMillis() {
+    long count = saves;
+    return count == 0 ? 0 : totalLatencyNanos / 1e6 / count;
+  }
+}
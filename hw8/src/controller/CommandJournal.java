@@ -0,0 +1,147 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Journal of every command a session was given, for crash recovery and offline replay
+ * (see controller.JournalReplay).
+ *
+ * File layout: magic, format version, then the world path and player name, then one record
+ * per command. Strings and records are length-prefixed with a varint; a command record is
+ * the action, a 0 byte and the argument, all UTF-8. Records are collected in a buffer and
+ * written through a FileChannel when it fills up, on flush() and on close(), so a crash loses
+ * at most the commands still in the buffer; a record cut short at the end is ignored on replay.
+ */
+public class CommandJournal implements Closeable {
+  static final int MAGIC = 0x48574A4C; // "HWJL"
+  static final int FORMAT_VERSION = 1;
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  private CommandJournal(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Starts a new journal, replacing any file at the path.
+   *
+   * @param file       journal file.
+   * @param worldPath  world the session plays, replay loads it again.
+   * @param playerName name the session was started with.
+   * @return the open journal.
+   * @throws IOException if the file can't be created.
+   */
+  public static CommandJournal create(Path file, String worldPath, String playerName)
+          throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    CommandJournal journal = new CommandJournal(channel);
+    journal.buffer.putInt(MAGIC).putInt(FORMAT_VERSION);
+    journal.putString(worldPath == null ? "" : worldPath);
+    journal.putString(playerName == null ? "" : playerName);
+    journal.flush();
+    return journal;
+  }
+
+  /**
+   * Adds one command.
+   *
+   * @param command action and argument, as given to GameController.getCommand.
+   */
+  public synchronized void append(String[] command) {
+    byte[] action = command[0].getBytes(StandardCharsets.UTF_8);
+    byte[] argument = command.length > 1 && command[1] != null
+            ? command[1].getBytes(StandardCharsets.UTF_8) : new byte[0];
+    int length = action.length + 1 + argument.length;
+    try {
+      if (buffer.remaining() < length + 5) {
+        flush();
+      }
+      if (buffer.remaining() < length + 5) {
+        // a command bigger than the buffer goes out on its own
+        ByteBuffer record = ByteBuffer.allocate(length + 5);
+        putRecord(record, length, action, argument);
+        record.flip();
+        writeFully(record);
+        return;
+      }
+      putRecord(buffer, length, action, argument);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes out the buffered commands.
+   *
+   * @throws IOException if writing fails.
+   */
+  public synchronized void flush() throws IOException {
+    buffer.flip();
+    writeFully(buffer);
+    buffer.clear();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void writeFully(ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+
+  private void putString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    putVarint(buffer, bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static void putRecord(ByteBuffer target, int length, byte[] action, byte[] argument) {
+    putVarint(target, length);
+    target.put(action).put((byte) 0).put(argument);
+  }
+
+  private static void putVarint(ByteBuffer target, int value) {
+    while ((value & ~0x7F) != 0) {
+      target.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    target.put((byte) value);
+  }
+
+  /**
+   * Reads a varint written by putVarint.
+   *
+   * @return the value, or -1 if the buffer ends inside it
+   */
+  static int getVarint(ByteBuffer source) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      if (!source.hasRemaining()) {
+        return -1;
+      }
+      byte b = source.get();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    return -1;
+  }
+}
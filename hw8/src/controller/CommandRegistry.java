@@ -0,0 +1,311 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Verbs the game understands, each with a handler and any number of aliases (n/north, ...).
+ * Words are looked up in a character trie, so resolving costs the length of the word typed,
+ * however many verbs are registered. Registering copies the trie nodes along the new word and
+ * then swaps the root, so sessions keep resolving while a plugin adds verbs.
+ *
+ * Listeners see every command of a verb, or of all verbs, with the time it took.
+ */
+public class CommandRegistry {
+  private volatile Node root = new Node();
+  private final List<Verb> verbs = new ArrayList<>(); // guarded by this
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Runs a verb for a session.
+   */
+  public interface Handler {
+    /**
+     * @param game     the session the command belongs to.
+     * @param argument what was typed after the verb, may be empty.
+     */
+    void run(GameController game, String argument);
+  }
+
+  /**
+   * The room a command goes to besides the player's own, e.g. the next room of a move.
+   * On a shared world the command holds the lock of that room too.
+   */
+  public interface Target {
+    /**
+     * @param game     the session the command belongs to.
+     * @param argument what was typed after the verb, may be empty.
+     * @return the room number, the player's own room if the command stays there.
+     */
+    int roomNumber(GameController game, String argument);
+  }
+
+  /**
+   * Told about every command after it ran.
+   */
+  public interface Listener {
+    /**
+     * @param verb     the verb that ran.
+     * @param argument its argument.
+     * @param nanos    how long the handler took.
+     */
+    void commandDone(Verb verb, String argument, long nanos);
+  }
+
+  /**
+   * What a verb needs from the game around it.
+   */
+  public enum Kind {
+    /** a player action, monsters in the room act first. */
+    TURN,
+    /** no time passes, monsters don't act. */
+    FREE,
+    /** like FREE, and no other command may run at the same time, on a shared world too. */
+    EXCLUSIVE
+  }
+
+  /**
+   * A registered verb.
+   */
+  public static final class Verb {
+    private final String name;
+    private final Kind kind;
+    private final Target target;
+    private final Handler handler;
+    private final List<String> words;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private Verb(String name, Kind kind, Target target, Handler handler, List<String> words) {
+      this.name = name;
+      this.kind = kind;
+      this.target = target;
+      this.handler = handler;
+      this.words = words;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * @return the other room the verb goes to, null if it stays in the player's room.
+     */
+    public Target getTarget() {
+      return target;
+    }
+
+    /**
+     * @return the name and every alias.
+     */
+    public List<String> getWords() {
+      return words;
+    }
+
+    /**
+     * @param listener told about every command of this verb.
+     */
+    public void addListener(Listener listener) {
+      listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+      listeners.remove(listener);
+    }
+  }
+
+  /**
+   * Adds a verb, or replaces the verb any of its words belonged to.
+   *
+   * @param name    the verb, matched as typed.
+   * @param kind    whether it is a player turn.
+   * @param handler what it does.
+   * @param aliases other words for it.
+   * @return the new verb.
+   */
+  public Verb register(String name, Kind kind, Handler handler, String... aliases) {
+    return register(name, kind, null, handler, aliases);
+  }
+
+  /**
+   * Adds a verb that goes to another room, like a move, or replaces the verb any of its words
+   * belonged to.
+   *
+   * @param name    the verb, matched as typed.
+   * @param kind    whether it is a player turn.
+   * @param target  the other room it goes to, null if it stays in the player's room.
+   * @param handler what it does.
+   * @param aliases other words for it.
+   * @return the new verb.
+   */
+  public synchronized Verb register(String name, Kind kind, Target target, Handler handler,
+                                    String... aliases) {
+    List<String> words = new ArrayList<>();
+    words.add(name);
+    words.addAll(Arrays.asList(aliases));
+    Verb verb = new Verb(name, kind, target, handler, Collections.unmodifiableList(words));
+    Node newRoot = root;
+    List<Verb> displaced = new ArrayList<>();
+    for (String word : words) {
+      if (word.isEmpty()) {
+        throw new IllegalArgumentException("verb " + name + " has an empty word");
+      }
+      Verb old = find(newRoot, word);
+      if (old != null && old != verb) {
+        displaced.add(old);
+      }
+      newRoot = put(newRoot, word, 0, verb);
+    }
+    // a verb that lost all of its words is gone
+    for (Verb old : displaced) {
+      if (!reachable(newRoot, old)) {
+        verbs.remove(old);
+      }
+    }
+    verbs.add(verb);
+    root = newRoot;
+    return verb;
+  }
+
+  /**
+   * Finds the verb for a word.
+   *
+   * @param word the word typed.
+   * @return the verb, or null if nothing is registered for it.
+   */
+  public Verb resolve(String word) {
+    return find(root, word);
+  }
+
+  /**
+   * @return every verb, in the order they were registered.
+   */
+  public synchronized List<Verb> getVerbs() {
+    return List.copyOf(verbs);
+  }
+
+  /**
+   * @param listener told about every command of every verb.
+   */
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Runs a resolved verb and tells the listeners, if there are any.
+   */
+  void run(Verb verb, GameController game, String argument) {
+    if (listeners.isEmpty() && verb.listeners.isEmpty()) {
+      verb.handler.run(game, argument);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      verb.handler.run(game, argument);
+    } finally {
+      long nanos = System.nanoTime() - start;
+      for (Listener listener : verb.listeners) {
+        listener.commandDone(verb, argument, nanos);
+      }
+      for (Listener listener : listeners) {
+        listener.commandDone(verb, argument, nanos);
+      }
+    }
+  }
+
+  private static Verb find(Node node, String word) {
+    for (int i = 0; i < word.length() && node != null; i++) {
+      node = node.child(word.charAt(i));
+    }
+    return node == null ? null : node.verb;
+  }
+
+  private static boolean reachable(Node root, Verb verb) {
+    for (String word : verb.words) {
+      if (find(root, word) == verb) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // returns a copy of node with the word below it pointing at verb, node itself is not changed
+  private static Node put(Node node, String word, int depth, Verb verb) {
+    Node copy = node == null ? new Node() : node.copy();
+    if (depth == word.length()) {
+      copy.verb = verb;
+      return copy;
+    }
+    char c = word.charAt(depth);
+    copy.setChild(c, put(copy.child(c), word, depth + 1, verb));
+    return copy;
+  }
+
+  /**
+   * One trie node. Children are kept in a small array; a node with many children (the root,
+   * usually) also gets a table indexed by character, for plain ASCII words.
+   */
+  private static final class Node {
+    private static final int DIRECT_FROM = 8; // children before the table is worth it
+    private char[] keys = new char[0];
+    private Node[] children = new Node[0];
+    private Node[] direct; // by character below 128, null while there are few children
+    private Verb verb;
+
+    Node child(char c) {
+      Node[] table = direct;
+      if (table != null && c < 128) {
+        return table[c];
+      }
+      char[] k = keys;
+      for (int i = 0; i < k.length; i++) {
+        if (k[i] == c) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    void setChild(char c, Node child) {
+      int i = 0;
+      while (i < keys.length && keys[i] != c) {
+        i++;
+      }
+      if (i == keys.length) {
+        keys = Arrays.copyOf(keys, keys.length + 1);
+        children = Arrays.copyOf(children, children.length + 1);
+        keys[i] = c;
+      }
+      children[i] = child;
+      if (direct == null && keys.length >= DIRECT_FROM) {
+        direct = new Node[128];
+        for (int j = 0; j < keys.length; j++) {
+          if (keys[j] < 128) {
+            direct[keys[j]] = children[j];
+          }
+        }
+      } else if (direct != null && c < 128) {
+        direct[c] = child;
+      }
+    }
+
+    Node copy() {
+      Node copy = new Node();
+      copy.keys = keys.clone();
+      copy.children = children.clone();
+      copy.direct = direct == null ? null : direct.clone();
+      copy.verb = verb;
+      return copy;
+    }
+  }
+}
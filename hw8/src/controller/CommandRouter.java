@@ -0,0 +1,17 @@
+package controller;
+
+/**
+ * Decides where and when a session's command runs, e.g. on the actor that owns the
+ * player's current room. The router must eventually call
+ * GameController.executeCommand for the command and return once it has finished.
+ */
+public interface CommandRouter {
+
+  /**
+   * Runs one command of a session and waits for it.
+   *
+   * @param session the session the command belongs to.
+   * @param command action and argument, as returned by view.View.getInput.
+   */
+  void route(GameController session, String[] command);
+}
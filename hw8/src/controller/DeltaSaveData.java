@@ -0,0 +1,195 @@
+package controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import model.*;
+
+/**
+ * Saves the game data as a full snapshot plus a log of changes.
+ *
+ * The first save writes the whole world (same format as controller.SaveGameData, with a
+ * "save_id"). Later saves of the same map only append one line to "game_data.json.delta"
+ * holding the rooms, items, puzzles and monsters that changed since the previous save,
+ * each written in full. Once the log grows past half the snapshot it is folded into a new
+ * snapshot. controller.LoadGameData applies the log on top of the snapshot when loading.
+ *
+ * Saving a model.LazyMap (or a copy of one) also moves its source to what was written, see
+ * LazyMap.persisted, so rooms it had to keep in memory for their changes can go.
+ */
+public class DeltaSaveData {
+  static final String DELTA_SUFFIX = ".delta";
+  // log lines are replayed on every load, rewrite the snapshot before they cost more than it
+  private static final long MIN_COMPACT_BYTES = 16 * 1024;
+
+  /**
+   * Saves the changes of the map since its last save, or the whole map when there is no
+   * matching snapshot at the output path yet or the change log is due for compaction.
+   *
+   * @param map        the map to save.
+   * @param outputPath the snapshot file, the log is written next to it.
+   * @return true if the save was written.
+   */
+  public static boolean saveGameData(Map map, String outputPath) {
+    File base = new File(outputPath);
+    File delta = new File(outputPath + DELTA_SUFFIX);
+    try {
+      String saveId = map.getSaveId();
+      if (saveId == null || !saveId.equals(readSaveId(base))
+              || delta.length() > Math.max(base.length() / 2, MIN_COMPACT_BYTES)) {
+        writeSnapshot(map, base, delta);
+      } else {
+        appendChanges(map, saveId, base, delta);
+      }
+      map.clearDirty();
+      return true;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    }
+  }
+
+  /**
+   * Writes the whole map under a new save id and drops the old log.
+   * The snapshot replaces the old one atomically, so a crash leaves the old one intact;
+   * log lines of the old snapshot are ignored once the new one is in place.
+   */
+  private static void writeSnapshot(Map map, File base, File delta) throws IOException {
+    String saveId = UUID.randomUUID().toString();
+    SaveGameData.writeWorld(map, saveId, base);
+    Files.deleteIfExists(delta.toPath());
+    map.setSaveId(saveId);
+    if (map instanceof LazyMap lazy) {
+      WorldFile written = WorldFile.open(base.getPath());
+      lazy.persisted(source -> written);
+    }
+  }
+
+  /**
+   * Appends one line with every dirty entity. Items of a dirty room are all written,
+   * so the room's item names can always be resolved.
+   */
+  private static void appendChanges(Map map, String saveId, File base, File delta)
+          throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    ArrayNode rooms = mapper.createArrayNode();
+    Set<Item> items = new LinkedHashSet<>();
+    ArrayNode monsters = mapper.createArrayNode();
+    ArrayNode puzzles = mapper.createArrayNode();
+    for (Room room : map.getLoadedRooms()) {
+      if (room.isDirty()) {
+        rooms.add(SaveGameData.roomNode(mapper, room));
+      }
+      if (room.getItem() != null) {
+        for (Item item : room.getItem()) {
+          if (room.isDirty() || item.isDirty()) {
+            items.add(item);
+          }
+        }
+      }
+      if (room.getMonsters() != null && room.getMonsters().isDirty()) {
+        monsters.add(SaveGameData.monsterNode(mapper, room.getMonsters()));
+      }
+      if (room.getPuzzles() != null && room.getPuzzles().isDirty()) {
+        puzzles.add(SaveGameData.puzzleNode(mapper, room.getPuzzles()));
+      }
+    }
+    if (rooms.isEmpty() && items.isEmpty() && monsters.isEmpty() && puzzles.isEmpty()) {
+      if (map instanceof LazyMap lazy) {
+        lazy.persisted(source -> source);
+      }
+      return;
+    }
+
+    ObjectNode line = mapper.createObjectNode();
+    line.put("base", saveId);
+    line.set("rooms", rooms);
+    ArrayNode itemsArray = line.putArray("items");
+    for (Item item : items) {
+      itemsArray.add(SaveGameData.itemNode(mapper, item));
+    }
+    line.set("monsters", monsters);
+    line.set("puzzles", puzzles);
+
+    byte[] bytes = (mapper.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8);
+    boolean tornTail = endsWithoutNewline(delta);
+    long offset = delta.length() + (tornTail ? 1 : 0);
+    try (OutputStream out = new FileOutputStream(delta, true)) {
+      if (tornTail) {
+        // the last append never finished, keep it on its own line so it is skipped on load
+        out.write('\n');
+      }
+      out.write(bytes);
+    }
+    if (map instanceof LazyMap lazy) {
+      // the rooms of the line are read from the log from now on
+      byte[] written = Arrays.copyOf(bytes, bytes.length - 1);
+      try {
+        lazy.persisted(source -> {
+          try {
+            return source instanceof WorldFile file && file.isSnapshot(base, saveId)
+                    ? file.withDeltaLine(delta, offset, written) : WorldFile.open(base.getPath());
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  private static boolean endsWithoutNewline(File file) throws IOException {
+    if (file.length() == 0) {
+      return false;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      raf.seek(raf.length() - 1);
+      return raf.read() != '\n';
+    }
+  }
+
+  /**
+   * Reads the save id of a snapshot, it is written before the rooms.
+   *
+   * @return the id, or null if the file is missing or has none
+   */
+  static String readSaveId(File base) {
+    if (!base.isFile()) {
+      return null;
+    }
+    try (JsonParser parser = new ObjectMapper().getFactory().createParser(base)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (field.equals("save_id")) {
+          return parser.getValueAsString();
+        }
+        if (value == JsonToken.START_ARRAY || value == JsonToken.START_OBJECT) {
+          return null;
+        }
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,118 @@
+package controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import model.*;
+
+/**
+ * Case-insensitive name index over the entity lists of one controller.GameData.
+ * Built once per world so wiring a room costs one hash lookup per name
+ * instead of a scan over every item, fixture, puzzle and monster.
+ * When two entities share a name the first one in the file wins, same as the old linear search.
+ */
+public class EntityIndex {
+  private final HashMap<String, Item> items = new HashMap<>();
+  private final HashMap<String, Fixture> fixtures = new HashMap<>();
+  private final HashMap<String, Puzzle> puzzles = new HashMap<>();
+  private final HashMap<String, Monster> monsters = new HashMap<>();
+
+  /**
+   * Builds the index from the lists of the given game data, missing lists are treated as empty.
+   *
+   * @param gameData the parsed world entities.
+   */
+  public EntityIndex(GameData gameData) {
+    if (gameData.getItems() != null) {
+      for (Item item : gameData.getItems()) {
+        items.putIfAbsent(key(item.getName()), item);
+      }
+    }
+    if (gameData.getFixtures() != null) {
+      for (Fixture fixture : gameData.getFixtures()) {
+        fixtures.putIfAbsent(key(fixture.getName()), fixture);
+      }
+    }
+    if (gameData.getPuzzles() != null) {
+      for (Puzzle puzzle : gameData.getPuzzles()) {
+        puzzles.putIfAbsent(key(puzzle.getName()), puzzle);
+      }
+    }
+    if (gameData.getMonsters() != null) {
+      for (Monster monster : gameData.getMonsters()) {
+        monsters.putIfAbsent(key(monster.getName()), monster);
+      }
+    }
+  }
+
+  /**
+   * Finds an item by name, ignoring case.
+   * @param name item name
+   * @return the item or null if there is no such item
+   */
+  public Item findItem(String name) {
+    return name == null ? null : items.get(key(name));
+  }
+
+  /**
+   * Finds a fixture by name, ignoring case.
+   * @param name fixture name
+   * @return the fixture or null if there is no such fixture
+   */
+  public Fixture findFixture(String name) {
+    return name == null ? null : fixtures.get(key(name));
+  }
+
+  /**
+   * Finds a puzzle by name, ignoring case.
+   * @param name puzzle name
+   * @return the puzzle or null if there is no such puzzle
+   */
+  public Puzzle findPuzzle(String name) {
+    return name == null ? null : puzzles.get(key(name));
+  }
+
+  /**
+   * Finds a monster by name, ignoring case.
+   * @param name monster name
+   * @return the monster or null if there is no such monster
+   */
+  public Monster findMonster(String name) {
+    return name == null ? null : monsters.get(key(name));
+  }
+
+  /**
+   * Resolves a comma separated list of item names, unknown names are skipped.
+   * @param itemNames names as stored in a room record, can be null
+   * @param out list the found items are added to
+   */
+  public void findItems(String itemNames, List<Item> out) {
+    if (itemNames == null) return;
+    for (String itemName : itemNames.split(",")) {
+      Item item = findItem(itemName.trim());
+      if (item != null) {
+        out.add(item);
+      }
+    }
+  }
+
+  /**
+   * Resolves a comma separated list of fixture names, unknown names are skipped.
+   * @param fixtureNames names as stored in a room record, can be null
+   * @param out list the found fixtures are added to
+   */
+  public void findFixtures(String fixtureNames, List<Fixture> out) {
+    if (fixtureNames == null) return;
+    for (String fixtureName : fixtureNames.split(",")) {
+      Fixture fixture = findFixture(fixtureName.trim());
+      if (fixture != null) {
+        out.add(fixture);
+      }
+    }
+  }
+
+  private static String key(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
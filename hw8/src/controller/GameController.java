@@ -1,15 +1,9 @@
 package controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.*;
 import java.nio.file.Paths;
-import java.util.Scanner;
-import javax.swing.JFileChooser;
 
 import model.*;
 import model.Map;
@@ -20,18 +14,60 @@ public class GameController {
   private Player player;
   private View view;
   private static final String SAVE_DIRECTORY = "save"; // relative path for saving
+  private String saveDirectory = SAVE_DIRECTORY;
   private String originalPath;
+  private boolean headless; // no console, no Swing, quit only ends this session
+  private boolean gameOver;
+  private RoomLocks roomLocks; // set when the map is shared with other sessions
+  private CommandRouter router; // set when commands run somewhere else, e.g. on room actors
+  private final AsyncSaver saver = new AsyncSaver(); // writes saves off the command thread
+  private Autosave autosave; // null unless autosave is on
+  private CommandJournal journal; // null unless commands are journaled
+  // runs like a save command, never counted; no typed line has a line break, so no player can
+  // run it and skip the save budget
+  private static final String AUTOSAVE = "\nautosave";
+  // the built-in verbs, shared by every session that doesn't bring its own registry
+  private static final CommandRegistry STANDARD_COMMANDS = standardCommands();
+  private CommandRegistry commands = STANDARD_COMMANDS;
 
   public GameController(String pathname) throws IOException {
-    ObjectMapper objectMapper = new ObjectMapper();
-    GameData gameData = objectMapper.readValue(new File(pathname), GameData.class);
+    this(pathname, new View(), false);
+  }
 
-    JsonNode rootNode = objectMapper.readTree(Files.readString(new File(pathname).toPath()));
-    JsonNode roomsNode = rootNode.get("rooms");
+  /**
+   * Headless controller, reads commands from input and writes all messages to output.
+   * Several of these can run in one JVM, quitting ends only this session.
+   *
+   * @param pathname path of the world JSON file.
+   * @param input    where commands are read from.
+   * @param output   where messages are written to.
+   * @throws IOException if the world file can't be read.
+   */
+  public GameController(String pathname, Readable input, Appendable output) throws IOException {
+    this(pathname, new View(input, output), true);
+  }
 
-    List<Room> roomList = parseRooms(roomsNode, gameData);
-    this.map = new Map(roomList, gameData.getName(), gameData.getVersion());
-    this.view = new View();
+  /**
+   * Headless controller on a map that is already loaded, e.g. a server session's own copy.
+   *
+   * @param map          the map this session plays on.
+   * @param originalPath path of the world JSON the map came from, used when loading saves.
+   * @param input        where commands are read from.
+   * @param output       where messages are written to.
+   */
+  public GameController(Map map, String originalPath, Readable input, Appendable output) {
+    this.map = map;
+    this.view = new View(input, output);
+    this.headless = true;
+    createPlayer(view.getPlayerName());
+    this.originalPath = originalPath;
+  }
+
+  private GameController(String pathname, View view, boolean headless) throws IOException {
+    // headless sessions, many to a JVM, share one parse of the world, see WorldTemplate
+    this.map = headless ? WorldTemplate.of(pathname).newSession() : LoadGameData.loadMap(pathname);
+    this.view = view;
+    this.headless = headless;
     String playername = view.getPlayerName();
     createPlayer(playername);
     // create player by default here
@@ -40,92 +76,148 @@ public class GameController {
 
   }
 
-  private List<Room> parseRooms(JsonNode roomsNode, GameData gameData) {
-    List<Room> roomList = new ArrayList<>();
-    for (JsonNode roomNode : roomsNode) {
-      Room room = createRoom(roomNode, gameData);
-      roomList.add(room);
+
+  /**
+   * Constructor helper method, create a player for base setting
+   * @return Void
+   */
+  public void createPlayer(String playerName) {
+    if (map.getRooms() == null || map.getRooms().isEmpty()) {
+      throw new IllegalStateException("empty map, can't create player");
     }
-    return roomList;
+    Room startingRoom = map.getRooms().get(0);
+    this.player = new Player(playerName, new ArrayList<>(), startingRoom);
+    this.player.setCapacity(13);
   }
 
-  private Room createRoom(JsonNode roomNode, GameData gameData) {
-    String name = roomNode.get("room_name").asText();
-    int number = roomNode.get("room_number").asInt();
-    String description = roomNode.get("description").asText();
-    int N = roomNode.get("N").asInt();
-    int S = roomNode.get("S").asInt();
-    int E = roomNode.get("E").asInt();
-    int W = roomNode.get("W").asInt();
 
-    Puzzle puzzle = findPuzzle(roomNode.get("puzzle").asText(null), gameData);
-    Monster monster = findMonster(roomNode.get("monster").asText(null), gameData);
-    List<Item> roomItems = findItems(roomNode.get("items").asText(null), gameData);
-    List<Fixture> roomFixtures = findFixtures(roomNode.get("fixtures").asText(null), gameData);
-    String picture = roomNode.get("picture").asText();
+  public Map getMap() {
+    return this.map;
+  }
 
-    return new Room(name, number, description, N, S, E, W, puzzle, monster, roomItems, roomFixtures, picture);
+  public Player getPlayer() {
+    return this.player;
   }
 
-  private Puzzle findPuzzle(String puzzleName, GameData gameData) {
-    if (puzzleName == null) return null;
-    return gameData.puzzles.stream()
-            .filter(p -> p.getName().equalsIgnoreCase(puzzleName))
-            .findFirst()
-            .orElse(null);
+  /**
+   * Shares the map with other sessions, every command then locks the rooms it touches.
+   *
+   * @param roomLocks the locks all sessions on this map use
+   */
+  public void setRoomLocks(RoomLocks roomLocks) {
+    this.roomLocks = roomLocks;
   }
 
-  private Monster findMonster(String monsterName, GameData gameData) {
-    if (monsterName == null) return null;
-    return gameData.monsters.stream()
-            .filter(m -> m.getName().equalsIgnoreCase(monsterName))
-            .findFirst()
-            .orElse(null);
+  /**
+   * Hands every command to a router instead of running it on the calling thread.
+   *
+   * @param router where commands are sent
+   */
+  public void setCommandRouter(CommandRouter router) {
+    this.router = router;
   }
 
-  private List<Item> findItems(String itemNames, GameData gameData) {
-    List<Item> roomItems = new ArrayList<>();
-    if (itemNames == null) return roomItems;
+  /**
+   * Turns on autosave for this session.
+   *
+   * @param autosave when and where to autosave, null to turn it off
+   */
+  public void setAutosave(Autosave autosave) {
+    this.autosave = autosave;
+  }
 
-    for (String itemName : itemNames.split(",")) {
-      gameData.items.stream()
-              .filter(item -> item.getName().equalsIgnoreCase(itemName.trim()))
-              .findFirst()
-              .ifPresent(roomItems::add);
-    }
-    return roomItems;
+  public Autosave getAutosave() {
+    return autosave;
   }
 
-  private List<Fixture> findFixtures(String fixtureNames, GameData gameData) {
-    List<Fixture> roomFixtures = new ArrayList<>();
-    if (fixtureNames == null) return roomFixtures;
+  /**
+   * Records every command from now on, so the session can be rebuilt with
+   * controller.JournalReplay.
+   *
+   * @param journal where commands are appended, null to stop journaling
+   */
+  public void setJournal(CommandJournal journal) {
+    this.journal = journal;
+  }
 
-    for (String fixtureName : fixtureNames.split(",")) {
-      gameData.fixtures.stream()
-              .filter(fixture -> fixture.getName().equalsIgnoreCase(fixtureName.trim()))
-              .findFirst()
-              .ifPresent(roomFixtures::add);
-    }
-    return roomFixtures;
+  public CommandJournal getJournal() {
+    return journal;
   }
 
+  /**
+   * A new registry with the verbs of the game, for adding verbs of a plugin.
+   *
+   * @return the built-in verbs and their aliases
+   */
+  public static CommandRegistry standardCommands() {
+    CommandRegistry registry = new CommandRegistry();
+    CommandRegistry.Kind turn = CommandRegistry.Kind.TURN;
+    registry.register("north", turn, (game, stuff) -> game.nextRoomNumber("north"),
+            (game, stuff) -> game.movePlayer("north"), "n");
+    registry.register("south", turn, (game, stuff) -> game.nextRoomNumber("south"),
+            (game, stuff) -> game.movePlayer("south"), "s");
+    registry.register("east", turn, (game, stuff) -> game.nextRoomNumber("east"),
+            (game, stuff) -> game.movePlayer("east"), "e");
+    registry.register("west", turn, (game, stuff) -> game.nextRoomNumber("west"),
+            (game, stuff) -> game.movePlayer("west"), "w");
+    registry.register("inventory", turn, (game, stuff) -> game.showInventory(), "i");
+    registry.register("take", turn, GameController::takeItem, "t");
+    registry.register("drop", turn, GameController::dropItem, "d");
+    registry.register("examine", turn, GameController::examine, "x");
+    registry.register("look", turn, (game, stuff) -> game.lookAround(), "l");
+    registry.register("use", turn, GameController::handleUseCommand, "u");
+    registry.register("answer", turn, GameController::handleAnswerCommand, "a");
+    registry.register("quit", turn, (game, stuff) -> game.quit(), "q");
+    // saving and loading take no time in the game, but need the whole world to themselves
+    CommandRegistry.Kind exclusive = CommandRegistry.Kind.EXCLUSIVE;
+    registry.register("save", exclusive, (game, stuff) -> game.saveGame());
+    registry.register("load", exclusive, (game, stuff) -> game.loadGame());
+    return registry;
+  }
 
   /**
-   * Constructor helper method, create a player for base setting
-   * @return Void
+   * Verbs this session understands, shared with other sessions unless set.
+   *
+   * @param commands the verbs to use from now on
    */
-  public void createPlayer(String playerName) {
-    if (map.getRooms() == null || map.getRooms().isEmpty()) {
-      throw new IllegalStateException("empty map, can't create player");
+  public void setCommands(CommandRegistry commands) {
+    this.commands = commands;
+  }
+
+  public CommandRegistry getCommands() {
+    return commands;
+  }
+
+  /**
+   * Whether a command must not run at the same time as any other, like save.
+   *
+   * @param action the verb typed
+   * @return true if it needs the whole world
+   */
+  public boolean isExclusive(String action) {
+    if (action.equals(AUTOSAVE)) {
+      return true;
     }
-    Room startingRoom = map.getRooms().get(0);
-    this.player = new Player(playerName, new ArrayList<>(), startingRoom);
-    this.player.setCapacity(13);
+    CommandRegistry.Verb verb = commands.resolve(action);
+    return verb != null && verb.getKind() == CommandRegistry.Kind.EXCLUSIVE;
   }
 
+  /**
+   * How the menu is shown before every command, the whole menu unless changed.
+   *
+   * @param menuMode FULL, DIFF or NONE for scripted clients
+   */
+  public void setMenuMode(View.MenuMode menuMode) {
+    view.setMenuMode(menuMode);
+  }
 
-  public Map getMap() {
-    return this.map;
+  /**
+   * Directory the save and load commands use, "save" unless changed.
+   *
+   * @param saveDirectory relative or absolute directory path
+   */
+  public void setSaveDirectory(String saveDirectory) {
+    this.saveDirectory = saveDirectory;
   }
 
 
@@ -172,22 +264,9 @@ public class GameController {
     view.displayMessage(message);
   }
 
-  private Room getNextRoom(Room currentRoom, String direction) {
-    int nextRoomNumber = switch (direction) {
-      case "n","north"-> currentRoom.getN();
-      case "w","west" -> currentRoom.getW();
-      case "s","south"-> currentRoom.getS();
-      case "e","east" -> currentRoom.getE();
-      default -> -1;
-    };
-    if (nextRoomNumber < 0) {
-      for (Room room : map.getRooms()) {
-        if (room.getRoom_number() == Math.abs(nextRoomNumber)) {
-          return room;
-        }
-      }
-    }
-    return null;
+  // the room a move in this direction goes to, also when a puzzle or monster blocks the way
+  private int nextRoomNumber(String direction) {
+    return Math.abs(player.getNextRoomNumber(direction));
   }
 
 
@@ -231,26 +310,20 @@ public class GameController {
     Room currentRoom = player.getCurrentRoom();
 
     // check room have this stuff item
-    for (int i = 0; i < currentRoom.getItem().size(); i++) {
-      if (currentRoom.getItem().get(i).getName().equalsIgnoreCase(stuff)) {
-        view.displayMessage("\nmodel.Item: " + currentRoom.getItem().get(i).getDescription());
-        view.displayMessage("Uses remaining: " + currentRoom.getItem().get(i).getUses_remaining());
-      }
+    for (Item item : currentRoom.findItems(stuff)) {
+      view.displayMessage("\nmodel.Item: " + item.getDescription());
+      view.displayMessage("Uses remaining: " + item.getUses_remaining());
     }
 
     // check did player has this item
-    for (int i = 0; i < player.getInventory().size(); i++) {
-      if (player.getInventory().get(i).getName().equalsIgnoreCase(stuff)) {
-        view.displayMessage("\nmodel.Item: " + player.getInventory().get(i).getDescription());
-        view.displayMessage("Uses remaining: " + player.getInventory().get(i).getUses_remaining());
-      }
+    for (Item item : player.findItems(stuff)) {
+      view.displayMessage("\nmodel.Item: " + item.getDescription());
+      view.displayMessage("Uses remaining: " + item.getUses_remaining());
     }
 
     // check current room has this fixure
-    for (int i = 0; i < currentRoom.getFixtures().size(); i++) {
-      if (currentRoom.getFixtures().get(i).getName().equalsIgnoreCase(stuff)) {
-        view.displayMessage("\nmodel.Fixture: " + currentRoom.getFixtures().get(i).getDescription());
-      }
+    for (Fixture fixture : currentRoom.findFixtures(stuff)) {
+      view.displayMessage("\nmodel.Fixture: " + fixture.getDescription());
     }
 
     // check room has this puzzle
@@ -267,27 +340,22 @@ public class GameController {
   //take and drop item --Amy
   public void takeItem(String itemName) {
     Room currentRoom = player.getCurrentRoom();
-    List<Item> roomItems = currentRoom.getItem();
-
-    for (Iterator<Item> it = roomItems.iterator(); it.hasNext();) {
-      Item item = it.next();
-      if (item.getName().equalsIgnoreCase(itemName)) {
-        boolean result = player.pickUpItem(item);
-        if (result) {
-          it.remove();
-          view.displayMessage(itemName + " added to your inventory.");
-        } else {
-          view.displayMessage("Weight exceeds capacity, cannot pick up " + itemName + ".");
-        }
-        return;
+
+    Item item = currentRoom.findItem(itemName);
+    if (item != null) {
+      boolean result = player.pickUpItem(item);
+      if (result) {
+        currentRoom.getItem().remove(item);
+        view.displayMessage(itemName + " added to your inventory.");
+      } else {
+        view.displayMessage("Weight exceeds capacity, cannot pick up " + itemName + ".");
       }
+      return;
     }
     // Determine if the item player inputted is fixture
-    for (Fixture fixture : currentRoom.getFixtures()) {
-      if (fixture.getName().equalsIgnoreCase(itemName)) {
-        view.displayMessage(itemName + " is a immovable fixture. You can't pick that up.");
-        return;
-      }
+    if (!currentRoom.findFixtures(itemName).isEmpty()) {
+      view.displayMessage(itemName + " is a immovable fixture. You can't pick that up.");
+      return;
     }
 
     // Nothing found in fixtures and items list
@@ -295,20 +363,17 @@ public class GameController {
   }
 
   public void dropItem(String itemName) {
-    List<Item> inventory = player.getInventory();
-    for (Iterator<Item> it = inventory.iterator(); it.hasNext();) {
-      Item item = it.next();
-      if (item.getName().equalsIgnoreCase(itemName)) {
-        boolean result = player.dropItem(item);
-        if (result) {
-          view.displayMessage(itemName + " dropped here in " + player.getCurrentRoom().getRoom_name());
-        } else {
-          view.displayMessage("Drop failed: item '"
-                  + itemName +
-                  "' could not be removed from inventory.");
-        }
-        return;
+    Item item = player.findItem(itemName);
+    if (item != null) {
+      boolean result = player.dropItem(item);
+      if (result) {
+        view.displayMessage(itemName + " dropped here in " + player.getCurrentRoom().getRoom_name());
+      } else {
+        view.displayMessage("Drop failed: item '"
+                + itemName +
+                "' could not be removed from inventory.");
       }
+      return;
     }
     view.displayMessage("You don't have an item named '" + itemName + "' in your inventory.");
   }
@@ -428,13 +493,10 @@ public class GameController {
       view.displayMessage("There's no puzzle to be solve.");
       return;
     }
-    for(int i =0; i<player.getInventory().size(); i++) {
-      String name =player.getInventory().get(i).getName().trim().toLowerCase();
-      item= item.trim().toLowerCase();
-      if(name.equals(item)) {
-        solvePuzzle(player.getInventory().get(i),puzzle);
-        return;
-      }
+    Item held = player.findItem(item);
+    if (held != null) {
+      solvePuzzle(held, puzzle);
+      return;
     }
     view.displayMessage("you don't have this item");
   }
@@ -470,13 +532,10 @@ public class GameController {
       view.displayMessage("There's no puzzle to be solve.");
       return;
     }
-    for(int i =0; i<player.getInventory().size(); i++) {
-      String name =player.getInventory().get(i).getName().trim().toLowerCase();
-      item= item.trim().toLowerCase();
-      if(name.equals(item)) {
-        solveMonster(player.getInventory().get(i),monster);
-        return;
-      }
+    Item held = player.findItem(item);
+    if (held != null) {
+      solveMonster(held, monster);
+      return;
     }
     view.displayMessage("you don't have this item");
   }
@@ -486,21 +545,30 @@ public class GameController {
    */
   public void quit() {
     String ranking = ranking();
-    int score = player.getScore();
-    for (Item item : player.getInventory()) {
-      score += item.getValue();
-    }
+    int score = player.getScore() + player.getInventoryValue();
     view.displayMessage("Thanks for playing!\nPlayer name: " + player.getName()
             + "\nYour score is " + score + "\n" + ranking);
-    System.exit(0);
+    gameOver = true;
+    saver.flush();
+    flushJournal();
+    if (!headless) {
+      view.flush();
+      System.exit(0);
+    }
+  }
+
+  /**
+   * whether this session has ended, by quitting or falling asleep.
+   *
+   * @return true once the game is over
+   */
+  public boolean isGameOver() {
+    return gameOver;
   }
 
 
   private String ranking() {
-    int score = player.getScore();
-    for (Item item : player.getInventory()) {
-      score += item.getValue();
-    }
+    int score = player.getScore() + player.getInventoryValue();
     if (score > 2000) {
       return "You got an A! You're a true explorer";
     } else if (score > 1500) {
@@ -516,54 +584,103 @@ public class GameController {
 
   /**
    * process the command.
+   * On a shared map the command holds the lock of the current room, and of the next room
+   * for a move, so other players never see an item in two places or in none.
    *
    * @param command a string list of command
    */
   public void getCommand(String[] command) {
+    runCommand(command);
+    view.flush();
+  }
+
+  // getCommand without writing the output, gameLoop writes it together with the next menu
+  private void runCommand(String[] command) {
+    if (journal != null) {
+      journal.append(command);
+    }
+    dispatch(command);
+    if (autosave != null && !command[0].equals(AUTOSAVE) && autosave.commandDone()) {
+      dispatch(new String[] {AUTOSAVE, ""});
+    }
+  }
+
+  // runs the command through the router or under the room locks, if any
+  private void dispatch(String[] command) {
+    if (router != null) {
+      router.route(this, command);
+      return;
+    }
+    if (roomLocks == null) {
+      executeCommand(command);
+      return;
+    }
+    String action = command[0];
+    if (isExclusive(action)) {
+      roomLocks.lockAll();
+      try {
+        executeCommand(command);
+      } finally {
+        roomLocks.unlockAll();
+      }
+      return;
+    }
+    int here = player.getCurrentRoom().getRoom_number();
+    // a move holds the next room too, whatever word it was typed with
+    CommandRegistry.Verb verb = commands.resolve(action);
+    int there = verb == null || verb.getTarget() == null ? here
+            : verb.getTarget().roomNumber(this, command[1]);
+    roomLocks.lock(here, there);
+    try {
+      executeCommand(command);
+    } finally {
+      roomLocks.unlock(here, there);
+    }
+  }
+
+  /**
+   * Runs a command right here, without routing or locking.
+   * Only for callers that already own the rooms involved, such as a room actor.
+   *
+   * @param command a string list of command
+   */
+  public void executeCommand(String[] command) {
     String action = command[0];
     String stuff = command[1];
 
+    if (action.equals(AUTOSAVE) && autosave != null) {
+      // not a player action, monsters don't get a turn
+      autosave.save(map, player);
+      return;
+    }
+
+    CommandRegistry.Verb verb = commands.resolve(action);
+    if (verb == null) {
+      // not a turn either, monsters don't get to attack
+      view.displayMessage("Invalid command: " + action);
+      return;
+    }
+
+    if (verb.getKind() != CommandRegistry.Kind.EXCLUSIVE) {
+      keepForSaves(verb, stuff);
+    }
 
     // if got defeated, game over
-    if (handleMonsterEncounter()) return;
+    if (verb.getKind() == CommandRegistry.Kind.TURN && handleMonsterEncounter()) return;
 
-    switch (action) {
-      case "n", "north", "s", "south", "e", "east", "w", "west":
-        movePlayer(action);
-        break;
-      case "i","inventory":
-        showInventory();
-        break;
-      case "t","take":
-        takeItem(stuff);
-        break;
-      case "d","drop":
-        dropItem(stuff);
-        break;
-      case "x", "examine":
-        examine(stuff);
-        break;
-      case "l","look":
-        lookAround();
-        break;
-      case "u","use":
-        handleUseCommand(stuff);
-        break;
-      case "a","answer":
-        handleAnswerCommand(stuff);
-        break;
-      case "q","quit":
-        quit();
-        break;
-      case "save":
-        saveGame();
-        break;
-      case "load":
-        loadGame();
-        break;
-      default:
-        view.displayMessage("Invalid command: " + action);
-        break;
+    commands.run(verb, this, stuff);
+  }
+
+  // a save still being written shares unchanged rooms with the map, it keeps its own copy of
+  // the rooms this command may change: here and there, the rooms dispatch locks
+  private void keepForSaves(CommandRegistry.Verb verb, String stuff) {
+    Room here = player.getCurrentRoom();
+    map.beforeChange(here);
+    if (verb.getTarget() != null) {
+      Room there = map.getRoom(verb.getTarget().roomNumber(this, stuff));
+      if (there != here) {
+        map.beforeChange(there);
+      }
     }
   }
 
@@ -610,59 +727,98 @@ public class GameController {
     }
   }
 
+  /**
+   * Waits until every save this session started is on disk.
+   */
+  public void flushSaves() {
+    saver.flush();
+  }
+
   // save game
   private void saveGame() {
-    File saveDir = new File(SAVE_DIRECTORY);
+    File saveDir = new File(saveDirectory);
     if (!saveDir.exists()) saveDir.mkdirs();  // ensure directory exists
 
-    String gameFile = Paths.get(SAVE_DIRECTORY, "game_data.json").toString();
-    String playerFile = Paths.get(SAVE_DIRECTORY, "player_data.json").toString();
+    String gameFile = Paths.get(saveDirectory, "game_data.json").toString();
+    String playerFile = Paths.get(saveDirectory, "player_data.json").toString();
 
-    save(gameFile, playerFile);
-    view.displayMessage("Game saved to " + SAVE_DIRECTORY + " directory.");
+    // the writer thread writes only what changed since the last save, see AsyncSaver
+    saver.save(this.map, this.player, gameFile, playerFile);
+    flushJournal(); // the journal is at least as recent as the save
+    view.displayMessage("Game saved to " + saveDirectory + " directory.");
+  }
+
+  private void flushJournal() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.flush();
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
   }
 
   // load the game
   private void loadGame() {
     try {
-      String gameFile = chooseFile(SAVE_DIRECTORY, "Select Game File");
-      String playerFile = chooseFile(SAVE_DIRECTORY, "Select model.Player File");
-
-      this.map = LoadGameData.loadMap(gameFile);
-      Player loadedPlayer = PlayerLoad.loadPlayer(playerFile, originalPath, this.map);
+      // a save still being written must be on disk before the paths typed are checked
+      saver.flush();
+      String gameFile = chooseFile(saveDirectory, "Select Game File", "game_data.json");
+      String playerFile = chooseFile(saveDirectory, "Select model.Player File",
+              "player_data.json");
+
+      // a lazy map stays lazy, the save can be as big as the world; the text of the save is
+      // pooled with the world's, most of it is the same
+      StringPool strings = map.getStrings();
+      Map loadedMap = map instanceof LazyMap lazy
+              ? LoadGameData.loadLazyMap(gameFile, lazy.getCapacity(), strings)
+              : LoadGameData.loadMap(gameFile, true, strings);
+      Player loadedPlayer = PlayerLoad.loadPlayer(playerFile, originalPath, loadedMap);
+      if (loadedPlayer == null) {
+        // not a player file, or not one of this game; the game goes on as it was
+        view.displayMessage("Error loading game: " + playerFile + " is not a saved player.");
+        return;
+      }
 
+      this.map = loadedMap;
       this.player = loadedPlayer;
       view.displayMessage("Game loaded successfully!");
-    } catch (IOException e) {
+    } catch (IOException | RuntimeException e) {
+      // a broken or mismatched save must not end the session
       e.printStackTrace();
       view.displayMessage("Error loading game.");
     }
   }
 
-  // allow user to choose file
-  private String chooseFile(String directory, String title) {
-    Scanner scanner = new Scanner(System.in);
-    System.out.println(title + " (Press Enter to use default file or provide your own path):"
-            + "\nA pop up window will show up (Minimize your terminal or IDE to see the window");
-    String input = scanner.nextLine().trim();
+  // allow user to choose file, defaultFile in the directory if none is chosen
+  private String chooseFile(String directory, String title, String defaultFile) {
+    if (headless) {
+      view.displayMessage(title + " (Press Enter to use default file or provide your own path):");
+    } else {
+      view.displayMessage(title + " (Press Enter to use default file or provide your own path):"
+              + "\nA pop up window will show up (Minimize your terminal or IDE to see the window");
+    }
+    String input = view.getLine();
     if (!input.isEmpty()) {
       File customFile = new File(input);
       if (customFile.exists() && customFile.isFile()) {
         return customFile.getAbsolutePath();
       } else {
-        System.out.println("Invalid file. Using default. Path is not correct");
+        view.displayMessage("Invalid file. Using default. Path is not correct");
       }
     }
-    JFileChooser fileChooser = new JFileChooser(new File(directory));
-    fileChooser.setDialogTitle(title);
-    int returnValue = fileChooser.showOpenDialog(null);
-
-    if (returnValue == JFileChooser.APPROVE_OPTION) {
-      return fileChooser.getSelectedFile().getAbsolutePath();
+    // headless sessions have nobody to click a window
+    if (!headless) {
+      view.flush();
+      String chosen = FileChooserDialog.choose(directory, title);
+      if (chosen != null) {
+        return chosen;
+      }
     }
 
-    System.out.println("No file selected. Using default file.");
-    return Paths.get(directory, "game_data.json").toString();
+    view.displayMessage("No file selected. Using default file.");
+    return Paths.get(directory, defaultFile).toString();
   }
 
 
@@ -670,12 +826,19 @@ public class GameController {
    * while the game is not over, continue to fetch command from user input.
    */
   public void gameLoop() {
-    boolean gameOver = false;
     while (!gameOver) {
       view.displayMenu();
       String[] command = view.getInput();
-      getCommand(command);
+      if (command == null) {
+        // input ended, nothing more to do for this session
+        gameOver = true;
+        saver.flush();
+        flushJournal();
+        break;
+      }
+      runCommand(command);
     }
+    view.flush();
   }
 
   // save and load game -- Chen
@@ -1,5 +1,6 @@
 package controller;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.util.List;
@@ -15,6 +16,7 @@ public class GameData {
     public List<Monster> monsters;
     public List<Puzzle> puzzles;
     public List<Fixture> fixtures;
+    private EntityIndex index; // built on first use, dropped when a list changes
 
     public String getName() {
         return name;
@@ -40,6 +42,18 @@ public class GameData {
         return fixtures;
     }
 
+    /**
+     * Name index over items, monsters, puzzles and fixtures, built once and reused.
+     * @return the case-insensitive entity index
+     */
+    @JsonIgnore
+    public EntityIndex getIndex() {
+        if (index == null) {
+            index = new EntityIndex(this);
+        }
+        return index;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
@@ -50,17 +64,21 @@ public class GameData {
 
     public void setItems(List<Item> items) {
         this.items = items;
+        this.index = null;
     }
 
     public void setMonsters(List<Monster> monsters) {
         this.monsters = monsters;
+        this.index = null;
     }
 
     public void setPuzzles(List<Puzzle> puzzles) {
         this.puzzles = puzzles;
+        this.index = null;
     }
 
     public void setFixtures(List<Fixture> fixtures) {
         this.fixtures = fixtures;
+        this.index = null;
     }
 }
@@ -0,0 +1,160 @@
+package controller;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Map;
+
+/**
+ * Rebuilds a session from its controller.CommandJournal by running the commands again
+ * on the original world. The game has no randomness, so the result is the state the
+ * session had when its last journaled command ran.
+ *
+ * save is skipped, it only writes files. load reads file paths straight from the player's
+ * input, which is not in the journal, so the replay of a session that loaded a game stops at
+ * the load and is partial, see isComplete.
+ */
+public class JournalReplay {
+  private final String worldPath;
+  private final String playerName;
+  private final List<String[]> commands;
+
+  private JournalReplay(String worldPath, String playerName, List<String[]> commands) {
+    this.worldPath = worldPath;
+    this.playerName = playerName;
+    this.commands = commands;
+  }
+
+  /**
+   * Reads a journal. A record cut short at the end (a crash while writing) is dropped, and so
+   * is everything from a record that doesn't hold a command on.
+   *
+   * @param journal the journal file.
+   * @return the commands in the journal.
+   * @throws IOException if the file can't be read or is not a journal.
+   */
+  public static JournalReplay read(Path journal) throws IOException {
+    ByteBuffer bytes;
+    try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+      bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (bytes.remaining() < 8 || bytes.getInt() != CommandJournal.MAGIC) {
+      throw new IOException("Not a command journal: " + journal);
+    }
+    int version = bytes.getInt();
+    if (version != CommandJournal.FORMAT_VERSION) {
+      throw new IOException("Unsupported journal version " + version + ": " + journal);
+    }
+    String worldPath = getString(bytes);
+    String playerName = getString(bytes);
+    if (worldPath == null || playerName == null) {
+      throw new IOException("Journal header is incomplete: " + journal);
+    }
+
+    List<String[]> commands = new ArrayList<>();
+    while (bytes.hasRemaining()) {
+      int length = CommandJournal.getVarint(bytes);
+      if (length < 1 || length > bytes.remaining()) {
+        break;
+      }
+      int start = bytes.position();
+      int separator = start;
+      while (separator < start + length && bytes.get(separator) != 0) {
+        separator++;
+      }
+      if (separator == start + length) {
+        break; // no separator, torn like a short record
+      }
+      String action = decode(bytes, start, separator - start);
+      String argument = decode(bytes, separator + 1, start + length - separator - 1);
+      commands.add(new String[] {action, argument});
+      bytes.position(start + length);
+    }
+    return new JournalReplay(worldPath, playerName, commands);
+  }
+
+  /**
+   * Replays the journal on the world file it was recorded on, up to the first load.
+   *
+   * @param output where the session's messages go.
+   * @return the rebuilt session.
+   * @throws IOException if the world can't be loaded.
+   */
+  public GameController replay(Appendable output) throws IOException {
+    return replay(LoadGameData.loadMap(worldPath), output);
+  }
+
+  /**
+   * Replays the journal on a map that is already loaded, e.g. a copy of the world, up to the
+   * first load.
+   *
+   * @param map    the world to play on, changed by the replay.
+   * @param output where the session's messages go.
+   * @return the rebuilt session.
+   */
+  public GameController replay(Map map, Appendable output) {
+    GameController session = new GameController(map, worldPath,
+            new StringReader(playerName + "\n"), output);
+    for (String[] command : commands) {
+      if (session.isGameOver()) {
+        break;
+      }
+      if (command[0].equals("load")) {
+        break; // what was loaded is unknown, see isComplete
+      }
+      if (command[0].equals("save")) {
+        continue;
+      }
+      session.getCommand(command);
+    }
+    return session;
+  }
+
+  /**
+   * @return false if the session loaded a game, its replay then stops at the load and
+   *         leaves the session as it was before it
+   */
+  public boolean isComplete() {
+    for (String[] command : commands) {
+      if (command[0].equals("load")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public String getWorldPath() {
+    return worldPath;
+  }
+
+  public String getPlayerName() {
+    return playerName;
+  }
+
+  public List<String[]> getCommands() {
+    return commands;
+  }
+
+  private static String getString(ByteBuffer bytes) {
+    int length = CommandJournal.getVarint(bytes);
+    if (length < 0 || length > bytes.remaining()) {
+      return null;
+    }
+    String value = decode(bytes, bytes.position(), length);
+    bytes.position(bytes.position() + length);
+    return value;
+  }
+
+  private static String decode(ByteBuffer bytes, int offset, int length) {
+    byte[] raw = new byte[length];
+    bytes.get(offset, raw);
+    return new String(raw, StandardCharsets.UTF_8);
+  }
+}
@@ -1,12 +1,23 @@
 package controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
 
 import model.*;
 
@@ -14,112 +25,406 @@ public class LoadGameData {
 
   /**
    * Loads the model.Map object (rooms, name, version) from the given JSON file.
+   * A compiled controller.WorldImage next to the file is used instead when it matches the JSON,
+   * the map then reads each room from the image the first time it is looked up.
    *
    * @param pathname The path to the game data JSON file.
    * @return A fully constructed model.Map object.
    * @throws IOException If reading the file fails.
    */
   public static Map loadMap(String pathname) throws IOException {
-    ObjectMapper objectMapper = new ObjectMapper();
+    return loadMap(pathname, true);
+  }
+
+  /**
+   * Loads the model.Map object (rooms, name, version) from the given JSON file.
+   * The file is streamed once through a JsonParser, no JsonNode tree or file string is kept.
+   * For a saved game, the change log written by controller.DeltaSaveData is applied on top.
+   * The text of the map goes through the model.StringPool of the controller.WorldTemplate of
+   * the file if one is cached, and is kept as read otherwise: a pool of its own for one load
+   * costs more than the text it saves.
+   *
+   * @param pathname The path to the game data JSON file.
+   * @param useImage whether a fresh compiled image of the file may be used instead of the JSON.
+   * @return A fully constructed model.Map object.
+   * @throws IOException If reading the file fails.
+   */
+  public static Map loadMap(String pathname, boolean useImage) throws IOException {
+    WorldTemplate template = WorldTemplate.cached(pathname);
+    return loadMap(pathname, useImage, template == null ? null : template.getStrings());
+  }
 
-    // 1. Read the controller.GameData object (which has name, version, items, etc.)
-    GameData gameData = objectMapper.readValue(new File(pathname), GameData.class);
+  /**
+   * Loads the model.Map object like loadMap(pathname, useImage), all of its text sent through
+   * the given model.StringPool, e.g. the pool of the world a saved game belongs to.
+   *
+   * @param pathname The path to the game data JSON file.
+   * @param useImage whether a fresh compiled image of the file may be used instead of the JSON.
+   * @param strings  pool for the text of the map, null to keep text as read.
+   * @return A fully constructed model.Map object.
+   * @throws IOException If reading the file fails.
+   */
+  public static Map loadMap(String pathname, boolean useImage, StringPool strings)
+          throws IOException {
+    File deltaFile = new File(pathname + DeltaSaveData.DELTA_SUFFIX);
+    if (useImage && !deltaFile.exists()) {
+      Map compiled = WorldImage.loadIfFresh(pathname);
+      if (compiled != null) {
+        compiled.clearDirty();
+        return pooled(compiled, strings);
+      }
+    }
+    GameData gameData = new GameData();
+    List<RoomRecord> roomRecords = new ArrayList<>();
+    String saveId = readWorld(pathname, gameData, roomRecords);
 
-    // 2. Parse the "rooms" array from the JSON
-    JsonNode rootNode = objectMapper.readTree(Files.readString(new File(pathname).toPath()));
-    JsonNode roomsNode = rootNode.get("rooms");
+    // 2. Create the list of model.Room objects, names resolved through one shared index
+    EntityIndex index = gameData.getIndex();
+    List<Room> roomList = new ArrayList<>(roomRecords.size());
+    for (RoomRecord record : roomRecords) {
+      roomList.add(createRoom(record, index));
+    }
 
-    // 3. Create the list of model.Room objects
-    List<Room> roomList = parseRooms(roomsNode, gameData);
+    // 3. Return a new model.Map object, nothing in it needs saving yet
+    Map map = new Map(roomList, gameData.getName(), gameData.getVersion());
+    map.setSaveId(saveId);
+    map.clearDirty();
+    return pooled(map, strings);
+  }
 
-    // 4. Return a new model.Map object
-    return new Map(roomList, gameData.getName(), gameData.getVersion());
+  // parsing leaves a string per occurrence, the pool keeps one of each
+  private static Map pooled(Map map, StringPool strings) {
+    map.setStrings(strings);
+    map.internStrings();
+    return map;
   }
 
   /**
-   * Parses the "rooms" array to construct a list of model.Room objects.
+   * Opens a world or saved game file as a model.LazyMap: only where each room and entity is in
+   * the file is read now, rooms are read when they are first looked up.
+   *
+   * @param pathname    The path to the game data JSON file.
+   * @param cachedRooms how many unchanged rooms the map keeps in memory at most.
+   * @return a map reading from the file.
+   * @throws IOException If reading the file fails.
+   */
+  public static LazyMap loadLazyMap(String pathname, int cachedRooms) throws IOException {
+    return loadLazyMap(pathname, cachedRooms, StringPool.weak());
+  }
+
+  /**
+   * Opens a world or saved game file as a model.LazyMap, the text of every room read later
+   * sent through the given model.StringPool, which should be a weak one.
+   *
+   * @param pathname    The path to the game data JSON file.
+   * @param cachedRooms how many unchanged rooms the map keeps in memory at most.
+   * @param strings     pool for the text of the map, null to keep text as read.
+   * @return a map reading from the file.
+   * @throws IOException If reading the file fails.
    */
-  private static List<Room> parseRooms(JsonNode roomsNode, GameData gameData) {
-    List<Room> roomList = new ArrayList<>();
-    for (JsonNode roomNode : roomsNode) {
-      Room room = createRoom(roomNode, gameData);
-      roomList.add(room);
+  public static LazyMap loadLazyMap(String pathname, int cachedRooms, StringPool strings)
+          throws IOException {
+    WorldFile file = WorldFile.open(pathname);
+    LazyMap map = new LazyMap(file, cachedRooms, file.getName(), file.getVersion());
+    map.setSaveId(file.getSaveId());
+    map.setStrings(strings);
+    return map;
+  }
+
+  /**
+   * Finds items of a world file by name without keeping the rest of it, e.g. the inventory
+   * of a player whose world is a model.LazyMap.
+   *
+   * @param pathname  The path to the game data JSON file.
+   * @param itemNames names to look for, ignoring case.
+   * @return the first item with each name found, by lower case name.
+   * @throws IOException If reading the file fails.
+   */
+  static HashMap<String, Item> findItems(String pathname, Collection<String> itemNames)
+          throws IOException {
+    Set<String> wanted = new HashSet<>();
+    for (String itemName : itemNames) {
+      wanted.add(itemName.toLowerCase(Locale.ROOT));
     }
-    return roomList;
+    HashMap<String, Item> found = new HashMap<>();
+    ObjectMapper objectMapper = new ObjectMapper();
+    try (JsonParser parser = objectMapper.getFactory().createParser(new File(pathname))) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("World file must start with a JSON object: " + pathname);
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if (!field.equals("items") || parser.currentToken() != JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          continue;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          Item item = objectMapper.readValue(parser, Item.class);
+          // an item without a name can't be asked for
+          String key = item == null || item.getName() == null ? null
+                  : item.getName().toLowerCase(Locale.ROOT);
+          if (key != null && wanted.contains(key)) {
+            found.putIfAbsent(key, item);
+          }
+        }
+      }
+    }
+    return found;
   }
 
   /**
-   * Creates a single model.Room object from a JSON node.
+   * Reads a world file into its entities and raw room records, names not resolved yet.
+   * For a saved game, the change log written by controller.DeltaSaveData is applied on top.
+   *
+   * @param pathname    The path to the game data JSON file.
+   * @param gameData    receives the name, version and entity lists.
+   * @param roomRecords receives the rooms in file order.
+   * @return the "save_id" of a saved game, null for a world file
+   * @throws IOException If reading the file fails.
    */
-  private static Room createRoom(JsonNode roomNode, GameData gameData) {
-    String name = roomNode.get("room_name").asText();
-    int number = roomNode.get("room_number").asInt();
-    String description = roomNode.get("description").asText();
-    int N = roomNode.get("N").asInt();
-    int S = roomNode.get("S").asInt();
-    int E = roomNode.get("E").asInt();
-    int W = roomNode.get("W").asInt();
+  static String readWorld(String pathname, GameData gameData, List<RoomRecord> roomRecords)
+          throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
 
-    Puzzle puzzle = findPuzzle(roomNode.get("puzzle").asText(null), gameData);
-    Monster monster = findMonster(roomNode.get("monster").asText(null), gameData);
-    List<Item> roomItems = findItems(roomNode.get("items").asText(null), gameData);
-    List<Fixture> roomFixtures = findFixtures(roomNode.get("fixtures").asText(null), gameData);
-    String picture = roomNode.get("picture").asText();
+    // 1. Stream the file once, rooms are kept as raw records because
+    //    "rooms" comes before "items", "monsters" ... in the world files
+    String saveId;
+    try (JsonParser parser = objectMapper.getFactory().createParser(new File(pathname))) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("World file must start with a JSON object: " + pathname);
+      }
+      saveId = readSections(parser, objectMapper, gameData, roomRecords);
+    }
 
-    return new Room(name, number, description, N, S, E, W, puzzle, monster, roomItems, roomFixtures, picture);
+    // 1b. A saved game may have a log of later changes next to it (see controller.DeltaSaveData)
+    File deltaFile = new File(pathname + DeltaSaveData.DELTA_SUFFIX);
+    if (saveId != null && deltaFile.isFile()) {
+      applyDeltas(deltaFile, saveId, objectMapper, gameData, roomRecords);
+    }
+    return saveId;
   }
 
   /**
-   * Finds a model.Puzzle by name in the gameData object.
+   * Reads every field of the object the parser is in, up to its END_OBJECT.
+   *
+   * @return the "save_id" of a snapshot or the "base" of a delta line, null if neither is there
    */
-  private static Puzzle findPuzzle(String puzzleName, GameData gameData) {
-    if (puzzleName == null) return null;
-    return gameData.getPuzzles().stream()
-            .filter(p -> p.getName().equalsIgnoreCase(puzzleName))
-            .findFirst()
-            .orElse(null);
+  private static String readSections(JsonParser parser, ObjectMapper objectMapper, GameData gameData,
+                                     List<RoomRecord> roomRecords) throws IOException {
+    String id = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field) {
+        case "name" -> gameData.setName(parser.getValueAsString());
+        case "version" -> gameData.setVersion(parser.getValueAsString());
+        case "save_id", "base" -> id = parser.getValueAsString();
+        case "rooms" -> parseRooms(parser, roomRecords);
+        case "items" -> gameData.setItems(parseList(parser, objectMapper, Item.class));
+        case "fixtures" -> gameData.setFixtures(parseList(parser, objectMapper, Fixture.class));
+        case "monsters" -> gameData.setMonsters(parseList(parser, objectMapper, Monster.class));
+        case "puzzles" -> gameData.setPuzzles(parseList(parser, objectMapper, Puzzle.class));
+        default -> parser.skipChildren();
+      }
+    }
+    return id;
   }
 
   /**
-   * Finds a model.Monster by name in the gameData object.
+   * Replays the change log of a snapshot, later lines win. Lines written for another snapshot
+   * and lines that do not parse (an append cut short by a crash) are skipped.
    */
-  private static Monster findMonster(String monsterName, GameData gameData) {
-    if (monsterName == null) return null;
-    return gameData.getMonsters().stream()
-            .filter(m -> m.getName().equalsIgnoreCase(monsterName))
-            .findFirst()
-            .orElse(null);
+  private static void applyDeltas(File deltaFile, String saveId, ObjectMapper objectMapper,
+                                  GameData gameData, List<RoomRecord> roomRecords) throws IOException {
+    LinkedHashMap<String, Item> items = new LinkedHashMap<>();
+    LinkedHashMap<String, Monster> monsters = new LinkedHashMap<>();
+    LinkedHashMap<String, Puzzle> puzzles = new LinkedHashMap<>();
+    LinkedHashMap<Integer, RoomRecord> rooms = new LinkedHashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(deltaFile.toPath(), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        GameData changes = new GameData();
+        List<RoomRecord> changedRooms = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(line)) {
+          if (parser.nextToken() != JsonToken.START_OBJECT
+                  || !saveId.equals(readSections(parser, objectMapper, changes, changedRooms))) {
+            continue;
+          }
+        } catch (JsonProcessingException e) {
+          continue;
+        }
+        for (RoomRecord record : changedRooms) {
+          rooms.put(record.number, record);
+        }
+        putByName(items, changes.getItems(), Item::getName);
+        putByName(monsters, changes.getMonsters(), Monster::getName);
+        putByName(puzzles, changes.getPuzzles(), Puzzle::getName);
+      }
+    }
+
+    gameData.setItems(replaceByName(gameData.getItems(), items, Item::getName));
+    gameData.setMonsters(replaceByName(gameData.getMonsters(), monsters, Monster::getName));
+    gameData.setPuzzles(replaceByName(gameData.getPuzzles(), puzzles, Puzzle::getName));
+    if (!rooms.isEmpty()) {
+      for (int i = 0; i < roomRecords.size(); i++) {
+        RoomRecord changed = rooms.remove(roomRecords.get(i).number);
+        if (changed != null) {
+          roomRecords.set(i, changed);
+        }
+      }
+      roomRecords.addAll(rooms.values());
+    }
+  }
+
+  private static <T> void putByName(LinkedHashMap<String, T> changes, List<T> entities,
+                                    Function<T, String> name) {
+    if (entities != null) {
+      for (T entity : entities) {
+        changes.put(name.apply(entity).toLowerCase(Locale.ROOT), entity);
+      }
+    }
+  }
+
+  // entities of the snapshot replaced in place by their changed version, new ones at the end
+  private static <T> List<T> replaceByName(List<T> entities, LinkedHashMap<String, T> changes,
+                                           Function<T, String> name) {
+    if (changes.isEmpty()) {
+      return entities;
+    }
+    List<T> result = entities == null ? new ArrayList<>() : entities;
+    for (int i = 0; i < result.size(); i++) {
+      T changed = changes.remove(name.apply(result.get(i)).toLowerCase(Locale.ROOT));
+      if (changed != null) {
+        result.set(i, changed);
+      }
+    }
+    result.addAll(changes.values());
+    return result;
   }
 
   /**
-   * Finds one or more Items by name in the gameData object.
+   * Binds every element of the current JSON array to the given type.
+   * Returns null when the value is not an array, same as a missing list in controller.GameData.
    */
-  private static List<Item> findItems(String itemNames, GameData gameData) {
-    List<Item> roomItems = new ArrayList<>();
-    if (itemNames == null) return roomItems;
+  private static <T> List<T> parseList(JsonParser parser, ObjectMapper objectMapper, Class<T> type)
+          throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return null;
+    }
+    List<T> list = new ArrayList<>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      list.add(objectMapper.readValue(parser, type));
+    }
+    return list;
+  }
+
+  /**
+   * Reads the "rooms" array into raw room records.
+   */
+  private static void parseRooms(JsonParser parser, List<RoomRecord> roomRecords) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.START_OBJECT) {
+      roomRecords.add(parseRoom(parser));
+    }
+  }
 
-    for (String itemName : itemNames.split(",")) {
-      gameData.getItems().stream()
-              .filter(item -> item.getName().equalsIgnoreCase(itemName.trim()))
-              .findFirst()
-              .ifPresent(roomItems::add);
+  /**
+   * Reads a single room object, the parser is left on its END_OBJECT.
+   * Also used by controller.WorldFile for one room at a time.
+   */
+  static RoomRecord parseRoom(JsonParser parser) throws IOException {
+    RoomRecord record = new RoomRecord();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field) {
+        case "room_name" -> record.name = parser.getValueAsString();
+        case "room_number" -> record.number = parser.getValueAsInt();
+        case "description" -> record.description = parser.getValueAsString();
+        case "N" -> record.n = parser.getValueAsInt();
+        case "S" -> record.s = parser.getValueAsInt();
+        case "E" -> record.e = parser.getValueAsInt();
+        case "W" -> record.w = parser.getValueAsInt();
+        case "puzzle" -> record.puzzle = parser.getValueAsString();
+        case "monster" -> record.monster = parser.getValueAsString();
+        case "items" -> record.items = parser.getValueAsString();
+        case "fixtures" -> record.fixtures = parser.getValueAsString();
+        case "picture" -> record.picture = parser.getValueAsString();
+        default -> parser.skipChildren();
+      }
     }
-    return roomItems;
+    return record;
   }
 
   /**
-   * Finds one or more Fixtures by name in the gameData object.
+   * Creates a single model.Room object from a raw room record.
+   * Names are resolved through the entity index of the game data.
    */
-  private static List<Fixture> findFixtures(String fixtureNames, GameData gameData) {
+  private static Room createRoom(RoomRecord record, EntityIndex index) {
+    Puzzle puzzle = index.findPuzzle(record.puzzle);
+    Monster monster = index.findMonster(record.monster);
+    List<Item> roomItems = new ArrayList<>();
+    index.findItems(record.items, roomItems);
     List<Fixture> roomFixtures = new ArrayList<>();
-    if (fixtureNames == null) return roomFixtures;
+    index.findFixtures(record.fixtures, roomFixtures);
+
+    return new Room(record.name, record.number, record.description, record.n, record.s, record.e,
+            record.w, puzzle, monster, roomItems, roomFixtures, record.picture);
+  }
 
-    for (String fixtureName : fixtureNames.split(",")) {
-      gameData.getFixtures().stream()
-              .filter(fixture -> fixture.getName().equalsIgnoreCase(fixtureName.trim()))
-              .findFirst()
-              .ifPresent(roomFixtures::add);
+  /**
+   * Creates a single model.Room object from a raw room record, names resolved through the
+   * model.LazyMap the room is read for, e.g. by controller.WorldFile and controller.WorldTemplate.
+   */
+  static Room createRoom(RoomRecord record, RoomSource.Entities entities) {
+    Puzzle puzzle = entities.get(Puzzle.class, record.puzzle);
+    Monster monster = entities.get(Monster.class, record.monster);
+    List<Item> roomItems = new ArrayList<>();
+    if (record.items != null) {
+      for (String itemName : record.items.split(",")) {
+        Item item = entities.get(Item.class, itemName.trim());
+        if (item != null) {
+          roomItems.add(item);
+        }
+      }
+    }
+    List<Fixture> roomFixtures = new ArrayList<>();
+    if (record.fixtures != null) {
+      for (String fixtureName : record.fixtures.split(",")) {
+        Fixture fixture = entities.get(Fixture.class, fixtureName.trim());
+        if (fixture != null) {
+          roomFixtures.add(fixture);
+        }
+      }
     }
-    return roomFixtures;
+    return new Room(record.name, record.number, record.description, record.n, record.s, record.e,
+            record.w, puzzle, monster, roomItems, roomFixtures, record.picture);
+  }
+
+  /**
+   * A room as it appears in the "rooms" array, before names are resolved to objects.
+   * Also read by controller.WorldValidator, which checks the names before they are dropped.
+   */
+  static class RoomRecord {
+    String name;
+    int number;
+    String description;
+    int n;
+    int s;
+    int e;
+    int w;
+    String puzzle;
+    String monster;
+    String items;
+    String fixtures;
+    String picture;
   }
 }
\ No newline at end of file
@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 
 import model.*;
 
@@ -19,16 +21,20 @@ public class PlayerLoad {
    * @param playerDataPath the file path of the player data JSON.
    * @param originalPath   the original game data JSON file path used to find inventory items and currentRoom.
    * @param map            the current game map.
-   * @return a loaded model.Player instance, or null if an error occurs.
+   * @return a loaded model.Player instance, or null if an error occurs, e.g. the file is not a
+   *         saved player or its room is not in the map.
    */
   public static Player loadPlayer(String playerDataPath, String originalPath, Map map) {
     ObjectMapper objectMapper = new ObjectMapper();
     try {
-      // Load the original game data from the original path
-      GameData gameData = objectMapper.readValue(new File(originalPath), GameData.class);
-
       // read the entire player JSON as a tree
       JsonNode playerNode = objectMapper.readTree(new File(playerDataPath));
+      // e.g. a game file chosen as the player file
+      for (String field : new String[] {"name", "score", "health", "capacity", "currentRoom"}) {
+        if (playerNode == null || !playerNode.hasNonNull(field)) {
+          throw new IOException("Not a saved player, no " + field + ": " + playerDataPath);
+        }
+      }
 
       // basic string and int
       String name = playerNode.get("name").asText();
@@ -40,32 +46,57 @@ public class PlayerLoad {
       List<Item> inventory = new ArrayList<>();
       JsonNode inventoryNode = playerNode.get("inventory");
       if (inventoryNode != null && inventoryNode.isArray()) {
+        List<String> itemNames = new ArrayList<>();
         for (int i = 0; i < inventoryNode.size(); i++) {
-          String itemName = inventoryNode.get(i).asText();
-          // get item from gameData if same itemName
-          if (gameData.getItems() != null) {
-            for (Item originalItem : gameData.getItems()) {
-              if (originalItem.getName().equalsIgnoreCase(itemName)) {
-                inventory.add(originalItem);
-                break;
-              }
+          itemNames.add(inventoryNode.get(i).asText());
+        }
+        // the world is parsed once for every session and load, see controller.WorldTemplate;
+        // a world too big to load is only searched for the items of the inventory
+        WorldTemplate template = WorldTemplate.cached(originalPath);
+        if (template == null && !(map instanceof LazyMap)) {
+          template = WorldTemplate.of(originalPath);
+        }
+        if (template != null) {
+          for (String itemName : itemNames) {
+            Item originalItem = template.newItem(itemName);
+            if (originalItem != null) {
+              inventory.add(originalItem);
+            }
+          }
+        } else {
+          HashMap<String, Item> items = LoadGameData.findItems(originalPath, itemNames);
+          for (String itemName : itemNames) {
+            Item originalItem = items.get(itemName.toLowerCase(Locale.ROOT));
+            if (originalItem != null) {
+              inventory.add(originalItem);
             }
           }
         }
       }
 
+      // the inventory shares its text with the map
+      StringPool strings = map == null ? null : map.getStrings();
+      if (strings != null) {
+        for (Item item : inventory) {
+          item.internStrings(strings);
+        }
+      }
+
       // process currentRoom
       String currentRoomStr = playerNode.get("currentRoom").asText();
       Room currentRoom = null;
       if (currentRoomStr != null && !currentRoomStr.trim().isEmpty()) {
-        int currentRoomNumber = Integer.parseInt(currentRoomStr);
+        int currentRoomNumber;
+        try {
+          currentRoomNumber = Integer.parseInt(currentRoomStr.trim());
+        } catch (NumberFormatException e) {
+          throw new IOException("Bad currentRoom " + currentRoomStr + ": " + playerDataPath, e);
+        }
         if (map != null) {
-          List<Room> rooms = map.getRooms();
-          for (int i = 0; i < rooms.size(); i++) {
-            if (rooms.get(i).getRoom_number() == currentRoomNumber) {
-              currentRoom = rooms.get(i);
-              break;
-            }
+          currentRoom = map.getRoom(currentRoomNumber);
+          if (currentRoom == null) {
+            // the player belongs to another game
+            throw new IOException("No room " + currentRoomNumber + " in the game loaded");
           }
         }
       }
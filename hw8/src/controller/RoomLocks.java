@@ -0,0 +1,83 @@
+package controller;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks for a model.Map shared by several sessions, keyed by room number.
+ * A command locks the room it works in, a move also locks the room it goes to.
+ * Two stripes are always taken in index order so two moves in opposite directions
+ * can't deadlock, and rooms that hash to the same stripe take it once.
+ */
+public class RoomLocks {
+  private final ReentrantLock[] stripes;
+  private final int mask;
+
+  /**
+   * @param stripeCount number of locks, rounded up to a power of two.
+   */
+  public RoomLocks(int stripeCount) {
+    int size = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);
+    stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    mask = size - 1;
+  }
+
+  /**
+   * Locks the stripes of two rooms in a fixed order, a and b may be the same room.
+   *
+   * @param a number of the first room
+   * @param b number of the second room
+   */
+  public void lock(int a, int b) {
+    int first = stripe(a);
+    int second = stripe(b);
+    if (first == second) {
+      stripes[first].lock();
+    } else {
+      stripes[Math.min(first, second)].lock();
+      stripes[Math.max(first, second)].lock();
+    }
+  }
+
+  /**
+   * Releases what lock(a, b) took.
+   *
+   * @param a number of the first room
+   * @param b number of the second room
+   */
+  public void unlock(int a, int b) {
+    int first = stripe(a);
+    int second = stripe(b);
+    if (first == second) {
+      stripes[first].unlock();
+    } else {
+      stripes[Math.max(first, second)].unlock();
+      stripes[Math.min(first, second)].unlock();
+    }
+  }
+
+  /**
+   * Locks every stripe, for work that reads the whole map such as saving it.
+   */
+  public void lockAll() {
+    for (ReentrantLock stripe : stripes) {
+      stripe.lock();
+    }
+  }
+
+  /**
+   * Releases what lockAll() took.
+   */
+  public void unlockAll() {
+    for (int i = stripes.length - 1; i >= 0; i--) {
+      stripes[i].unlock();
+    }
+  }
+
+  private int stripe(int roomNumber) {
+    int h = roomNumber * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+}
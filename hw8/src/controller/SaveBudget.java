@@ -0,0 +1,59 @@
+package controller;
+
+/**
+ * Disk budget shared by the autosaves of many sessions, in bytes per second.
+ * A token bucket: an autosave may start while the bucket is not empty and takes out what it
+ * expects to write; once written, the difference to what it really wrote is settled. The bucket
+ * can go into debt and later autosaves wait until it is paid back. Sessions that find it empty
+ * skip their turn and try again later.
+ */
+public class SaveBudget {
+  private final double bytesPerNano;
+  private final double burst;
+  private double tokens; // guarded by this
+  private long refilledAt; // guarded by this
+
+  /**
+   * @param bytesPerSecond average number of bytes all autosaves may write per second.
+   */
+  public SaveBudget(long bytesPerSecond) {
+    if (bytesPerSecond <= 0) {
+      throw new IllegalArgumentException("bytesPerSecond must be positive");
+    }
+    this.bytesPerNano = bytesPerSecond / 1e9;
+    this.burst = bytesPerSecond; // up to one second worth of saves at once
+    this.tokens = burst;
+    this.refilledAt = System.nanoTime();
+  }
+
+  /**
+   * Takes bytes out of the budget if there is any left.
+   *
+   * @param bytes number of bytes the autosave expects to write.
+   * @return true if the autosave may start now.
+   */
+  public synchronized boolean tryAcquire(long bytes) {
+    refill();
+    if (tokens <= 0) {
+      return false;
+    }
+    tokens -= bytes;
+    return true;
+  }
+
+  /**
+   * Settles the difference between written and expected bytes.
+   *
+   * @param bytes bytes written minus bytes taken out, may be negative.
+   */
+  public synchronized void charge(long bytes) {
+    refill();
+    tokens -= bytes;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(burst, tokens + (now - refilledAt) * bytesPerNano);
+    refilledAt = now;
+  }
+}
@@ -5,6 +5,10 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -22,7 +26,94 @@ public class SaveGameData {
    * @param outputPath  The file path to save the JSON data.
    */
   public static void saveGameData(Map map, String outputPath) {
+    // write the whole world to the file
+    try {
+      writeWorld(map, null, new File(outputPath));
+
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes JSON to a temporary file next to the target and moves it over the target,
+   * so a crash leaves either the old file or the new one, never half of one.
+   *
+   * @param mapper used to write the value.
+   * @param value  what to write.
+   * @param target the file to replace.
+   * @throws IOException if writing or moving fails.
+   */
+  static void writeAtomically(ObjectMapper mapper, Object value, File target) throws IOException {
+    writeAtomically(target, temp -> mapper.writeValue(temp, value));
+  }
+
+  /**
+   * Same as writeAtomically(mapper, value, target), for output written by the caller.
+   *
+   * @param target the file to replace.
+   * @param output writes the new content to the file it is given.
+   * @throws IOException if writing or moving fails.
+   */
+  static void writeAtomically(File target, Output output) throws IOException {
+    Path path = target.toPath().toAbsolutePath();
+    // not Files.createTempFile, the save should get the usual file permissions
+    Path temp = path.resolveSibling(
+            target.getName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+    try {
+      output.write(temp.toFile());
+      try {
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Writes the content of a file, see writeAtomically.
+   */
+  interface Output {
+    void write(File file) throws IOException;
+  }
+
+  /**
+   * Writes the whole world file atomically. A model.LazyMap read from a controller.WorldFile
+   * is streamed from its file, copying the records of rooms that are not in memory.
+   *
+   * @param map    the map to save.
+   * @param saveId the "save_id" written after name and version, null for none.
+   * @param target the file to replace.
+   * @throws IOException if writing fails.
+   */
+  static void writeWorld(Map map, String saveId, File target) throws IOException {
+    if (map instanceof LazyMap lazy && lazy.getSource() instanceof WorldFile file) {
+      writeAtomically(target, temp -> file.write(lazy, saveId, temp));
+      return;
+    }
     ObjectMapper mapper = new ObjectMapper();
+    ObjectNode root = toJson(map, mapper);
+    if (saveId != null) {
+      ObjectNode withId = mapper.createObjectNode();
+      withId.put("name", map.getName());
+      withId.put("version", map.getVersion());
+      withId.put("save_id", saveId);
+      withId.setAll(root);
+      root = withId;
+    }
+    writeAtomically(mapper, root, target);
+  }
+
+  /**
+   * Builds the whole world file (name, version, rooms, items, fixtures, monsters, puzzles).
+   *
+   * @param map    the map to save.
+   * @param mapper used to create the nodes.
+   * @return the root node of the world file.
+   */
+  static ObjectNode toJson(Map map, ObjectMapper mapper) {
     // create the root node and save the game name and version
     ObjectNode root = mapper.createObjectNode();
     root.put("name", map.getName());
@@ -33,61 +124,7 @@ public class SaveGameData {
     ArrayNode roomsArray = mapper.createArrayNode();
     List<Room> rooms = map.getRooms();
     for (int i = 0; i < rooms.size(); i++) {
-      Room room = rooms.get(i);
-      ObjectNode roomNode = mapper.createObjectNode();
-      // save room properties as strings to match the original format
-      roomNode.put("room_name", room.getRoom_name());
-      roomNode.put("room_number", String.valueOf(room.getRoom_number()));
-      roomNode.put("description", room.getOriginalDescription());
-      // get orginal description !!!! here
-      roomNode.put("N", String.valueOf(room.getN()));
-      roomNode.put("S", String.valueOf(room.getS()));
-      roomNode.put("E", String.valueOf(room.getE()));
-      roomNode.put("W", String.valueOf(room.getW()));
-      // for puzzle: if exists, save its name; otherwise, null
-      if (room.getPuzzles() != null) {
-        roomNode.put("puzzle", room.getPuzzles().getName());
-      } else {
-        roomNode.put("puzzle", (String) null);
-      }
-      // for monster: if exists, save its name; otherwise, null
-      if (room.getMonsters() != null) {
-        roomNode.put("monster", room.getMonsters().getName());
-      } else {
-        roomNode.put("monster", (String) null);
-      }
-      // for items: join the list into a comma separated string
-      List<Item> roomItems = room.getItem();
-      if (roomItems != null && roomItems.size() > 0) {
-        StringBuilder sb = new StringBuilder();
-        // create a string build ,because we need multiple item name
-        for (int j = 0; j < roomItems.size(); j++) {
-          sb.append(roomItems.get(j).getName());
-          if (j < roomItems.size() - 1) {
-            sb.append(",");
-            // add "," here becasue we want split
-          }
-        }
-        roomNode.put("items", sb.toString());
-      } else {
-        roomNode.put("items", (String) null);
-      }
-      // for fixtures: join the list into a comma  separated string
-      List<Fixture> roomFixtures = room.getFixtures();
-      if (roomFixtures != null && roomFixtures.size() > 0) {
-        StringBuilder sb2 = new StringBuilder();
-        for (int j = 0; j < roomFixtures.size(); j++) {
-          sb2.append(roomFixtures.get(j).getName());
-          if (j < roomFixtures.size() - 1) {
-            sb2.append(",");
-          }
-        }
-        roomNode.put("fixtures", sb2.toString());
-      } else {
-        roomNode.put("fixtures", (String) null);
-      }
-      roomNode.put("picture", room.getPicture());
-      roomsArray.add(roomNode);
+      roomsArray.add(roomNode(mapper, rooms.get(i)));
     }
     root.set("rooms", roomsArray);
     // set rooms for all constructed json format
@@ -106,17 +143,7 @@ public class SaveGameData {
     List<Item> itemList = new ArrayList<>(itemSet);
     ArrayNode itemsArray = mapper.createArrayNode();
     for (int i = 0; i < itemList.size(); i++) {
-      Item item = itemList.get(i);
-      ObjectNode itemNode = mapper.createObjectNode();
-      itemNode.put("name", item.getName());
-      itemNode.put("weight", String.valueOf(item.getWeight()));
-      itemNode.put("max_uses", String.valueOf(item.getMax_uses()));
-      itemNode.put("uses_remaining", String.valueOf(item.getUses_remaining()));
-      itemNode.put("value", String.valueOf(item.getValue()));
-      itemNode.put("when_used", item.getWhen_used());
-      itemNode.put("description", item.getDescription());
-      itemNode.put("picture", item.getPicture());
-      itemsArray.add(itemNode);
+      itemsArray.add(itemNode(mapper, itemList.get(i)));
     }
     root.set("items", itemsArray);
 
@@ -131,16 +158,7 @@ public class SaveGameData {
     List<Fixture> fixtureList = new ArrayList<>(fixtureSet);
     ArrayNode fixturesArray = mapper.createArrayNode();
     for (int i = 0; i < fixtureList.size(); i++) {
-      Fixture fixture = fixtureList.get(i);
-      ObjectNode fixtureNode = mapper.createObjectNode();
-      fixtureNode.put("name", fixture.getName());
-      fixtureNode.put("weight", String.valueOf(fixture.getWeight()));
-      // puzzle and states are NULL in hw8
-      fixtureNode.put("puzzle", (String) null);
-      fixtureNode.put("states", (String) null);
-      fixtureNode.put("description", fixture.getDescription());
-      fixtureNode.put("picture", fixture.getPicture());
-      fixturesArray.add(fixtureNode);
+      fixturesArray.add(fixtureNode(mapper, fixtureList.get(i)));
     }
     root.set("fixtures", fixturesArray);
 
@@ -154,22 +172,7 @@ public class SaveGameData {
     List<Monster> monsterList = new ArrayList<>(monsterSet);
     ArrayNode monstersArray = mapper.createArrayNode();
     for (int i = 0; i < monsterList.size(); i++) {
-      Monster monster = monsterList.get(i);
-      ObjectNode monsterNode = mapper.createObjectNode();
-      monsterNode.put("name", monster.getName());
-      monsterNode.put("active", String.valueOf(monster.isActive()));
-      monsterNode.put("affects_target", String.valueOf(monster.isAffects_target()));
-      monsterNode.put("affects_player", String.valueOf(monster.isAffects_player()));
-      monsterNode.put("solution", monster.getSolution());
-      monsterNode.put("value", String.valueOf(monster.getValue()));
-      monsterNode.put("description", monster.getDescription());
-      monsterNode.put("effects", monster.getEffects());
-      monsterNode.put("damage", monster.getDamage());
-      monsterNode.put("target", monster.getTarget());
-      monsterNode.put("can_attack", String.valueOf(monster.isCan_attack()));
-      monsterNode.put("attack", monster.getAttack());
-      monsterNode.put("picture", monster.getPicture());
-      monstersArray.add(monsterNode);
+      monstersArray.add(monsterNode(mapper, monsterList.get(i)));
     }
     root.set("monsters", monstersArray);
 
@@ -183,28 +186,139 @@ public class SaveGameData {
     List<Puzzle> puzzleList = new ArrayList<>(puzzleSet);
     ArrayNode puzzlesArray = mapper.createArrayNode();
     for (int i = 0; i < puzzleList.size(); i++) {
-      Puzzle puzzle = puzzleList.get(i);
-      ObjectNode puzzleNode = mapper.createObjectNode();
-      puzzleNode.put("name", puzzle.getName());
-      puzzleNode.put("active", String.valueOf(puzzle.isActive()));
-      puzzleNode.put("affects_target", String.valueOf(puzzle.isAffects_target()));
-      puzzleNode.put("affects_player", String.valueOf(puzzle.isAffects_player()));
-      puzzleNode.put("solution", puzzle.getSolution());
-      puzzleNode.put("value", String.valueOf(puzzle.getValue()));
-      puzzleNode.put("description", puzzle.getDescription());
-      puzzleNode.put("effects", puzzle.getEffects());
-      puzzleNode.put("target", puzzle.getTarget());
-      puzzleNode.put("picture", puzzle.getPicture());
-      puzzlesArray.add(puzzleNode);
+      puzzlesArray.add(puzzleNode(mapper, puzzleList.get(i)));
     }
     root.set("puzzles", puzzlesArray);
+    return root;
+  }
 
-    // write the constructed JSON object to the file
-    try {
-      mapper.writeValue(new File(outputPath), root);
-
-    } catch (IOException e) {
-      e.printStackTrace();
+  /**
+   * One entry of the "rooms" array.
+   */
+  static ObjectNode roomNode(ObjectMapper mapper, Room room) {
+    ObjectNode roomNode = mapper.createObjectNode();
+    // save room properties as strings to match the original format
+    roomNode.put("room_name", room.getRoom_name());
+    roomNode.put("room_number", String.valueOf(room.getRoom_number()));
+    roomNode.put("description", room.getOriginalDescription());
+    // get orginal description !!!! here
+    roomNode.put("N", String.valueOf(room.getN()));
+    roomNode.put("S", String.valueOf(room.getS()));
+    roomNode.put("E", String.valueOf(room.getE()));
+    roomNode.put("W", String.valueOf(room.getW()));
+    // for puzzle: if exists, save its name; otherwise, null
+    if (room.getPuzzles() != null) {
+      roomNode.put("puzzle", room.getPuzzles().getName());
+    } else {
+      roomNode.put("puzzle", (String) null);
     }
+    // for monster: if exists, save its name; otherwise, null
+    if (room.getMonsters() != null) {
+      roomNode.put("monster", room.getMonsters().getName());
+    } else {
+      roomNode.put("monster", (String) null);
+    }
+    // for items: join the list into a comma separated string
+    List<Item> roomItems = room.getItem();
+    if (roomItems != null && roomItems.size() > 0) {
+      StringBuilder sb = new StringBuilder();
+      // create a string build ,because we need multiple item name
+      for (int j = 0; j < roomItems.size(); j++) {
+        sb.append(roomItems.get(j).getName());
+        if (j < roomItems.size() - 1) {
+          sb.append(",");
+          // add "," here becasue we want split
+        }
+      }
+      roomNode.put("items", sb.toString());
+    } else {
+      roomNode.put("items", (String) null);
+    }
+    // for fixtures: join the list into a comma  separated string
+    List<Fixture> roomFixtures = room.getFixtures();
+    if (roomFixtures != null && roomFixtures.size() > 0) {
+      StringBuilder sb2 = new StringBuilder();
+      for (int j = 0; j < roomFixtures.size(); j++) {
+        sb2.append(roomFixtures.get(j).getName());
+        if (j < roomFixtures.size() - 1) {
+          sb2.append(",");
+        }
+      }
+      roomNode.put("fixtures", sb2.toString());
+    } else {
+      roomNode.put("fixtures", (String) null);
+    }
+    roomNode.put("picture", room.getPicture());
+    return roomNode;
+  }
+
+  /**
+   * One entry of the "items" array.
+   */
+  static ObjectNode itemNode(ObjectMapper mapper, Item item) {
+    ObjectNode itemNode = mapper.createObjectNode();
+    itemNode.put("name", item.getName());
+    itemNode.put("weight", String.valueOf(item.getWeight()));
+    itemNode.put("max_uses", String.valueOf(item.getMax_uses()));
+    itemNode.put("uses_remaining", String.valueOf(item.getUses_remaining()));
+    itemNode.put("value", String.valueOf(item.getValue()));
+    itemNode.put("when_used", item.getWhen_used());
+    itemNode.put("description", item.getDescription());
+    itemNode.put("picture", item.getPicture());
+    return itemNode;
+  }
+
+  /**
+   * One entry of the "fixtures" array.
+   */
+  static ObjectNode fixtureNode(ObjectMapper mapper, Fixture fixture) {
+    ObjectNode fixtureNode = mapper.createObjectNode();
+    fixtureNode.put("name", fixture.getName());
+    fixtureNode.put("weight", String.valueOf(fixture.getWeight()));
+    // puzzle and states are NULL in hw8
+    fixtureNode.put("puzzle", (String) null);
+    fixtureNode.put("states", (String) null);
+    fixtureNode.put("description", fixture.getDescription());
+    fixtureNode.put("picture", fixture.getPicture());
+    return fixtureNode;
+  }
+
+  /**
+   * One entry of the "monsters" array.
+   */
+  static ObjectNode monsterNode(ObjectMapper mapper, Monster monster) {
+    ObjectNode monsterNode = mapper.createObjectNode();
+    monsterNode.put("name", monster.getName());
+    monsterNode.put("active", String.valueOf(monster.isActive()));
+    monsterNode.put("affects_target", String.valueOf(monster.isAffects_target()));
+    monsterNode.put("affects_player", String.valueOf(monster.isAffects_player()));
+    monsterNode.put("solution", monster.getSolution());
+    monsterNode.put("value", String.valueOf(monster.getValue()));
+    monsterNode.put("description", monster.getDescription());
+    monsterNode.put("effects", monster.getEffects());
+    monsterNode.put("damage", monster.getDamage());
+    monsterNode.put("target", monster.getTarget());
+    monsterNode.put("can_attack", String.valueOf(monster.isCan_attack()));
+    monsterNode.put("attack", monster.getAttack());
+    monsterNode.put("picture", monster.getPicture());
+    return monsterNode;
+  }
+
+  /**
+   * One entry of the "puzzles" array.
+   */
+  static ObjectNode puzzleNode(ObjectMapper mapper, Puzzle puzzle) {
+    ObjectNode puzzleNode = mapper.createObjectNode();
+    puzzleNode.put("name", puzzle.getName());
+    puzzleNode.put("active", String.valueOf(puzzle.isActive()));
+    puzzleNode.put("affects_target", String.valueOf(puzzle.isAffects_target()));
+    puzzleNode.put("affects_player", String.valueOf(puzzle.isAffects_player()));
+    puzzleNode.put("solution", puzzle.getSolution());
+    puzzleNode.put("value", String.valueOf(puzzle.getValue()));
+    puzzleNode.put("description", puzzle.getDescription());
+    puzzleNode.put("effects", puzzle.getEffects());
+    puzzleNode.put("target", puzzle.getTarget());
+    puzzleNode.put("picture", puzzle.getPicture());
+    return puzzleNode;
   }
 }
\ No newline at end of file
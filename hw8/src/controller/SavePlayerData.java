@@ -20,6 +20,21 @@ public class SavePlayerData {
    */
   public static void savePlayer(Player player, String outputPath) {
     ObjectMapper mapper = new ObjectMapper();
+    try {
+      SaveGameData.writeAtomically(mapper, toJson(player, mapper), new File(outputPath));
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Builds the player file (name, score, health, capacity, inventory names, current room).
+   *
+   * @param player the player to save.
+   * @param mapper used to create the nodes.
+   * @return the root node of the player file.
+   */
+  static ObjectNode toJson(Player player, ObjectMapper mapper) {
     ObjectNode root = mapper.createObjectNode();
 
     // save basic
@@ -43,11 +58,6 @@ public class SavePlayerData {
     } else {
       root.put("currentRoom", "");
     }
-
-    try {
-      mapper.writeValue(new File(outputPath), root);
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
+    return root;
   }
 }
\ No newline at end of file
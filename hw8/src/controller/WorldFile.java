@@ -0,0 +1,688 @@
+package controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+import model.*;
+
+/**
+ * A world or saved game file read one record at a time, the model.RoomSource of a
+ * model.LazyMap.
+ *
+ * open() streams the file once and keeps only where the records are: byte offset and length
+ * of every room, item, fixture, monster and puzzle, the room numbers and a hash of every entity
+ * name, about 20 bytes a record. A room or entity is read with one positional read when it is
+ * asked for. The change log of a saved game (controller.DeltaSaveData) is indexed the same way
+ * and wins over the snapshot; withDeltaLine() adds a line just appended without reading the
+ * file again. A WorldFile never changes, each of those gives a new one.
+ */
+public class WorldFile implements RoomSource {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Cleaner CLEANER = Cleaner.create(); // closes files nothing reads any more
+  private static final int WINDOW = 1 << 20; // read-ahead when copying records in file order
+
+  private static final int ROOMS = 0;
+  private static final String[] SECTIONS = {"rooms", "items", "fixtures", "monsters", "puzzles"};
+  private static final Class<?>[] TYPES =
+          {Room.class, Item.class, Fixture.class, Monster.class, Puzzle.class};
+
+  private final File file;
+  private final String name;
+  private final String version;
+  private final String saveId;
+  private final Records records;
+  private final Table[] tables; // snapshot records by section, keyed by room number or name hash
+  private final Overlay overlay; // change log records
+  private final Records deltaRecords; // null until there is a change log
+
+  private WorldFile(File file, Header header, Records records, Table[] tables, Overlay overlay,
+                    Records deltaRecords) {
+    this.file = file;
+    this.name = header.name;
+    this.version = header.version;
+    this.saveId = header.id;
+    this.records = records;
+    this.tables = tables;
+    this.overlay = overlay;
+    this.deltaRecords = deltaRecords;
+  }
+
+  /**
+   * Indexes a world file, and the change log next to it for a saved game.
+   *
+   * @param pathname The path to the game data JSON file.
+   * @return the indexed file.
+   * @throws IOException If reading the file fails.
+   */
+  public static WorldFile open(String pathname) throws IOException {
+    File file = new File(pathname).getAbsoluteFile();
+    Records records = new Records(file);
+    Table[] tables = new Table[SECTIONS.length];
+    for (int i = 0; i < tables.length; i++) {
+      tables[i] = new Table();
+    }
+    Header header = new Header();
+    try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+      scan(parser, 0, header, (section, number, entityName, offset, length) ->
+              tables[section].add(section == ROOMS ? number : hash(entityName), offset, length));
+    }
+    for (Table table : tables) {
+      table.seal();
+    }
+    File deltaFile = new File(file.getPath() + DeltaSaveData.DELTA_SUFFIX);
+    if (header.id == null || !deltaFile.isFile()) {
+      return new WorldFile(file, header, records, tables, new Overlay(), null);
+    }
+    WorldFile world = new WorldFile(file, header, records, tables, new Overlay(),
+            new Records(deltaFile));
+    try (InputStream in = new BufferedInputStream(new FileInputStream(deltaFile))) {
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      long offset = 0;
+      long start = 0;
+      int b;
+      while ((b = in.read()) >= 0) {
+        offset++;
+        if (b == '\n') {
+          world.apply(world.overlay, start, line.toByteArray());
+          line.reset();
+          start = offset;
+        } else {
+          line.write(b);
+        }
+      }
+      world.apply(world.overlay, start, line.toByteArray());
+    }
+    return world;
+  }
+
+  /**
+   * This file with one more line of its change log, the one a save just appended.
+   *
+   * @param delta  the change log file.
+   * @param offset where the line starts in it.
+   * @param line   the line, without the line break.
+   * @return a new WorldFile, or this one if the line is not for this snapshot
+   * @throws IOException if the change log can't be opened.
+   */
+  public WorldFile withDeltaLine(File delta, long offset, byte[] line) throws IOException {
+    Records log = deltaRecords;
+    if (log == null || !log.file.equals(delta.getAbsoluteFile())) {
+      log = new Records(delta.getAbsoluteFile());
+    }
+    Header header = new Header();
+    header.name = name;
+    header.version = version;
+    header.id = saveId;
+    WorldFile world = new WorldFile(file, header, records, tables, overlay.copy(), log);
+    return world.apply(world.overlay, offset, line) ? world : this;
+  }
+
+  /**
+   * @param target a snapshot file.
+   * @param id     its save id.
+   * @return true if this is that file, so its change log can be added with withDeltaLine
+   */
+  public boolean isSnapshot(File target, String id) {
+    return saveId != null && saveId.equals(id) && file.equals(target.getAbsoluteFile());
+  }
+
+  // indexes one change log line into the overlay, false if it is not for this snapshot
+  private boolean apply(Overlay into, long offset, byte[] line) {
+    if (saveId == null || isBlank(line)) {
+      return false;
+    }
+    Header header = new Header();
+    List<Found> found = new ArrayList<>();
+    try (JsonParser parser = MAPPER.getFactory().createParser(line)) {
+      scan(parser, offset, header, (section, number, entityName, start, length) ->
+              found.add(new Found(section, number, entityName, new Location(start, length))));
+    } catch (IOException e) {
+      return false; // an append cut short by a crash
+    }
+    if (!saveId.equals(header.id)) {
+      return false;
+    }
+    for (Found record : found) {
+      Location location = record.location();
+      if (record.section() == ROOMS) {
+        int number = record.number();
+        int position = positionOf(into, number);
+        if (position < 0) {
+          position = tables[ROOMS].size + into.addedNumbers.size();
+          into.addedNumbers.add(number);
+          into.addedPositions.put(number, position);
+        }
+        into.rooms.put(position, location);
+      } else if (record.entityName() != null) {
+        String key = key(record.entityName());
+        LinkedHashMap<String, Entry> changed = into.entities.get(record.section());
+        Entry previous = changed.get(key);
+        int basePosition = previous != null ? previous.basePosition()
+                : basePosition(record.section(), key);
+        changed.put(key, new Entry(location, basePosition));
+      }
+    }
+    return true;
+  }
+
+  private static boolean isBlank(byte[] line) {
+    for (byte b : line) {
+      if (!Character.isWhitespace(b)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Walks the top level of a world file or change log line and reports every record in it.
+   */
+  private static void scan(JsonParser parser, long shift, Header header, Sink sink)
+          throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new IOException("World file must start with a JSON object");
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      int section = Arrays.asList(SECTIONS).indexOf(field);
+      switch (field) {
+        case "name" -> header.name = parser.getValueAsString();
+        case "version" -> header.version = parser.getValueAsString();
+        case "save_id", "base" -> header.id = parser.getValueAsString();
+        default -> {
+          if (section >= 0) {
+            scanRecords(parser, shift, section, sink);
+          } else {
+            parser.skipChildren();
+          }
+        }
+      }
+    }
+  }
+
+  // reports where each object of the current array is, with its room number or name
+  private static void scanRecords(JsonParser parser, long shift, int section, Sink sink)
+          throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      long start = parser.currentTokenLocation().getByteOffset();
+      int number = 0;
+      String entityName = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if (section == ROOMS && field.equals("room_number")) {
+          number = parser.getValueAsInt();
+        } else if (section != ROOMS && field.equals("name")) {
+          entityName = parser.getValueAsString();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      long end = parser.currentLocation().getByteOffset();
+      sink.record(section, number, entityName, shift + start, (int) (end - start));
+    }
+  }
+
+  @Override
+  public int size() {
+    return tables[ROOMS].size + overlay.addedNumbers.size();
+  }
+
+  @Override
+  public int numberAt(int position) {
+    Table rooms = tables[ROOMS];
+    return position < rooms.size ? rooms.keys[position]
+            : overlay.addedNumbers.get(position - rooms.size);
+  }
+
+  @Override
+  public int positionOf(int roomNumber) {
+    return positionOf(overlay, roomNumber);
+  }
+
+  private int positionOf(Overlay in, int roomNumber) {
+    int position = tables[ROOMS].first(roomNumber);
+    if (position < 0) {
+      Integer added = in.addedPositions.get(roomNumber);
+      return added == null ? -1 : added;
+    }
+    return position;
+  }
+
+  @Override
+  public Room loadRoom(int position, Entities entities) {
+    LoadGameData.RoomRecord record;
+    try (JsonParser parser = MAPPER.getFactory().createParser(roomBytes(position))) {
+      parser.nextToken();
+      record = LoadGameData.parseRoom(parser);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read room " + position + " of " + file, e);
+    }
+    return LoadGameData.createRoom(record, entities);
+  }
+
+  private byte[] roomBytes(int position) {
+    Location changed = overlay.rooms.get(position);
+    if (changed != null) {
+      return deltaRecords.read(changed.offset(), changed.length());
+    }
+    Table rooms = tables[ROOMS];
+    return records.read(rooms.offsets[position], rooms.lengths[position]);
+  }
+
+  @Override
+  public <T> T loadEntity(Class<T> type, String entityName) {
+    int section = Arrays.asList(TYPES).indexOf(type);
+    if (section <= ROOMS || entityName == null) {
+      return null;
+    }
+    String key = key(entityName);
+    byte[] bytes;
+    Entry changed = overlay.entities.get(section).get(key);
+    if (changed != null) {
+      bytes = deltaRecords.read(changed.location().offset(), changed.location().length());
+    } else {
+      int position = basePosition(section, key);
+      if (position < 0) {
+        return null;
+      }
+      bytes = records.read(tables[section].offsets[position], tables[section].lengths[position]);
+    }
+    try {
+      return MAPPER.readValue(bytes, type);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + entityName + " of " + file, e);
+    }
+  }
+
+  // first snapshot record of a section with this name, -1 if none; hashes are checked by name
+  private int basePosition(int section, String key) {
+    Table table = tables[section];
+    for (int i = table.firstSlot(hash(key)); i >= 0; i = table.nextSlot(i)) {
+      int position = table.positionAt(i);
+      if (key.equals(key(nameOf(table.offsets[position], table.lengths[position])))) {
+        return position;
+      }
+    }
+    return -1;
+  }
+
+  private String nameOf(long offset, int length) {
+    try (JsonParser parser = MAPPER.getFactory().createParser(records.read(offset, length))) {
+      parser.nextToken();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        parser.nextToken();
+        if (field.equals("name")) {
+          String value = parser.getValueAsString();
+          return value == null ? "" : value;
+        }
+        parser.skipChildren();
+      }
+      return "";
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read " + file, e);
+    }
+  }
+
+  /**
+   * Writes the world a lazy map read from this file is in now: rooms and entities in memory
+   * are written from the objects, everything else is copied from the snapshot or the change
+   * log as it is. Order and fields are the same as controller.SaveGameData.toJson, except that
+   * entities keep their place in the file and unused ones are kept.
+   *
+   * @param map    a map reading from this file.
+   * @param id     the "save_id" to write, null for none.
+   * @param target file to write to.
+   * @throws IOException if reading or writing fails.
+   */
+  void write(LazyMap map, String id, File target) throws IOException {
+    List<Room> loadedRooms = map.getLoadedRooms();
+    List<LinkedHashMap<String, Object>> loaded = new ArrayList<>();
+    for (int section = 0; section < SECTIONS.length; section++) {
+      loaded.add(new LinkedHashMap<>());
+    }
+    for (Room room : loadedRooms) {
+      if (room.getItem() != null) {
+        for (Item item : room.getItem()) {
+          loaded.get(1).putIfAbsent(key(item.getName()), item);
+        }
+      }
+      if (room.getFixtures() != null) {
+        for (Fixture fixture : room.getFixtures()) {
+          loaded.get(2).putIfAbsent(key(fixture.getName()), fixture);
+        }
+      }
+      if (room.getMonsters() != null) {
+        loaded.get(3).putIfAbsent(key(room.getMonsters().getName()), room.getMonsters());
+      }
+      if (room.getPuzzles() != null) {
+        loaded.get(4).putIfAbsent(key(room.getPuzzles().getName()), room.getPuzzles());
+      }
+    }
+
+    Window window = new Window(records);
+    try (JsonGenerator out = MAPPER.getFactory().createGenerator(target, JsonEncoding.UTF8)) {
+      out.writeStartObject();
+      out.writeStringField("name", map.getName());
+      out.writeStringField("version", map.getVersion());
+      if (id != null) {
+        out.writeStringField("save_id", id);
+      }
+      out.writeArrayFieldStart(SECTIONS[ROOMS]);
+      Table rooms = tables[ROOMS];
+      for (int position = 0; position < size(); position++) {
+        Room room = map.loadedRoom(position);
+        if (room != null) {
+          out.writeTree(SaveGameData.roomNode(MAPPER, room));
+        } else if (position < rooms.size && !overlay.rooms.containsKey(position)) {
+          writeRaw(out, window.read(rooms.offsets[position], rooms.lengths[position]));
+        } else {
+          writeRaw(out, roomBytes(position));
+        }
+      }
+      out.writeEndArray();
+      for (int section = 1; section < SECTIONS.length; section++) {
+        out.writeArrayFieldStart(SECTIONS[section]);
+        writeEntities(out, section, loaded.get(section), window);
+        out.writeEndArray();
+      }
+      out.writeEndObject();
+    }
+  }
+
+  // snapshot records in file order with the newer versions in place, then the new ones
+  private void writeEntities(JsonGenerator out, int section, LinkedHashMap<String, Object> loaded,
+                             Window window) throws IOException {
+    HashMap<Integer, Object> replaced = new HashMap<>();
+    List<Object> added = new ArrayList<>();
+    HashMap<String, Entry> changed = overlay.entities.get(section);
+    for (java.util.Map.Entry<String, Object> entity : loaded.entrySet()) {
+      Entry entry = changed.get(entity.getKey());
+      int position = entry != null ? entry.basePosition() : basePosition(section, entity.getKey());
+      if (position >= 0) {
+        replaced.put(position, entity.getValue());
+      } else if (entry == null) {
+        added.add(entity.getValue());
+      }
+    }
+    HashMap<Integer, Entry> changedAt = new HashMap<>();
+    for (Entry entry : changed.values()) {
+      if (entry.basePosition() >= 0) {
+        changedAt.put(entry.basePosition(), entry);
+      }
+    }
+
+    Table table = tables[section];
+    for (int position = 0; position < table.size; position++) {
+      Object entity = replaced.get(position);
+      Entry entry = changedAt.get(position);
+      if (entity != null) {
+        out.writeTree(node(entity));
+      } else if (entry != null) {
+        writeRaw(out, deltaRecords.read(entry.location().offset(), entry.location().length()));
+      } else {
+        writeRaw(out, window.read(table.offsets[position], table.lengths[position]));
+      }
+    }
+    for (java.util.Map.Entry<String, Entry> entry : changed.entrySet()) {
+      if (entry.getValue().basePosition() < 0) {
+        Object entity = loaded.get(entry.getKey());
+        Location location = entry.getValue().location();
+        if (entity != null) {
+          out.writeTree(node(entity));
+        } else {
+          writeRaw(out, deltaRecords.read(location.offset(), location.length()));
+        }
+      }
+    }
+    for (Object entity : added) {
+      out.writeTree(node(entity));
+    }
+  }
+
+  private static ObjectNode node(Object entity) {
+    if (entity instanceof Item item) {
+      return SaveGameData.itemNode(MAPPER, item);
+    } else if (entity instanceof Fixture fixture) {
+      return SaveGameData.fixtureNode(MAPPER, fixture);
+    } else if (entity instanceof Monster monster) {
+      return SaveGameData.monsterNode(MAPPER, monster);
+    }
+    return SaveGameData.puzzleNode(MAPPER, (Puzzle) entity);
+  }
+
+  private static void writeRaw(JsonGenerator out, byte[] record) throws IOException {
+    out.writeRawValue(new String(record, StandardCharsets.UTF_8));
+  }
+
+  private static String key(String entityName) {
+    return entityName.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static int hash(String entityName) {
+    return entityName == null ? 0 : key(entityName).hashCode();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * @return the "save_id" of a saved game, null for a world file
+   */
+  public String getSaveId() {
+    return saveId;
+  }
+
+  // told about every record scan() finds
+  private interface Sink {
+    void record(int section, int number, String entityName, long offset, int length)
+            throws IOException;
+  }
+
+  private static class Header {
+    String name;
+    String version;
+    String id;
+  }
+
+  /**
+   * Records of one section in file order, with (key << 32 | position) sorted for lookups.
+   */
+  private static class Table {
+    int size;
+    int[] keys = new int[16];
+    long[] offsets = new long[16];
+    int[] lengths = new int[16];
+    long[] byKey;
+
+    void add(int key, long offset, int length) {
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        offsets = Arrays.copyOf(offsets, size * 2);
+        lengths = Arrays.copyOf(lengths, size * 2);
+      }
+      keys[size] = key;
+      offsets[size] = offset;
+      lengths[size] = length;
+      size++;
+    }
+
+    void seal() {
+      keys = Arrays.copyOf(keys, size);
+      offsets = Arrays.copyOf(offsets, size);
+      lengths = Arrays.copyOf(lengths, size);
+      byKey = new long[size];
+      for (int i = 0; i < size; i++) {
+        byKey[i] = ((long) keys[i] << 32) | i;
+      }
+      Arrays.sort(byKey);
+    }
+
+    // slot in byKey of the first record with this key, -1 if none
+    int firstSlot(int key) {
+      int slot = Arrays.binarySearch(byKey, (long) key << 32);
+      if (slot < 0) {
+        slot = -slot - 1;
+      }
+      return slot < size && (int) (byKey[slot] >> 32) == key ? slot : -1;
+    }
+
+    // next slot with the same key, -1 if none
+    int nextSlot(int slot) {
+      int next = slot + 1;
+      return next < size && byKey[next] >> 32 == byKey[slot] >> 32 ? next : -1;
+    }
+
+    int positionAt(int slot) {
+      return (int) byKey[slot];
+    }
+
+    int first(int key) {
+      int slot = firstSlot(key);
+      return slot < 0 ? -1 : positionAt(slot);
+    }
+  }
+
+  /**
+   * Change log records, by room position and by entity name.
+   */
+  private static class Overlay {
+    final HashMap<Integer, Location> rooms = new HashMap<>();
+    final List<Integer> addedNumbers = new ArrayList<>(); // rooms the snapshot does not have
+    final HashMap<Integer, Integer> addedPositions = new HashMap<>();
+    final List<LinkedHashMap<String, Entry>> entities = new ArrayList<>();
+
+    Overlay() {
+      for (int section = 0; section < SECTIONS.length; section++) {
+        entities.add(new LinkedHashMap<>());
+      }
+    }
+
+    Overlay copy() {
+      Overlay copy = new Overlay();
+      copy.rooms.putAll(rooms);
+      copy.addedNumbers.addAll(addedNumbers);
+      copy.addedPositions.putAll(addedPositions);
+      for (int section = 0; section < SECTIONS.length; section++) {
+        copy.entities.get(section).putAll(entities.get(section));
+      }
+      return copy;
+    }
+  }
+
+  private record Location(long offset, int length) {
+  }
+
+  // a record found in a change log line
+  private record Found(int section, int number, String entityName, Location location) {
+  }
+
+  // a changed entity and the snapshot record it replaces, -1 for a new one
+  private record Entry(Location location, int basePosition) {
+  }
+
+  /**
+   * An open file records are read from, closed once no WorldFile uses it.
+   */
+  private static class Records {
+    final File file;
+    final FileChannel channel;
+
+    Records(File file) throws IOException {
+      this.file = file;
+      this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      FileChannel toClose = channel;
+      CLEANER.register(this, () -> {
+        try {
+          toClose.close();
+        } catch (IOException e) {
+          // nothing reads it any more
+        }
+      });
+    }
+
+    byte[] read(long offset, int length) {
+      byte[] bytes = new byte[length];
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      try {
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer, offset + buffer.position()) < 0) {
+            throw new IOException("Record past the end of " + file);
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return bytes;
+    }
+
+    long size() {
+      try {
+        return channel.size();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Reads records through a buffer, for going through a file in order.
+   */
+  private static class Window {
+    final Records records;
+    byte[] buffer = new byte[0];
+    long start;
+
+    Window(Records records) {
+      this.records = records;
+    }
+
+    byte[] read(long offset, int length) {
+      if (offset < start || offset + length > start + buffer.length) {
+        long available = records.size() - offset;
+        buffer = records.read(offset, (int) Math.min(Math.max(length, WINDOW), available));
+        start = offset;
+      }
+      int from = (int) (offset - start);
+      return Arrays.copyOfRange(buffer, from, from + length);
+    }
+  }
+}
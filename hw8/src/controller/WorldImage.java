@@ -0,0 +1,657 @@
+package controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import model.*;
+
+/**
+ * Compiled binary form of a world JSON file, so a launch doesn't have to parse JSON.
+ * An image is a model.RoomSource over the mapped file: opening one reads the header only, and
+ * a model.LazyMap on it reads each room from the mapping the first time it is looked up.
+ *
+ * Layout (big endian):
+ * header: magic, format version, length and modification time of the source JSON (longs),
+ *         SHA-256 of the source JSON (32 bytes), name and version string ids,
+ *         then the counts of strings, items, fixtures, puzzles, monsters, rooms and refs.
+ * string table: count + 1 byte offsets, then one UTF-8 blob. String index -1 is null.
+ * entity records: fixed width int records for items, fixtures, puzzles, monsters.
+ * room records: fixed width, items and fixtures point into the ref table.
+ * ref table: entity indexes used by the room item and fixture lists.
+ * indexes: sorted longs, key in the high int and position in the low one; rooms by number,
+ *          then items, fixtures, puzzles and monsters by the hash of their lower case name.
+ *
+ * The image sits next to the JSON with the ".world" extension and is only used while it was
+ * compiled from the JSON as it is: a JSON of another length is stale right away, one with the
+ * recorded modification time is taken as the same file, and only a JSON that was touched
+ * since is read to compare its hash with the recorded one.
+ */
+public class WorldImage implements RoomSource {
+  private static final int MAGIC = 0x48573857; // "HW8W"
+  private static final int FORMAT_VERSION = 2;
+  private static final int HASH_BYTES = 32;
+  private static final int LENGTH_AT = 8;
+  private static final int MODIFIED_AT = 16;
+  private static final int HASH_AT = 24;
+  private static final int COUNTS_AT = HASH_AT + HASH_BYTES;
+  private static final int HEADER_BYTES = COUNTS_AT + 9 * 4;
+
+  private static final int ITEM_INTS = 8;
+  private static final int FIXTURE_INTS = 6;
+  private static final int PUZZLE_INTS = 8;
+  private static final int MONSTER_INTS = 10;
+  private static final int ROOM_INTS = 14;
+
+  // challenge flag bits
+  private static final int ACTIVE = 1;
+  private static final int AFFECTS_TARGET = 1 << 1;
+  private static final int AFFECTS_PLAYER = 1 << 2;
+  private static final int CAN_ATTACK = 1 << 3;
+
+  private final ByteBuffer buffer;
+  private final Strings strings;
+  private final String name;
+  private final String version;
+  private final int roomCount;
+  private final Section items;
+  private final Section fixtures;
+  private final Section puzzles;
+  private final Section monsters;
+  private final int roomsAt;
+  private final int refsAt;
+  private final int roomIndexAt;
+
+  private WorldImage(ByteBuffer buffer) {
+    this.buffer = buffer;
+    buffer.position(COUNTS_AT);
+    int nameId = buffer.getInt();
+    int versionId = buffer.getInt();
+    int stringCount = buffer.getInt();
+    int itemCount = buffer.getInt();
+    int fixtureCount = buffer.getInt();
+    int puzzleCount = buffer.getInt();
+    int monsterCount = buffer.getInt();
+    roomCount = buffer.getInt();
+    int refCount = buffer.getInt();
+
+    strings = new Strings(buffer, stringCount);
+    items = new Section(strings.end, itemCount, ITEM_INTS);
+    fixtures = new Section(items.end(), fixtureCount, FIXTURE_INTS);
+    puzzles = new Section(fixtures.end(), puzzleCount, PUZZLE_INTS);
+    monsters = new Section(puzzles.end(), monsterCount, MONSTER_INTS);
+    roomsAt = monsters.end();
+    refsAt = roomsAt + roomCount * ROOM_INTS * 4;
+    roomIndexAt = refsAt + refCount * 4;
+    int indexAt = roomIndexAt + roomCount * 8;
+    for (Section section : new Section[] {items, fixtures, puzzles, monsters}) {
+      section.indexAt = indexAt;
+      indexAt += section.count * 8;
+    }
+    if (indexAt != buffer.limit()) {
+      throw new IllegalStateException("corrupt world image, size mismatch");
+    }
+    name = strings.get(nameId);
+    version = strings.get(versionId);
+  }
+
+  /**
+   * Path of the compiled image that belongs to a world JSON file.
+   *
+   * @param jsonPath path of the world JSON.
+   * @return the same path with ".json" replaced by ".world".
+   */
+  public static Path imagePathFor(String jsonPath) {
+    String name = jsonPath.endsWith(".json")
+            ? jsonPath.substring(0, jsonPath.length() - ".json".length()) : jsonPath;
+    return Path.of(name + ".world");
+  }
+
+  /**
+   * Opens the compiled image of a world as a map if there is one and it was compiled from this
+   * exact JSON. No room is read yet, and rooms read stay in memory like in a loaded map.
+   *
+   * @param jsonPath path of the world JSON.
+   * @return the map reading from the image, or null if the image is missing or stale.
+   * @throws IOException if reading the files fails.
+   */
+  public static LazyMap loadIfFresh(String jsonPath) throws IOException {
+    WorldImage image = openIfFresh(jsonPath);
+    return image == null ? null : image.newMap(Math.max(image.size(), 1));
+  }
+
+  /**
+   * Opens the compiled image of a world if there is one and it was compiled from this exact
+   * JSON, reading only its header.
+   *
+   * @param jsonPath path of the world JSON.
+   * @return the image, or null if it is missing or stale.
+   * @throws IOException if reading the files fails.
+   */
+  public static WorldImage openIfFresh(String jsonPath) throws IOException {
+    Path image = imagePathFor(jsonPath);
+    if (!Files.isRegularFile(image)) {
+      return null;
+    }
+    File json = new File(jsonPath);
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.remaining() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+            || buffer.getInt(4) != FORMAT_VERSION || buffer.getLong(LENGTH_AT) != json.length()) {
+      return null;
+    }
+    if (buffer.getLong(MODIFIED_AT) != json.lastModified()) {
+      // touched or copied since, only the content can tell
+      byte[] stored = new byte[HASH_BYTES];
+      buffer.get(HASH_AT, stored);
+      if (!Arrays.equals(stored, sourceHash(jsonPath))) {
+        return null;
+      }
+    }
+    return new WorldImage(buffer);
+  }
+
+  /**
+   * Compiles a world JSON into its binary image.
+   * The image is written to a temp file and moved into place.
+   *
+   * @param jsonPath path of the world JSON.
+   * @return path of the written image.
+   * @throws IOException if reading the JSON or writing the image fails.
+   */
+  public static Path compile(String jsonPath) throws IOException {
+    File json = new File(jsonPath);
+    long length = json.length();
+    long modified = json.lastModified();
+    byte[] hash = sourceHash(jsonPath);
+    Map map = LoadGameData.loadMap(jsonPath, false);
+    if (json.length() != length || json.lastModified() != modified) {
+      modified = 0; // changed while compiling, the hash decides every time
+    }
+    Path image = imagePathFor(jsonPath);
+    Path temp = image.resolveSibling(image.getFileName() + ".tmp");
+    Files.write(temp, write(map, length, modified, hash));
+    Files.move(temp, image, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return image;
+  }
+
+  /**
+   * SHA-256 of the world JSON file.
+   */
+  static byte[] sourceHash(String jsonPath) throws IOException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] chunk = new byte[64 * 1024];
+      try (InputStream in = Files.newInputStream(new File(jsonPath).toPath())) {
+        int read;
+        while ((read = in.read(chunk)) > 0) {
+          digest.update(chunk, 0, read);
+        }
+      }
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException("SHA-256 not available", e);
+    }
+  }
+
+  /**
+   * A map on this image.
+   *
+   * @param cachedRooms how many unchanged rooms the map keeps in memory at most.
+   * @return a map that reads its rooms from the image
+   */
+  public LazyMap newMap(int cachedRooms) {
+    LazyMap map = new LazyMap(this, cachedRooms, name, version);
+    map.setStrings(null); // every room is decoded once, there is nothing to share yet
+    return map;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  @Override
+  public int size() {
+    return roomCount;
+  }
+
+  @Override
+  public int numberAt(int position) {
+    return buffer.getInt(roomsAt + position * ROOM_INTS * 4 + 4);
+  }
+
+  @Override
+  public int positionOf(int roomNumber) {
+    int slot = firstSlot(roomIndexAt, roomCount, roomNumber);
+    return slot < 0 ? -1 : (int) buffer.getLong(roomIndexAt + slot * 8);
+  }
+
+  @Override
+  public Room loadRoom(int position, Entities entities) {
+    int at = roomsAt + position * ROOM_INTS * 4;
+    int puzzleId = buffer.getInt(at + 28);
+    int monsterId = buffer.getInt(at + 32);
+    int itemStart = buffer.getInt(at + 36);
+    int itemSize = buffer.getInt(at + 40);
+    int fixtureStart = buffer.getInt(at + 44);
+    int fixtureSize = buffer.getInt(at + 48);
+    List<Item> roomItems = new ArrayList<>(itemSize);
+    for (int j = 0; j < itemSize; j++) {
+      Item item = entities.get(Item.class,
+              items.nameOf(buffer.getInt(refsAt + (itemStart + j) * 4)));
+      if (item != null) {
+        roomItems.add(item);
+      }
+    }
+    List<Fixture> roomFixtures = new ArrayList<>(fixtureSize);
+    for (int j = 0; j < fixtureSize; j++) {
+      Fixture fixture = entities.get(Fixture.class,
+              fixtures.nameOf(buffer.getInt(refsAt + (fixtureStart + j) * 4)));
+      if (fixture != null) {
+        roomFixtures.add(fixture);
+      }
+    }
+    return new Room(strings.get(buffer.getInt(at)), buffer.getInt(at + 4),
+            strings.get(buffer.getInt(at + 8)), buffer.getInt(at + 12),
+            buffer.getInt(at + 16), buffer.getInt(at + 20), buffer.getInt(at + 24),
+            puzzleId < 0 ? null : entities.get(Puzzle.class, puzzles.nameOf(puzzleId)),
+            monsterId < 0 ? null : entities.get(Monster.class, monsters.nameOf(monsterId)),
+            roomItems, roomFixtures, strings.get(buffer.getInt(at + 52)));
+  }
+
+  @Override
+  public <T> T loadEntity(Class<T> type, String entityName) {
+    Object entity = null;
+    if (type == Item.class) {
+      int id = items.find(entityName);
+      entity = id < 0 ? null : readItem(id);
+    } else if (type == Fixture.class) {
+      int id = fixtures.find(entityName);
+      entity = id < 0 ? null : readFixture(id);
+    } else if (type == Puzzle.class) {
+      int id = puzzles.find(entityName);
+      entity = id < 0 ? null : readChallenge(puzzles.at(id), new Puzzle());
+    } else if (type == Monster.class) {
+      int id = monsters.find(entityName);
+      entity = id < 0 ? null : readMonster(id);
+    }
+    return type.cast(entity);
+  }
+
+  // ---------------------------------------------------------------- writing
+
+  private static byte[] write(Map map, long sourceLength, long sourceModified, byte[] hash)
+          throws IOException {
+    StringTable strings = new StringTable();
+    // entities are collected by identity, rooms sharing an item share one record
+    IdentityHashMap<Object, Integer> ids = new IdentityHashMap<>();
+    List<Item> items = new ArrayList<>();
+    List<Fixture> fixtures = new ArrayList<>();
+    List<Puzzle> puzzles = new ArrayList<>();
+    List<Monster> monsters = new ArrayList<>();
+    int refCount = 0;
+    for (Room room : map.getRooms()) {
+      for (Item item : room.getItem()) {
+        collect(item, items, ids);
+      }
+      for (Fixture fixture : room.getFixtures()) {
+        collect(fixture, fixtures, ids);
+      }
+      if (room.getPuzzles() != null) {
+        collect(room.getPuzzles(), puzzles, ids);
+      }
+      if (room.getMonsters() != null) {
+        collect(room.getMonsters(), monsters, ids);
+      }
+      refCount += room.getItem().size() + room.getFixtures().size();
+    }
+
+    ByteArrayOutputStream records = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(records);
+    for (Item item : items) {
+      out.writeInt(strings.id(item.getName()));
+      out.writeInt(item.getWeight());
+      out.writeInt(item.getMax_uses());
+      out.writeInt(item.getUses_remaining());
+      out.writeInt(item.getValue());
+      out.writeInt(strings.id(item.getWhen_used()));
+      out.writeInt(strings.id(item.getDescription()));
+      out.writeInt(strings.id(item.getPicture()));
+    }
+    for (Fixture fixture : fixtures) {
+      out.writeInt(strings.id(fixture.getName()));
+      out.writeInt(fixture.getWeight());
+      out.writeInt(strings.id(fixture.getPuzzle()));
+      out.writeInt(strings.id(fixture.getStates()));
+      out.writeInt(strings.id(fixture.getDescription()));
+      out.writeInt(strings.id(fixture.getPicture()));
+    }
+    for (Puzzle puzzle : puzzles) {
+      writeChallenge(out, puzzle, strings);
+    }
+    for (Monster monster : monsters) {
+      writeChallenge(out, monster, strings);
+      out.writeInt(monster.getDamage());
+      out.writeInt(strings.id(monster.getAttack()));
+    }
+    int refStart = 0;
+    for (Room room : map.getRooms()) {
+      out.writeInt(strings.id(room.getRoom_name()));
+      out.writeInt(room.getRoom_number());
+      out.writeInt(strings.id(room.getOriginalDescription()));
+      out.writeInt(room.getN());
+      out.writeInt(room.getS());
+      out.writeInt(room.getE());
+      out.writeInt(room.getW());
+      out.writeInt(room.getPuzzles() == null ? -1 : ids.get(room.getPuzzles()));
+      out.writeInt(room.getMonsters() == null ? -1 : ids.get(room.getMonsters()));
+      out.writeInt(refStart);
+      out.writeInt(room.getItem().size());
+      out.writeInt(refStart + room.getItem().size());
+      out.writeInt(room.getFixtures().size());
+      out.writeInt(strings.id(room.getPicture()));
+      refStart += room.getItem().size() + room.getFixtures().size();
+    }
+    for (Room room : map.getRooms()) {
+      for (Item item : room.getItem()) {
+        out.writeInt(ids.get(item));
+      }
+      for (Fixture fixture : room.getFixtures()) {
+        out.writeInt(ids.get(fixture));
+      }
+    }
+    List<Room> rooms = map.getRooms();
+    long[] byNumber = new long[rooms.size()];
+    for (int i = 0; i < byNumber.length; i++) {
+      byNumber[i] = entry(rooms.get(i).getRoom_number(), i);
+    }
+    writeIndex(out, byNumber);
+    writeIndex(out, byName(items, Item::getName));
+    writeIndex(out, byName(fixtures, Fixture::getName));
+    writeIndex(out, byName(puzzles, Challenge::getName));
+    writeIndex(out, byName(monsters, Challenge::getName));
+    out.flush();
+
+    // the map name and version are the first two strings
+    int nameId = strings.id(map.getName());
+    int versionId = strings.id(map.getVersion());
+
+    ByteArrayOutputStream image = new ByteArrayOutputStream();
+    DataOutputStream header = new DataOutputStream(image);
+    header.writeInt(MAGIC);
+    header.writeInt(FORMAT_VERSION);
+    header.writeLong(sourceLength);
+    header.writeLong(sourceModified);
+    header.write(hash);
+    header.writeInt(nameId);
+    header.writeInt(versionId);
+    header.writeInt(strings.size());
+    header.writeInt(items.size());
+    header.writeInt(fixtures.size());
+    header.writeInt(puzzles.size());
+    header.writeInt(monsters.size());
+    header.writeInt(map.getRooms().size());
+    header.writeInt(refCount);
+    strings.writeTo(header);
+    records.writeTo(header);
+    header.flush();
+    return image.toByteArray();
+  }
+
+  private static <T> void collect(T entity, List<T> list, IdentityHashMap<Object, Integer> ids) {
+    if (!ids.containsKey(entity)) {
+      ids.put(entity, list.size());
+      list.add(entity);
+    }
+  }
+
+  private static <T> long[] byName(List<T> entities, Function<T, String> name) {
+    long[] index = new long[entities.size()];
+    for (int i = 0; i < index.length; i++) {
+      index[i] = entry(hash(name.apply(entities.get(i))), i);
+    }
+    return index;
+  }
+
+  private static long entry(int key, int position) {
+    return (long) key << 32 | position;
+  }
+
+  private static void writeIndex(DataOutputStream out, long[] index) throws IOException {
+    Arrays.sort(index); // by key, equal keys by position
+    for (long entry : index) {
+      out.writeLong(entry);
+    }
+  }
+
+  private static void writeChallenge(DataOutputStream out, Challenge challenge, StringTable strings)
+          throws IOException {
+    int flags = (challenge.isActive() ? ACTIVE : 0)
+            | (challenge.isAffects_target() ? AFFECTS_TARGET : 0)
+            | (challenge.isAffects_player() ? AFFECTS_PLAYER : 0)
+            | (challenge instanceof Monster && ((Monster) challenge).isCan_attack() ? CAN_ATTACK : 0);
+    out.writeInt(strings.id(challenge.getName()));
+    out.writeInt(flags);
+    out.writeInt(strings.id(challenge.getSolution()));
+    out.writeInt(challenge.getValue());
+    out.writeInt(strings.id(challenge.getDescription()));
+    out.writeInt(strings.id(challenge.getEffects()));
+    out.writeInt(strings.id(challenge.getTarget()));
+    out.writeInt(strings.id(challenge.getPicture()));
+  }
+
+  /**
+   * Deduplicating string table, every distinct string is stored once.
+   */
+  private static class StringTable {
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final List<byte[]> values = new ArrayList<>();
+
+    int id(String value) {
+      if (value == null) {
+        return -1;
+      }
+      Integer id = ids.get(value);
+      if (id == null) {
+        id = values.size();
+        ids.put(value, id);
+        values.add(value.getBytes(StandardCharsets.UTF_8));
+      }
+      return id;
+    }
+
+    int size() {
+      return values.size();
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+      int offset = 0;
+      out.writeInt(offset);
+      for (byte[] value : values) {
+        offset += value.length;
+        out.writeInt(offset);
+      }
+      for (byte[] value : values) {
+        out.write(value);
+      }
+    }
+  }
+
+  // ---------------------------------------------------------------- reading
+
+  private Item readItem(int id) {
+    int at = items.at(id);
+    Item item = new Item();
+    item.setName(strings.get(buffer.getInt(at)));
+    item.setWeight(buffer.getInt(at + 4));
+    item.setMax_uses(buffer.getInt(at + 8));
+    item.setUses_remaining(buffer.getInt(at + 12));
+    item.setValue(buffer.getInt(at + 16));
+    item.setWhen_used(strings.get(buffer.getInt(at + 20)));
+    item.setDescription(strings.get(buffer.getInt(at + 24)));
+    item.setPicture(strings.get(buffer.getInt(at + 28)));
+    return item;
+  }
+
+  private Fixture readFixture(int id) {
+    int at = fixtures.at(id);
+    Fixture fixture = new Fixture();
+    fixture.setName(strings.get(buffer.getInt(at)));
+    fixture.setWeight(buffer.getInt(at + 4));
+    fixture.setPuzzle(strings.get(buffer.getInt(at + 8)));
+    fixture.setStates(strings.get(buffer.getInt(at + 12)));
+    fixture.setDescription(strings.get(buffer.getInt(at + 16)));
+    fixture.setPicture(strings.get(buffer.getInt(at + 20)));
+    return fixture;
+  }
+
+  private Monster readMonster(int id) {
+    int at = monsters.at(id);
+    Monster monster = readChallenge(at, new Monster());
+    monster.setCan_attack((buffer.getInt(at + 4) & CAN_ATTACK) != 0);
+    monster.setDamage(buffer.getInt(at + 32));
+    monster.setAttack(strings.get(buffer.getInt(at + 36)));
+    return monster;
+  }
+
+  private <T extends Challenge> T readChallenge(int at, T challenge) {
+    int flags = buffer.getInt(at + 4);
+    challenge.setName(strings.get(buffer.getInt(at)));
+    challenge.setActive((flags & ACTIVE) != 0);
+    challenge.setAffects_target((flags & AFFECTS_TARGET) != 0);
+    challenge.setAffects_player((flags & AFFECTS_PLAYER) != 0);
+    challenge.setSolution(strings.get(buffer.getInt(at + 8)));
+    challenge.setValue(buffer.getInt(at + 12));
+    challenge.setDescription(strings.get(buffer.getInt(at + 16)));
+    challenge.setEffects(strings.get(buffer.getInt(at + 20)));
+    challenge.setTarget(strings.get(buffer.getInt(at + 24)));
+    challenge.setPicture(strings.get(buffer.getInt(at + 28)));
+    return challenge;
+  }
+
+  // slot of the first index entry with this key, -1 if none
+  private int firstSlot(int indexAt, int count, int key) {
+    long target = (long) key << 32;
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (buffer.getLong(indexAt + middle * 8) < target) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low < count && (int) (buffer.getLong(indexAt + low * 8) >> 32) == key ? low : -1;
+  }
+
+  private static String key(String entityName) {
+    return entityName.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static int hash(String entityName) {
+    return entityName == null ? 0 : key(entityName).hashCode();
+  }
+
+  /**
+   * The records of one kind of entity and their index by name.
+   */
+  private class Section {
+    final int start;
+    final int count;
+    final int bytes;
+    int indexAt;
+
+    Section(int start, int count, int ints) {
+      this.start = start;
+      this.count = count;
+      this.bytes = ints * 4;
+    }
+
+    int end() {
+      return start + count * bytes;
+    }
+
+    int at(int id) {
+      return start + id * bytes;
+    }
+
+    // every record starts with the name
+    String nameOf(int id) {
+      return strings.get(buffer.getInt(at(id)));
+    }
+
+    // first record with this name ignoring case, -1 if none; hashes are checked by name
+    int find(String entityName) {
+      if (entityName == null) {
+        return -1;
+      }
+      String key = key(entityName);
+      int hash = key.hashCode();
+      for (int slot = firstSlot(indexAt, count, hash); slot >= 0 && slot < count; slot++) {
+        long entry = buffer.getLong(indexAt + slot * 8);
+        if ((int) (entry >> 32) != hash) {
+          break;
+        }
+        String found = nameOf((int) entry);
+        if (found != null && key.equals(key(found))) {
+          return (int) entry;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * String table view over the mapped buffer, a string is decoded every time it is read.
+   */
+  private static class Strings {
+    private final ByteBuffer buffer;
+    private final int offsets;
+    private final int blob;
+    final int end;
+
+    Strings(ByteBuffer buffer, int count) {
+      this.buffer = buffer;
+      this.offsets = buffer.position();
+      this.blob = offsets + (count + 1) * 4;
+      this.end = blob + buffer.getInt(offsets + count * 4);
+    }
+
+    String get(int id) {
+      if (id < 0) {
+        return null;
+      }
+      int from = buffer.getInt(offsets + id * 4);
+      int to = buffer.getInt(offsets + (id + 1) * 4);
+      byte[] bytes = new byte[to - from];
+      buffer.get(blob + from, bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+}
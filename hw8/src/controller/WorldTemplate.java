@@ -0,0 +1,202 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import model.*;
+
+/**
+ * A world file parsed once and shared, read-only, by every session that plays it.
+ * A session is a model.LazyMap over the template: it starts without any rooms, makes a room
+ * from the template's record the first time it goes there and keeps only what it changed
+ * (items moved, puzzles and monsters beaten, exits opened) pinned, see LazyMap. Starting a
+ * session costs a few empty tables instead of a parse of the file or a copy of every room.
+ *
+ * Rooms of a session get copies of the items, puzzles and monsters they name; fixtures and
+ * all text are the template's. Templates are cached by file and parsed again once the file
+ * changed (size or modification time). A cached template stays as long as a session plays
+ * on it, and after that as long as memory allows.
+ */
+public class WorldTemplate implements RoomSource {
+  private static final int SESSION_ROOMS = 64;
+  private static final HashMap<String, SoftReference<WorldTemplate>> TEMPLATES = new HashMap<>();
+
+  private final long length;
+  private final long modified;
+  private final String name;
+  private final String version;
+  private final LoadGameData.RoomRecord[] rooms;
+  private final HashMap<Integer, Integer> positions = new HashMap<>(); // room number -> position
+  private final EntityIndex entities;
+  private final StringPool strings = new StringPool();
+
+  private WorldTemplate(File file) throws IOException {
+    length = file.length();
+    modified = file.lastModified();
+    GameData gameData = new GameData();
+    List<LoadGameData.RoomRecord> records = new ArrayList<>();
+    LoadGameData.readWorld(file.getPath(), gameData, records);
+    name = strings.intern(gameData.getName());
+    version = strings.intern(gameData.getVersion());
+    rooms = records.toArray(new LoadGameData.RoomRecord[0]);
+    for (int position = 0; position < rooms.length; position++) {
+      LoadGameData.RoomRecord record = rooms[position];
+      record.name = strings.intern(record.name);
+      record.description = strings.intern(record.description);
+      record.picture = strings.intern(record.picture);
+      positions.putIfAbsent(record.number, position);
+    }
+    // the originals are only ever copied, clean so the copies start out clean
+    if (gameData.getItems() != null) {
+      for (Item item : gameData.getItems()) {
+        item.internStrings(strings);
+        item.clearDirty();
+      }
+    }
+    if (gameData.getFixtures() != null) {
+      for (Fixture fixture : gameData.getFixtures()) {
+        fixture.internStrings(strings);
+      }
+    }
+    if (gameData.getPuzzles() != null) {
+      for (Puzzle puzzle : gameData.getPuzzles()) {
+        puzzle.internStrings(strings);
+        puzzle.clearDirty();
+      }
+    }
+    if (gameData.getMonsters() != null) {
+      for (Monster monster : gameData.getMonsters()) {
+        monster.internStrings(strings);
+        monster.clearDirty();
+      }
+    }
+    entities = gameData.getIndex();
+  }
+
+  /**
+   * The template of a world file, parsed now unless a template of the file as it is now is
+   * cached.
+   *
+   * @param pathname path of the world JSON file.
+   * @return the shared template
+   * @throws IOException if the file can't be read.
+   */
+  public static synchronized WorldTemplate of(String pathname) throws IOException {
+    WorldTemplate template = cached(pathname);
+    if (template == null) {
+      File file = new File(pathname);
+      template = new WorldTemplate(file);
+      TEMPLATES.put(key(file), new SoftReference<>(template));
+    }
+    return template;
+  }
+
+  /**
+   * The cached template of a world file, without parsing it.
+   *
+   * @param pathname path of the world JSON file.
+   * @return the template, or null if none is cached for the file as it is now
+   */
+  public static synchronized WorldTemplate cached(String pathname) {
+    File file = new File(pathname);
+    SoftReference<WorldTemplate> ref = TEMPLATES.get(key(file));
+    WorldTemplate template = ref == null ? null : ref.get();
+    if (template != null
+            && (template.length != file.length() || template.modified != file.lastModified())) {
+      template = null; // the file changed, sessions still on the old template keep it
+    }
+    return template;
+  }
+
+  private static String key(File file) {
+    return file.getAbsoluteFile().toPath().normalize().toString();
+  }
+
+  /**
+   * A new game session on this world, keeping the usual number of unchanged rooms.
+   *
+   * @return a map of its own, sharing everything unchanged with the template
+   */
+  public LazyMap newSession() {
+    return newSession(SESSION_ROOMS);
+  }
+
+  /**
+   * A new game session on this world.
+   *
+   * @param cachedRooms how many unchanged rooms the session keeps at most, others are made
+   *                    again from the template.
+   * @return a map of its own, sharing everything unchanged with the template
+   */
+  public LazyMap newSession(int cachedRooms) {
+    LazyMap session = new LazyMap(this, cachedRooms, name, version);
+    session.setStrings(strings); // text of the template is pooled already
+    return session;
+  }
+
+  /**
+   * A copy of an item of the world, e.g. for the inventory of a loaded player.
+   *
+   * @param itemName the item name, ignoring case.
+   * @return a new item, or null if the world has no such item
+   */
+  public Item newItem(String itemName) {
+    Item item = entities.findItem(itemName);
+    return item == null ? null : item.copy();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  @Override
+  public StringPool getStrings() {
+    return strings;
+  }
+
+  @Override
+  public int size() {
+    return rooms.length;
+  }
+
+  @Override
+  public int numberAt(int position) {
+    return rooms[position].number;
+  }
+
+  @Override
+  public int positionOf(int roomNumber) {
+    Integer position = positions.get(roomNumber);
+    return position == null ? -1 : position;
+  }
+
+  @Override
+  public Room loadRoom(int position, Entities entities) {
+    return LoadGameData.createRoom(rooms[position], entities);
+  }
+
+  @Override
+  public <T> T loadEntity(Class<T> type, String entityName) {
+    Object entity = null;
+    if (type == Item.class) {
+      entity = newItem(entityName);
+    } else if (type == Fixture.class) {
+      entity = entities.findFixture(entityName); // never changed by playing, shared
+    } else if (type == Puzzle.class) {
+      Puzzle puzzle = entities.findPuzzle(entityName);
+      entity = puzzle == null ? null : puzzle.copy();
+    } else if (type == Monster.class) {
+      Monster monster = entities.findMonster(entityName);
+      entity = monster == null ? null : monster.copy();
+    }
+    return type.cast(entity);
+  }
+}
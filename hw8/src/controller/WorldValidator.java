@@ -0,0 +1,706 @@
+package controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+import model.*;
+
+/**
+ * Checks a world file for the mistakes loading passes over without a word: exits to room
+ * numbers that don't exist, rooms naming items, fixtures, puzzles or monsters that are not
+ * defined (LoadGameData just drops them), names and room numbers used twice (the first one
+ * wins), rooms that can't be reached from the first room and challenges nobody can solve.
+ *
+ * The checks of every room and entity are split over a ForkJoinPool, CHUNK at a time, and the
+ * problems come back in file order whatever the number of threads. Reachability is one walk
+ * from the first room: the blocked exits of a room open once one of its challenges can be
+ * solved with what was reached so far, a text answer or an item lying in a reached room.
+ * How much the player can carry and items used up on the way are not taken into account.
+ */
+public class WorldValidator {
+  private static final int CHUNK = 4096; // rooms or entities checked by one fork-join task
+  private static final String[] DIRECTIONS = {"N", "S", "E", "W"};
+  private static final int[] NONE = {};
+
+  private final ForkJoinPool pool;
+
+  /**
+   * How bad a problem is. Errors make the game lose content or fail, warnings may be on purpose.
+   */
+  public enum Severity {
+    ERROR, WARNING
+  }
+
+  /**
+   * What kind of problem was found.
+   */
+  public enum Kind {
+    /** a name or room number that refers to nothing. */
+    DANGLING,
+    /** a name or room number defined twice, only the first one is used. */
+    DUPLICATE,
+    /** a room the player can never get to. */
+    UNREACHABLE,
+    /** a challenge or blocked exit nobody can get past. */
+    UNSOLVABLE,
+    /** something defined that is never placed in a room. */
+    UNUSED
+  }
+
+  /**
+   * Validator running its checks on the common fork-join pool.
+   */
+  public WorldValidator() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param pool pool the checks are split over.
+   */
+  public WorldValidator(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Reads a world file the way LoadGameData does and checks it.
+   *
+   * @param pathname the world JSON file.
+   * @return every problem found.
+   * @throws IOException if the file can't be read or is not a world file.
+   */
+  public Report validate(String pathname) throws IOException {
+    long start = System.nanoTime();
+    GameData gameData = new GameData();
+    List<LoadGameData.RoomRecord> roomRecords = new ArrayList<>();
+    LoadGameData.readWorld(pathname, gameData, roomRecords);
+    long read = System.nanoTime();
+    Report report = new Run(gameData, roomRecords).check();
+    report.readNanos = read - start;
+    report.checkNanos = System.nanoTime() - read;
+    return report;
+  }
+
+  /**
+   * One problem in a world.
+   */
+  public static class Problem {
+    private final Severity severity;
+    private final Kind kind;
+    private final String where;
+    private final String message;
+
+    Problem(Severity severity, Kind kind, String where, String message) {
+      this.severity = severity;
+      this.kind = kind;
+      this.where = where;
+      this.message = message;
+    }
+
+    public Severity getSeverity() {
+      return severity;
+    }
+
+    public Kind getKind() {
+      return kind;
+    }
+
+    /**
+     * @return the room or entity with the problem, e.g. "room 4 (Spooky Library)".
+     */
+    public String getWhere() {
+      return where;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String toString() {
+      return severity + " " + kind.name().toLowerCase(Locale.ROOT) + " " + where + ": " + message;
+    }
+  }
+
+  /**
+   * Everything found in one world, in file order: rooms first, then items, fixtures, puzzles
+   * and monsters, then what the walk from the first room found.
+   */
+  public static class Report {
+    private final List<Problem> problems;
+    private final int rooms;
+    private final int reachable;
+    private long readNanos;
+    private long checkNanos;
+
+    Report(List<Problem> problems, int rooms, int reachable) {
+      this.problems = Collections.unmodifiableList(problems);
+      this.rooms = rooms;
+      this.reachable = reachable;
+    }
+
+    public List<Problem> getProblems() {
+      return problems;
+    }
+
+    /**
+     * @param severity severity to count.
+     * @return number of problems of that severity.
+     */
+    public int count(Severity severity) {
+      int count = 0;
+      for (Problem problem : problems) {
+        if (problem.getSeverity() == severity) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * @return true if the world should not be published as it is.
+     */
+    public boolean hasErrors() {
+      return count(Severity.ERROR) > 0;
+    }
+
+    public int getRooms() {
+      return rooms;
+    }
+
+    /**
+     * @return number of rooms that can be reached from the first room.
+     */
+    public int getReachable() {
+      return reachable;
+    }
+
+    public long getReadNanos() {
+      return readNanos;
+    }
+
+    public long getCheckNanos() {
+      return checkNanos;
+    }
+  }
+
+  /**
+   * The state of checking one world.
+   */
+  private class Run {
+    private final List<LoadGameData.RoomRecord> rooms;
+    private final int n;
+    private final List<Item> items;
+    private final List<Fixture> fixtures;
+    private final List<Challenge> challenges = new ArrayList<>(); // puzzles, then monsters
+    private final int puzzleCount;
+    private final Names itemNames;
+    private final Names fixtureNames;
+    private final Names puzzleNames;
+    private final Names monsterNames;
+
+    // rooms by number: numbers sorted without repeats, roomOf the first room with each number,
+    // and when the numbers are close together roomAt[number - base] as well
+    private int[] numbers;
+    private int[] roomOf;
+    private int[] roomAt;
+    private int base;
+    // exits of room i are exitRoom[4 * i] .. exitRoom[4 * i + 3] in N, S, E, W order, -1 for none
+    private final int[] exitRoom;
+    private final boolean[] exitBlocked;
+    private final int[] roomPuzzle; // challenge index or -1
+    private final int[] roomMonster;
+    private final int[][] roomItems; // item indexes
+    private final int[] solutionItem; // item a challenge is solved with, -1 for none or unknown
+
+    // the walk from the first room
+    private boolean[] reached;
+    private boolean[] opened;
+    private boolean[] itemReached;
+    private boolean[] challengeReached;
+    private int[] queue;
+    private int tail;
+    private final List<Integer> woken = new ArrayList<>(); // rooms to try to open again
+    private final HashMap<Integer, List<Integer>> waiting = new HashMap<>(); // item -> rooms
+
+    Run(GameData gameData, List<LoadGameData.RoomRecord> rooms) {
+      this.rooms = rooms;
+      this.n = rooms.size();
+      this.items = orEmpty(gameData.getItems());
+      this.fixtures = orEmpty(gameData.getFixtures());
+      List<Puzzle> puzzles = orEmpty(gameData.getPuzzles());
+      List<Monster> monsters = orEmpty(gameData.getMonsters());
+      challenges.addAll(puzzles);
+      challenges.addAll(monsters);
+      puzzleCount = puzzles.size();
+      itemNames = new Names("item", items.size(), i -> items.get(i).getName());
+      fixtureNames = new Names("fixture", fixtures.size(), i -> fixtures.get(i).getName());
+      puzzleNames = new Names("puzzle", puzzles.size(), i -> puzzles.get(i).getName());
+      monsterNames = new Names("monster", monsters.size(), i -> monsters.get(i).getName());
+      exitRoom = new int[4 * n];
+      exitBlocked = new boolean[4 * n];
+      roomPuzzle = new int[n];
+      roomMonster = new int[n];
+      roomItems = new int[n][];
+      solutionItem = new int[challenges.size()];
+    }
+
+    Report check() {
+      List<Problem> problems = new ArrayList<>();
+      problems.addAll(indexRoomNumbers());
+      for (Names names : List.of(itemNames, fixtureNames, puzzleNames, monsterNames)) {
+        problems.addAll(names.index());
+      }
+      problems.addAll(sweep(n, this::checkRoom));
+      problems.addAll(sweep(fixtures.size(), this::checkFixture));
+      problems.addAll(sweep(challenges.size(), this::checkChallenge));
+      walk();
+      problems.addAll(sweep(n, this::checkReached));
+      problems.addAll(sweep(items.size(), (i, out) -> checkUsed(itemNames, i, out)));
+      problems.addAll(sweep(fixtures.size(), (i, out) -> checkUsed(fixtureNames, i, out)));
+      problems.addAll(sweep(challenges.size(), this::checkSolvable));
+      return new Report(problems, n, tail);
+    }
+
+    // sorts (number, room) pairs, repeats of a number after the first are duplicates
+    private List<Problem> indexRoomNumbers() {
+      long[] keyed = new long[n];
+      sweep(n, (i, out) -> keyed[i] = ((long) rooms.get(i).number << 32) | i);
+      pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(keyed)));
+      List<Problem> problems = new ArrayList<>();
+      int[] sorted = new int[n];
+      int[] first = new int[n];
+      int count = 0;
+      for (long key : keyed) {
+        int number = (int) (key >> 32);
+        int room = (int) key;
+        if (count > 0 && sorted[count - 1] == number) {
+          problems.add(new Problem(Severity.ERROR, Kind.DUPLICATE, room(room),
+                  "room number " + number + " is already used by " + room(first[count - 1])));
+        } else {
+          sorted[count] = number;
+          first[count] = room;
+          count++;
+        }
+      }
+      numbers = Arrays.copyOf(sorted, count);
+      roomOf = Arrays.copyOf(first, count);
+      if (count > 0 && (long) numbers[count - 1] - numbers[0] < 2L * count + 16) {
+        base = numbers[0];
+        roomAt = new int[numbers[count - 1] - base + 1];
+        Arrays.fill(roomAt, -1);
+        for (int k = 0; k < count; k++) {
+          roomAt[numbers[k] - base] = roomOf[k];
+        }
+      }
+      return problems;
+    }
+
+    private int roomByNumber(int number) {
+      if (roomAt != null) {
+        long slot = (long) number - base;
+        return slot < 0 || slot >= roomAt.length ? -1 : roomAt[(int) slot];
+      }
+      int found = Arrays.binarySearch(numbers, number);
+      return found < 0 ? -1 : roomOf[found];
+    }
+
+    private void checkRoom(int i, List<Problem> out) {
+      LoadGameData.RoomRecord record = rooms.get(i);
+      int puzzle = find(puzzleNames, record.puzzle, i, out);
+      int monster = find(monsterNames, record.monster, i, out);
+      roomPuzzle[i] = puzzle;
+      roomMonster[i] = monster < 0 ? -1 : puzzleCount + monster;
+      roomItems[i] = findAll(itemNames, record.items, i, out);
+      findAll(fixtureNames, record.fixtures, i, out);
+
+      int[] exits = {record.n, record.s, record.e, record.w};
+      boolean canOpen = isActive(roomPuzzle[i]) || isActive(roomMonster[i]);
+      for (int d = 0; d < exits.length; d++) {
+        int target = exits[d] == 0 ? -1 : roomByNumber(Math.abs(exits[d]));
+        exitRoom[4 * i + d] = target;
+        exitBlocked[4 * i + d] = exits[d] < 0;
+        if (exits[d] != 0 && target < 0) {
+          out.add(new Problem(Severity.ERROR, Kind.DANGLING, room(i),
+                  "exit " + DIRECTIONS[d] + " leads to room " + Math.abs(exits[d])
+                          + ", which does not exist"));
+        } else if (target >= 0 && exits[d] < 0 && !canOpen) {
+          out.add(new Problem(Severity.WARNING, Kind.UNSOLVABLE, room(i),
+                  "exit " + DIRECTIONS[d] + " is blocked and no challenge here can open it"));
+        }
+      }
+    }
+
+    private void checkFixture(int i, List<Problem> out) {
+      String puzzle = fixtures.get(i).getPuzzle();
+      if (puzzle != null && !puzzle.isBlank() && puzzleNames.first(puzzle) < 0) {
+        out.add(new Problem(Severity.WARNING, Kind.DANGLING, fixtureNames.label(i),
+                "puzzle '" + puzzle + "' is not defined"));
+      }
+    }
+
+    private void checkChallenge(int c, List<Problem> out) {
+      Challenge challenge = challenges.get(c);
+      String solution = challenge.getSolution();
+      solutionItem[c] = -1;
+      if (solution == null || solution.isBlank()) {
+        out.add(new Problem(Severity.ERROR, Kind.UNSOLVABLE, challenge(c), "has no solution"));
+      } else if (challenge.getSolutionKind() != Challenge.SolutionKind.TEXT) {
+        solutionItem[c] = itemNames.first(solution);
+        if (solutionItem[c] < 0 && challenge.getSolutionKind() == Challenge.SolutionKind.ITEM) {
+          out.add(new Problem(Severity.ERROR, Kind.DANGLING, challenge(c),
+                  "solution item '" + solution + "' is not defined"));
+        }
+      }
+
+      String target = challenge.getTarget();
+      if (target == null || target.isBlank()) {
+        return;
+      }
+      int colon = target.indexOf(':');
+      int room = -1;
+      try {
+        room = roomByNumber(Integer.parseInt(target.substring(0, Math.max(colon, 0)).trim()));
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+      if (room < 0) {
+        out.add(new Problem(Severity.WARNING, Kind.DANGLING, challenge(c),
+                "target '" + target + "' is not a room"));
+      } else if (!target.substring(colon + 1).trim().equalsIgnoreCase(rooms.get(room).name)) {
+        out.add(new Problem(Severity.WARNING, Kind.DANGLING, challenge(c),
+                "target '" + target + "' does not match the name of " + room(room)));
+      }
+    }
+
+    private void checkReached(int i, List<Problem> out) {
+      if (!reached[i]) {
+        out.add(new Problem(Severity.WARNING, Kind.UNREACHABLE, room(i),
+                "can't be reached from " + room(0)));
+      }
+    }
+
+    private void checkUsed(Names names, int i, List<Problem> out) {
+      // a duplicate is reported already, only the first one can be used
+      if (!names.used[i] && names.isFirst(i)) {
+        out.add(new Problem(Severity.WARNING, Kind.UNUSED, names.label(i), "is not in any room"));
+      }
+    }
+
+    private void checkSolvable(int c, List<Problem> out) {
+      Names names = c < puzzleCount ? puzzleNames : monsterNames;
+      int index = c < puzzleCount ? c : c - puzzleCount;
+      if (!names.used[index]) {
+        checkUsed(names, index, out);
+        return;
+      }
+      Challenge challenge = challenges.get(c);
+      int item = solutionItem[c];
+      if (!challengeReached[c] || !challenge.isActive()
+              || challenge.getSolutionKind() != Challenge.SolutionKind.ITEM || item < 0) {
+        return; // unreachable rooms and unknown items are reported already
+      }
+      if (!itemReached[item]) {
+        out.add(new Problem(Severity.ERROR, Kind.UNSOLVABLE, challenge(c),
+                "needs " + itemNames.label(item) + ", which can't be reached"));
+      } else if (!isUsable(item)) {
+        out.add(new Problem(Severity.ERROR, Kind.UNSOLVABLE, challenge(c),
+                "needs " + itemNames.label(item) + ", which has no uses left"));
+      }
+    }
+
+    // the walk from the first room, see the class comment
+    private void walk() {
+      reached = new boolean[n];
+      opened = new boolean[n];
+      itemReached = new boolean[items.size()];
+      challengeReached = new boolean[challenges.size()];
+      queue = new int[n];
+      if (n == 0) {
+        return;
+      }
+      reach(0);
+      int head = 0;
+      while (head < tail || !woken.isEmpty()) {
+        if (head == tail) {
+          tryToOpen(woken.remove(woken.size() - 1));
+          continue;
+        }
+        int room = queue[head++];
+        boolean blocked = false;
+        for (int exit = 4 * room; exit < 4 * room + 4; exit++) {
+          if (exitRoom[exit] >= 0 && !exitBlocked[exit]) {
+            reach(exitRoom[exit]);
+          }
+          blocked |= exitBlocked[exit];
+        }
+        if (blocked) {
+          tryToOpen(room);
+        }
+      }
+    }
+
+    private void reach(int room) {
+      if (reached[room]) {
+        return;
+      }
+      reached[room] = true;
+      queue[tail++] = room;
+      if (roomPuzzle[room] >= 0) {
+        challengeReached[roomPuzzle[room]] = true;
+      }
+      if (roomMonster[room] >= 0) {
+        challengeReached[roomMonster[room]] = true;
+      }
+      for (int item : roomItems[room]) {
+        if (!itemReached[item]) {
+          itemReached[item] = true;
+          List<Integer> rooms = waiting.remove(item);
+          if (rooms != null) {
+            woken.addAll(rooms);
+          }
+        }
+      }
+    }
+
+    // opens the blocked exits of a room, or waits for the items its challenges need
+    private void tryToOpen(int room) {
+      if (opened[room]) {
+        return;
+      }
+      int[] guards = {roomPuzzle[room], roomMonster[room]};
+      for (int c : guards) {
+        if (isActive(c) && canSolveNow(c)) {
+          opened[room] = true;
+          for (int exit = 4 * room; exit < 4 * room + 4; exit++) {
+            if (exitRoom[exit] >= 0 && exitBlocked[exit]) {
+              reach(exitRoom[exit]);
+            }
+          }
+          return;
+        }
+      }
+      for (int c : guards) {
+        int item = c < 0 ? -1 : solutionItem[c];
+        if (isActive(c) && item >= 0 && !itemReached[item]) {
+          waiting.computeIfAbsent(item, k -> new ArrayList<>()).add(room);
+        }
+      }
+    }
+
+    private boolean canSolveNow(int c) {
+      if (challenges.get(c).getSolutionKind() != Challenge.SolutionKind.ITEM) {
+        return true;
+      }
+      int item = solutionItem[c];
+      return item >= 0 && itemReached[item] && isUsable(item);
+    }
+
+    private boolean isActive(int c) {
+      return c >= 0 && challenges.get(c).isActive()
+              && challenges.get(c).getSolution() != null
+              && !challenges.get(c).getSolution().isBlank();
+    }
+
+    private boolean isUsable(int item) {
+      return items.get(item).getUses_remaining() >= 1;
+    }
+
+    // a name given by a room, marked used, -1 and a problem if it is not defined
+    private int find(Names names, String name, int room, List<Problem> out) {
+      if (name == null || name.isBlank()) {
+        return -1;
+      }
+      int index = names.first(name);
+      if (index < 0) {
+        out.add(new Problem(Severity.ERROR, Kind.DANGLING, room(room),
+                names.kind + " '" + name + "' is not defined"));
+      } else {
+        names.used[index] = true;
+      }
+      return index;
+    }
+
+    // resolves a comma separated list like EntityIndex.findItems, reporting what it would skip
+    private int[] findAll(Names names, String list, int room, List<Problem> out) {
+      if (list == null) {
+        return NONE;
+      }
+      String[] parts = list.split(",");
+      int[] found = new int[parts.length];
+      int count = 0;
+      for (String part : parts) {
+        int index = find(names, part.trim(), room, out);
+        if (index >= 0) {
+          found[count++] = index;
+        } else if (part.isBlank()) {
+          out.add(new Problem(Severity.WARNING, Kind.DANGLING, room(room),
+                  "empty name in the " + names.kind + " list '" + list + "'"));
+        }
+      }
+      return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    private String room(int i) {
+      return "room " + rooms.get(i).number + " (" + rooms.get(i).name + ")";
+    }
+
+    private String challenge(int c) {
+      return c < puzzleCount ? puzzleNames.label(c) : monsterNames.label(c - puzzleCount);
+    }
+  }
+
+  /**
+   * Names of one kind of entity by lower case name, the first one wins like in EntityIndex.
+   * Keys and their hashes are worked out in parallel, then put in an open addressing table of
+   * (hash, index) pairs in file order, so lookups don't box or chase map entries.
+   */
+  private class Names {
+    private final String kind;
+    private final int size;
+    private final IntFunction<String> names;
+    private final String[] keys; // lower case names, null for none
+    private final int[] hashes;
+    private long[] slots; // hash in the high half, index + 1 in the low half, 0 for empty
+    private final boolean[] used; // placed in a room
+
+    Names(String kind, int size, IntFunction<String> names) {
+      this.kind = kind;
+      this.size = size;
+      this.names = names;
+      this.keys = new String[size];
+      this.hashes = new int[size];
+      this.used = new boolean[size];
+    }
+
+    List<Problem> index() {
+      sweep(size, (i, out) -> {
+        if (name(i) != null) {
+          keys[i] = key(name(i));
+          hashes[i] = hash(keys[i]);
+        }
+      });
+      int capacity = 4;
+      while (capacity < 2 * size) {
+        capacity <<= 1;
+      }
+      slots = new long[capacity];
+      List<Problem> problems = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        if (keys[i] == null) {
+          problems.add(new Problem(Severity.WARNING, Kind.UNUSED, kind + " #" + (i + 1),
+                  "has no name, nothing can refer to it"));
+          continue;
+        }
+        int found = probe(keys[i], hashes[i]);
+        if (found >= 0) {
+          problems.add(new Problem(Severity.ERROR, Kind.DUPLICATE, label(i),
+                  "is defined again as " + kind + " #" + (i + 1) + ", only #"
+                          + (found + 1) + " is used"));
+        } else {
+          slots[-found - 1] = ((long) hashes[i] << 32) | (i + 1);
+        }
+      }
+      return problems;
+    }
+
+    int first(String name) {
+      String key = key(name);
+      int found = probe(key, hash(key));
+      return found < 0 ? -1 : found;
+    }
+
+    // false for a duplicate, which is never used
+    boolean isFirst(int i) {
+      return keys[i] != null && probe(keys[i], hashes[i]) == i;
+    }
+
+    // index of the entity with this key, or -1 - the empty slot where it would go
+    private int probe(String key, int hash) {
+      int mask = slots.length - 1;
+      for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+        long entry = slots[slot];
+        if (entry == 0) {
+          return -1 - slot;
+        }
+        int index = (int) entry - 1;
+        if ((int) (entry >>> 32) == hash && keys[index].equals(key)) {
+          return index;
+        }
+      }
+    }
+
+    String name(int i) {
+      return names.apply(i);
+    }
+
+    String label(int i) {
+      return kind + " '" + name(i) + "'";
+    }
+  }
+
+  /**
+   * Checks one index of a sweep, adding what it finds to the list.
+   */
+  private interface IndexCheck {
+    void check(int index, List<Problem> problems);
+  }
+
+  // runs a check for every index below count on the pool, problems in index order
+  private List<Problem> sweep(int count, IndexCheck check) {
+    return pool.invoke(new Sweep(check, 0, count));
+  }
+
+  private static class Sweep extends RecursiveTask<List<Problem>> {
+    private static final long serialVersionUID = 1L;
+
+    private final IndexCheck check;
+    private final int from;
+    private final int to;
+
+    Sweep(IndexCheck check, int from, int to) {
+      this.check = check;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<Problem> compute() {
+      if (to - from <= CHUNK) {
+        List<Problem> problems = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+          check.check(i, problems);
+        }
+        return problems;
+      }
+      int middle = (from + to) >>> 1;
+      Sweep left = new Sweep(check, from, middle);
+      left.fork();
+      List<Problem> right = new Sweep(check, middle, to).compute();
+      List<Problem> problems = left.join();
+      problems.addAll(right);
+      return problems;
+    }
+  }
+
+  private static <T> List<T> orEmpty(List<T> list) {
+    return list == null ? List.of() : list;
+  }
+
+  private static String key(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  private static int hash(String key) {
+    int hash = key.hashCode() * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -2,11 +2,42 @@ package enginedriver;
 
 import java.nio.file.*;
 import java.io.File;
+import java.io.IOException;
 import java.util.Scanner;
 
 import controller.*;
 
 public class GameEngineApp {
+  private String worldPath;
+  private Readable input;
+  private Appendable output;
+
+  public GameEngineApp() {
+  }
+
+  /**
+   * Engine for one headless session on the given world, no console or Swing needed.
+   *
+   * @param worldPath path of the world JSON file.
+   * @param input     where commands are read from.
+   * @param output    where messages are written to.
+   */
+  public GameEngineApp(String worldPath, Readable input, Appendable output) {
+    this.worldPath = worldPath;
+    this.input = input;
+    this.output = output;
+  }
+
+  /**
+   * Runs the headless session until the player quits or the input ends.
+   *
+   * @throws IOException if the world file can't be read.
+   */
+  public void start() throws IOException {
+    GameController controller = new GameController(worldPath, input, output);
+    controller.gameLoop();
+  }
+
   public void start(String path) {
     try {
       // get the path to the saves directory
@@ -0,0 +1,41 @@
+package enginedriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import controller.WorldImage;
+
+/**
+ * Compiles world JSON files into binary images (see controller.WorldImage)
+ * that the engine loads instead of the JSON while the two match.
+ *
+ * Usage: java enginedriver.WorldCompiler (world.json | directory) ...
+ */
+public class WorldCompiler {
+  public static void main(String[] args) {
+    if (args.length == 0) {
+      System.out.println("Usage: WorldCompiler (world.json | directory) ...");
+      return;
+    }
+    for (String arg : args) {
+      File file = new File(arg);
+      File[] worlds = file.isDirectory()
+              ? file.listFiles((dir, name) -> name.endsWith(".json"))
+              : new File[] {file};
+      if (worlds == null) {
+        continue;
+      }
+      for (File world : worlds) {
+        try {
+          long start = System.nanoTime();
+          Path image = WorldImage.compile(world.getPath());
+          System.out.printf("%s -> %s (%d bytes, %.1f ms)%n", world.getPath(), image,
+                  image.toFile().length(), (System.nanoTime() - start) / 1e6);
+        } catch (IOException | RuntimeException e) {
+          System.out.println("Could not compile " + world.getPath() + ": " + e.getMessage());
+        }
+      }
+    }
+  }
+}
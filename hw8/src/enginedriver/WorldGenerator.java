@@ -0,0 +1,360 @@
+package enginedriver;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Generates world JSON files in the same format as the bundled worlds, for scale and soak tests.
+ *
+ * Rooms are laid out on a square grid. Every room is linked west-to-east along its row and
+ * the first column is linked south-to-north, so the whole world is always connected; the other
+ * grid links are kept with the given connectivity. Rooms with a puzzle or monster get some of
+ * their exits blocked (negative), which the challenge opens up once solved.
+ *
+ * The output is written as a stream: every section is generated again from the seed, room by
+ * room, so memory use does not depend on the number of rooms.
+ *
+ * Usage: java enginedriver.WorldGenerator out.json [--rooms n] [--seed n] [--connectivity p]
+ *        [--blocked p] [--puzzles p] [--monsters p] [--items n] [--fixtures n] [--description n]
+ */
+public class WorldGenerator {
+  private static final String[] WORDS = {
+      "dusty", "quiet", "narrow", "old", "bright", "cold", "hidden", "long", "round", "wooden",
+      "stone", "hall", "lamp", "window", "door", "corridor", "shelf", "painting", "floor", "wall",
+      "the", "a", "with", "and", "near", "under", "beside", "smells", "of", "rain"};
+
+  private int rooms = 1000;
+  private long seed = 42;
+  private double connectivity = 0.5;
+  private double blocked = 0.5;
+  private double puzzles = 0.1;
+  private double monsters = 0.05;
+  private int items = 2;
+  private int fixtures = 1;
+  private int descriptionLength = 120;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: WorldGenerator out.json [--rooms n] [--seed n] [--connectivity p]"
+              + " [--blocked p] [--puzzles p] [--monsters p] [--items n] [--fixtures n]"
+              + " [--description n]");
+      return;
+    }
+    WorldGenerator generator = new WorldGenerator();
+    for (int i = 1; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--rooms" -> generator.setRooms(Integer.parseInt(value));
+        case "--seed" -> generator.setSeed(Long.parseLong(value));
+        case "--connectivity" -> generator.setConnectivity(Double.parseDouble(value));
+        case "--blocked" -> generator.setBlocked(Double.parseDouble(value));
+        case "--puzzles" -> generator.setPuzzles(Double.parseDouble(value));
+        case "--monsters" -> generator.setMonsters(Double.parseDouble(value));
+        case "--items" -> generator.setItems(Integer.parseInt(value));
+        case "--fixtures" -> generator.setFixtures(Integer.parseInt(value));
+        case "--description" -> generator.setDescriptionLength(Integer.parseInt(value));
+        default -> throw new IllegalArgumentException("unknown option " + args[i]);
+      }
+    }
+    Path out = Paths.get(args[0]);
+    long start = System.nanoTime();
+    generator.write(out);
+    System.out.printf("%s: %d rooms, %d bytes, %.1f s%n", out, generator.rooms,
+            Files.size(out), (System.nanoTime() - start) / 1e9);
+  }
+
+  /**
+   * @param rooms number of rooms, at least 1.
+   */
+  public void setRooms(int rooms) {
+    if (rooms < 1) {
+      throw new IllegalArgumentException("rooms must be at least 1");
+    }
+    this.rooms = rooms;
+  }
+
+  /**
+   * @param seed seed of every random choice, the same seed gives the same file.
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * @param connectivity chance that a grid link outside the spanning links exists (0..1).
+   */
+  public void setConnectivity(double connectivity) {
+    this.connectivity = connectivity;
+  }
+
+  /**
+   * @param blocked chance that an exit of a room with a challenge is blocked (0..1).
+   */
+  public void setBlocked(double blocked) {
+    this.blocked = blocked;
+  }
+
+  /**
+   * @param puzzles chance that a room has a puzzle (0..1).
+   */
+  public void setPuzzles(double puzzles) {
+    this.puzzles = puzzles;
+  }
+
+  /**
+   * @param monsters chance that a room has a monster (0..1).
+   */
+  public void setMonsters(double monsters) {
+    this.monsters = monsters;
+  }
+
+  /**
+   * @param items number of items in each room.
+   */
+  public void setItems(int items) {
+    this.items = items;
+  }
+
+  /**
+   * @param fixtures number of fixtures in each room.
+   */
+  public void setFixtures(int fixtures) {
+    this.fixtures = fixtures;
+  }
+
+  /**
+   * @param descriptionLength approximate length of every description, in characters.
+   */
+  public void setDescriptionLength(int descriptionLength) {
+    this.descriptionLength = descriptionLength;
+  }
+
+  /**
+   * Writes the world to a file.
+   *
+   * @param out file to write, replaced if it exists.
+   * @throws IOException if writing fails.
+   */
+  public void write(Path out) throws IOException {
+    try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16)) {
+      write(stream);
+    }
+  }
+
+  /**
+   * Writes the world to a stream, the stream is not closed.
+   *
+   * @param out where the JSON goes.
+   * @throws IOException if writing fails.
+   */
+  public void write(OutputStream out) throws IOException {
+    JsonFactory factory = new JsonFactory();
+    factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    try (JsonGenerator json = factory.createGenerator(out, JsonEncoding.UTF8)) {
+      json.writeStartObject();
+      json.writeStringField("name", "Generated " + rooms);
+      json.writeStringField("version", "seed-" + seed);
+
+      json.writeArrayFieldStart("rooms");
+      for (int r = 1; r <= rooms; r++) {
+        writeRoom(json, r);
+      }
+      json.writeEndArray();
+
+      json.writeArrayFieldStart("items");
+      for (int r = 1; r <= rooms; r++) {
+        for (int i = 0; i < items; i++) {
+          writeItem(json, r, i);
+        }
+      }
+      json.writeEndArray();
+
+      json.writeArrayFieldStart("fixtures");
+      for (int r = 1; r <= rooms; r++) {
+        for (int f = 0; f < fixtures; f++) {
+          writeFixture(json, r, f);
+        }
+      }
+      json.writeEndArray();
+
+      json.writeArrayFieldStart("monsters");
+      for (int r = 1; r <= rooms; r++) {
+        if (hasMonster(r)) {
+          writeMonster(json, r);
+        }
+      }
+      json.writeEndArray();
+
+      json.writeArrayFieldStart("puzzles");
+      for (int r = 1; r <= rooms; r++) {
+        if (hasPuzzle(r)) {
+          writePuzzle(json, r);
+        }
+      }
+      json.writeEndArray();
+      json.writeEndObject();
+    }
+  }
+
+  private void writeRoom(JsonGenerator json, int r) throws IOException {
+    int width = width();
+    int column = (r - 1) % width;
+    int north = r + width <= rooms && (column == 0 || link(r, 'N')) ? r + width : 0;
+    int south = r - width >= 1 && (column == 0 || link(r - width, 'N')) ? r - width : 0;
+    int east = column + 1 < width && r + 1 <= rooms ? r + 1 : 0;
+    int west = column > 0 ? r - 1 : 0;
+    boolean guarded = hasPuzzle(r) || hasMonster(r);
+    SplittableRandom random = random(r, 'R');
+
+    json.writeStartObject();
+    json.writeStringField("room_name", roomName(r));
+    json.writeStringField("room_number", String.valueOf(r));
+    json.writeStringField("description", text(random));
+    json.writeStringField("N", exit(north, guarded, random));
+    json.writeStringField("S", exit(south, guarded, random));
+    json.writeStringField("E", exit(east, guarded, random));
+    json.writeStringField("W", exit(west, guarded, random));
+    json.writeStringField("puzzle", hasPuzzle(r) ? "Puzzle " + r : null);
+    json.writeStringField("monster", hasMonster(r) ? "Monster " + r : null);
+    json.writeStringField("items", items > 0 ? names("Item " + r + "-", items) : null);
+    json.writeStringField("fixtures", fixtures > 0 ? names("Fixture " + r + "-", fixtures) : null);
+    json.writeStringField("picture", null);
+    json.writeEndObject();
+  }
+
+  private void writeItem(JsonGenerator json, int r, int i) throws IOException {
+    SplittableRandom random = random(r * 31L + i, 'I');
+    int maxUses = 1 + random.nextInt(20);
+    json.writeStartObject();
+    json.writeStringField("name", "Item " + r + "-" + i);
+    json.writeStringField("weight", String.valueOf(1 + random.nextInt(5)));
+    json.writeStringField("max_uses", String.valueOf(maxUses));
+    json.writeStringField("uses_remaining", String.valueOf(1 + random.nextInt(maxUses)));
+    json.writeStringField("value", String.valueOf(random.nextInt(500)));
+    json.writeStringField("when_used", "You use item " + r + "-" + i + ".");
+    json.writeStringField("description", text(random));
+    json.writeStringField("picture", null);
+    json.writeEndObject();
+  }
+
+  private void writeFixture(JsonGenerator json, int r, int f) throws IOException {
+    SplittableRandom random = random(r * 31L + f, 'F');
+    json.writeStartObject();
+    json.writeStringField("name", "Fixture " + r + "-" + f);
+    json.writeStringField("weight", "1000");
+    json.writeStringField("puzzle", null);
+    json.writeStringField("states", null);
+    json.writeStringField("description", text(random));
+    json.writeStringField("picture", null);
+    json.writeEndObject();
+  }
+
+  private void writeMonster(JsonGenerator json, int r) throws IOException {
+    SplittableRandom random = random(r, 'M');
+    json.writeStartObject();
+    json.writeStringField("name", "Monster " + r);
+    json.writeStringField("active", "true");
+    json.writeStringField("affects_target", "true");
+    json.writeStringField("affects_player", "true");
+    json.writeStringField("solution", solution(r, random, false));
+    json.writeStringField("value", String.valueOf(random.nextInt(500)));
+    json.writeStringField("description", text(random));
+    json.writeStringField("effects", "A monster blocks the way in " + roomName(r) + "!");
+    json.writeStringField("damage", String.valueOf(-1 - random.nextInt(15)));
+    json.writeStringField("target", r + ":" + roomName(r));
+    json.writeStringField("can_attack", "true");
+    json.writeStringField("attack", "swipes at you!");
+    json.writeStringField("picture", null);
+    json.writeEndObject();
+  }
+
+  private void writePuzzle(JsonGenerator json, int r) throws IOException {
+    SplittableRandom random = random(r, 'P');
+    json.writeStartObject();
+    json.writeStringField("name", "Puzzle " + r);
+    json.writeStringField("active", "true");
+    json.writeStringField("affects_target", "true");
+    json.writeStringField("affects_player", "false");
+    json.writeStringField("solution", solution(r, random, true));
+    json.writeStringField("value", String.valueOf(random.nextInt(500)));
+    json.writeStringField("description", text(random));
+    json.writeStringField("effects", "A puzzle blocks the way in " + roomName(r) + ".");
+    json.writeStringField("target", r + ":" + roomName(r));
+    json.writeStringField("picture", null);
+    json.writeEndObject();
+  }
+
+  // an item from an earlier room when there is one, puzzles may also want a magic word
+  private String solution(int r, SplittableRandom random, boolean allowWord) {
+    if (items == 0 || r == 1 || (allowWord && random.nextBoolean())) {
+      return "'word " + r + "'";
+    }
+    return "Item " + (r - 1) + "-" + random.nextInt(items);
+  }
+
+  private String exit(int target, boolean guarded, SplittableRandom random) {
+    if (target != 0 && guarded && random.nextDouble() < blocked) {
+      return String.valueOf(-target);
+    }
+    return String.valueOf(target);
+  }
+
+  private boolean hasPuzzle(int r) {
+    return random(r, 'p').nextDouble() < puzzles;
+  }
+
+  private boolean hasMonster(int r) {
+    return !hasPuzzle(r) && random(r, 'm').nextDouble() < monsters;
+  }
+
+  // the link between room r and the room north of it, decided once for both sides
+  private boolean link(int r, char side) {
+    return random(r, side).nextDouble() < connectivity;
+  }
+
+  private int width() {
+    return (int) Math.ceil(Math.sqrt(rooms));
+  }
+
+  private SplittableRandom random(long key, char stream) {
+    return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + key * 131 + stream);
+  }
+
+  private String text(SplittableRandom random) {
+    StringBuilder sb = new StringBuilder(descriptionLength + 16);
+    while (sb.length() < descriptionLength) {
+      if (sb.length() > 0) {
+        sb.append(' ');
+      }
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    if (sb.length() > 0) {
+      sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+      sb.append('.');
+    }
+    return sb.toString();
+  }
+
+  private static String roomName(int r) {
+    return "Room " + r;
+  }
+
+  private static String names(String prefix, int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append(prefix).append(i);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,81 @@
+package enginedriver;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.concurrent.ForkJoinPool;
+
+import controller.WorldValidator;
+
+/**
+ * Checks world JSON files with controller.WorldValidator and prints what it finds, e.g. before
+ * a world is published. Exits with status 1 if any world has errors or can't be read.
+ *
+ * Usage: java enginedriver.WorldLinter [--threads n] [--limit n] [--errors] world.json ...
+ *        --limit is the number of problems printed per world (default 100),
+ *        --errors leaves warnings out.
+ */
+public class WorldLinter {
+  public static void main(String[] args) {
+    int threads = Runtime.getRuntime().availableProcessors();
+    int limit = 100;
+    boolean errorsOnly = false;
+    boolean failed = false;
+    int worlds = 0;
+    ForkJoinPool pool = null;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--threads" -> threads = Integer.parseInt(args[++i]);
+        case "--limit" -> limit = Integer.parseInt(args[++i]);
+        case "--errors" -> errorsOnly = true;
+        default -> {
+          if (pool == null) {
+            pool = new ForkJoinPool(threads);
+          }
+          failed |= !lint(new WorldValidator(pool), args[i], limit, errorsOnly);
+          worlds++;
+        }
+      }
+    }
+    if (worlds == 0) {
+      System.out.println("Usage: WorldLinter [--threads n] [--limit n] [--errors] world.json ...");
+      return;
+    }
+    pool.shutdown();
+    if (failed) {
+      System.exit(1);
+    }
+  }
+
+  // prints the problems of one world, false if it has errors
+  private static boolean lint(WorldValidator validator, String path, int limit,
+                              boolean errorsOnly) {
+    WorldValidator.Report report;
+    try {
+      report = validator.validate(path);
+    } catch (IOException | RuntimeException e) {
+      System.out.println("Could not read " + path + ": " + e.getMessage());
+      return false;
+    }
+    int printed = 0;
+    EnumMap<WorldValidator.Kind, Integer> kinds = new EnumMap<>(WorldValidator.Kind.class);
+    for (WorldValidator.Problem problem : report.getProblems()) {
+      if (errorsOnly && problem.getSeverity() != WorldValidator.Severity.ERROR) {
+        continue;
+      }
+      kinds.merge(problem.getKind(), 1, Integer::sum);
+      if (printed++ < limit) {
+        System.out.println("  " + problem);
+      }
+    }
+    if (printed > limit) {
+      System.out.println("  ... " + (printed - limit) + " more");
+    }
+    System.out.printf("%s: %d rooms, %d reachable, %d errors, %d warnings %s"
+                    + " (read %.0f ms, checked %.0f ms)%n",
+            path, report.getRooms(), report.getReachable(),
+            report.count(WorldValidator.Severity.ERROR),
+            report.count(WorldValidator.Severity.WARNING), kinds,
+            report.getReadNanos() / 1e6, report.getCheckNanos() / 1e6);
+    return !report.hasErrors();
+  }
+}
@@ -20,10 +20,22 @@ public abstract class Challenge {
   protected boolean affects_player;
   protected String solution;
   protected int value;
-  protected String description;
+  protected CharSequence description; // may be packed, see StringPool
   protected String effects;
   protected String target;
   protected String picture;
+  protected boolean dirty; // active changed since the last save
+  // worked out once in setSolution, answers are compared against these
+  protected SolutionKind solutionKind = SolutionKind.ITEM;
+  protected String normalizedSolution = "";
+
+  /**
+   * How a challenge is solved. A text solution is in single quotes; one with a quote on only
+   * one side has always been accepted both as text and as an item name.
+   */
+  public enum SolutionKind {
+    ITEM, TEXT, EITHER
+  }
 
 
   // Getters
@@ -47,12 +59,23 @@ public abstract class Challenge {
     return solution;
   }
 
+  public SolutionKind getSolutionKind() {
+    return solutionKind;
+  }
+
+  /**
+   * @return the solution without punctuation and white space, what answers are compared with
+   */
+  public String getNormalizedSolution() {
+    return normalizedSolution;
+  }
+
   public int getValue() {
     return value;
   }
 
   public String getDescription() {
-    return description;
+    return StringPool.string(description);
   }
 
   public String getEffects() {
@@ -74,6 +97,7 @@ public abstract class Challenge {
 
   public void setActive(boolean active) {
     this.active = active;
+    this.dirty = true;
   }
 
   public void setAffects_target(boolean affects_target) {
@@ -86,6 +110,21 @@ public abstract class Challenge {
 
   public void setSolution(String solution) {
     this.solution = solution;
+    if (solution == null) {
+      this.solutionKind = SolutionKind.ITEM;
+      this.normalizedSolution = "";
+      return;
+    }
+    boolean opens = solution.startsWith("'");
+    boolean closes = solution.endsWith("'");
+    if (opens && closes) {
+      this.solutionKind = SolutionKind.TEXT;
+    } else if (opens || closes) {
+      this.solutionKind = SolutionKind.EITHER;
+    } else {
+      this.solutionKind = SolutionKind.ITEM;
+    }
+    this.normalizedSolution = normalize(solution);
   }
 
   public void setValue(int value) {
@@ -108,6 +147,132 @@ public abstract class Challenge {
     this.picture = picture;
   }
 
+  /**
+   * Whether this challenge was solved or changed since the last save.
+   * @return true if the challenge has to be saved again
+   */
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * Marks the challenge as changed since the last save.
+   */
+  public void markDirty() {
+    dirty = true;
+  }
+
+  /**
+   * Marks the challenge as saved.
+   */
+  public void clearDirty() {
+    dirty = false;
+  }
+
+  /**
+   * Copies every common attribute of another challenge into this one.
+   * @param other challenge to copy from
+   */
+  protected void copyFrom(Challenge other) {
+    this.name = other.name;
+    this.active = other.active;
+    this.affects_target = other.affects_target;
+    this.affects_player = other.affects_player;
+    this.solution = other.solution;
+    this.solutionKind = other.solutionKind;
+    this.normalizedSolution = other.normalizedSolution;
+    this.value = other.value;
+    this.description = other.description;
+    this.effects = other.effects;
+    this.target = other.target;
+    this.picture = other.picture;
+    this.dirty = other.dirty;
+  }
+
+  /**
+   * Replaces the text of this challenge with the pooled copies.
+   * @param strings the pool of the world
+   */
+  public void internStrings(StringPool strings) {
+    name = strings.intern(name);
+    solution = strings.intern(solution);
+    normalizedSolution = strings.intern(normalizedSolution);
+    description = strings.text(description);
+    effects = strings.intern(effects);
+    target = strings.intern(target);
+    picture = strings.intern(picture);
+  }
+
+  /**
+   * Whether the solution can be given as text.
+   * @return true unless the solution is an item name only
+   */
+  protected boolean acceptsText() {
+    return solutionKind != SolutionKind.ITEM;
+  }
+
+  /**
+   * Whether the solution can be given as an item.
+   * @return true unless the solution is a text only
+   */
+  protected boolean acceptsItem() {
+    return solutionKind != SolutionKind.TEXT;
+  }
+
+  /**
+   * Compares an answer with the solution, ignoring case, punctuation and white space.
+   * Walks both strings in place, nothing is allocated per answer.
+   * @param answer the player's answer
+   * @return true if the answer matches
+   */
+  protected boolean matchesAnswer(String answer) {
+    String expected = normalizedSolution;
+    int next = 0;
+    for (int i = 0; i < answer.length(); i++) {
+      char c = answer.charAt(i);
+      if (isIgnored(c)) {
+        continue;
+      }
+      if (next == expected.length() || !sameIgnoringCase(c, expected.charAt(next))) {
+        return false;
+      }
+      next++;
+    }
+    return next == expected.length();
+  }
+
+  /**
+   * Drops punctuation and white space, what "[\\p{Punct}\\s]" used to remove.
+   * @param text text to normalize
+   * @return the text without them
+   */
+  static String normalize(String text) {
+    StringBuilder sb = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (!isIgnored(c)) {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  // ASCII punctuation (\p{Punct}) and \s
+  private static boolean isIgnored(char c) {
+    return (c >= '!' && c <= '/') || (c >= ':' && c <= '@') || (c >= '[' && c <= '`')
+            || (c >= '{' && c <= '~') || c == ' ' || (c >= '\t' && c <= '\r');
+  }
+
+  // the per character rule of String.equalsIgnoreCase
+  private static boolean sameIgnoringCase(char a, char b) {
+    if (a == b) {
+      return true;
+    }
+    char upperA = Character.toUpperCase(a);
+    char upperB = Character.toUpperCase(b);
+    return upperA == upperB || Character.toLowerCase(upperA) == Character.toLowerCase(upperB);
+  }
+
   public abstract Integer solve(Item item);
 
   public abstract Integer solve(String magicWord);
@@ -109,4 +109,16 @@ public class Fixture {
   public void setPicture(String picture) {
     this.picture = picture;
   }
+
+  /**
+   * Replaces the text of this fixture with the pooled copies.
+   * @param strings the pool of the world
+   */
+  public void internStrings(StringPool strings) {
+    name = strings.intern(name);
+    puzzle = strings.intern(puzzle);
+    states = strings.intern(states);
+    description = strings.intern(description);
+    picture = strings.intern(picture);
+  }
 }
\ No newline at end of file
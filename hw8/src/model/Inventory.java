@@ -0,0 +1,357 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * The items a player carries, in the order they were picked up, with their total weight and
+ * value kept up to date and an index by name, so picking up, finding and dropping an item
+ * costs the same with ten items as with a million. Rooms keep their items in one too.
+ *
+ * The index by name is built on the first lookup by name and kept up to date from then on,
+ * a list nobody looks into by name doesn't pay for it. Removing an item leaves a hole that
+ * is closed later, all holes at once; looking an item up by position closes them first.
+ * Like List.remove, remove(Object) takes out the first item with the same name ignoring case,
+ * see Item.equals. Items without a name are kept but never found by name. Weight, value and name of an item are expected not to change while it is
+ * in the list.
+ */
+public class Inventory extends AbstractList<Item> implements RandomAccess {
+  private Item[] slots;
+  private int end; // slots in use, holes included
+  private int size;
+  private int closes; // times the holes were closed, iterators find their place again after
+  // lower case name -> slots of the items with that name, in order; null until needed
+  private HashMap<String, List<Integer>> byName;
+  private int weight;
+  private int value;
+
+  public Inventory() {
+    slots = new Item[8];
+  }
+
+  /**
+   * @param items the first items, in order.
+   */
+  public Inventory(Collection<Item> items) {
+    slots = new Item[Math.max(items.size(), 4)];
+    for (Item item : items) {
+      add(item);
+    }
+  }
+
+  /**
+   * @return the total weight of the items carried
+   */
+  public int getWeight() {
+    return weight;
+  }
+
+  /**
+   * @return the total value of the items carried
+   */
+  public int getValue() {
+    return value;
+  }
+
+  /**
+   * The first item with a name, ignoring case and surrounding white space.
+   *
+   * @param name the item name.
+   * @return the item, or null if none is carried.
+   */
+  public Item find(String name) {
+    if (name == null) {
+      return null;
+    }
+    List<Integer> named = index().get(key(name));
+    return named == null ? null : slots[named.get(0)];
+  }
+
+  /**
+   * Every item with a name, ignoring case and surrounding white space.
+   *
+   * @param name the item name.
+   * @return the items in list order, empty if there are none.
+   */
+  public List<Item> findAll(String name) {
+    List<Integer> named = name == null ? null : index().get(key(name));
+    if (named == null) {
+      return List.of();
+    }
+    List<Item> items = new ArrayList<>(named.size());
+    for (int slot : named) {
+      items.add(slots[slot]);
+    }
+    return items;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Item get(int index) {
+    checkIndex(index, size);
+    closeHoles();
+    return slots[index];
+  }
+
+  @Override
+  public boolean add(Item item) {
+    if (end == slots.length) {
+      closeHoles();
+      // room for at least as many adds as there are items before the holes are closed again
+      if (end > slots.length / 2) {
+        slots = Arrays.copyOf(slots, slots.length * 2);
+      }
+    }
+    put(end++, item);
+    size++;
+    modCount++;
+    return true;
+  }
+
+  @Override
+  public void add(int index, Item item) {
+    checkIndex(index, size + 1);
+    if (index == size) {
+      add(item);
+      return;
+    }
+    List<Item> items = new ArrayList<>(this);
+    items.add(index, item);
+    replaceAll(items);
+  }
+
+  @Override
+  public Item set(int index, Item item) {
+    checkIndex(index, size);
+    closeHoles();
+    Item old = slots[index];
+    take(index, old);
+    put(index, item);
+    if (item.getName() != null) {
+      reorder(key(item.getName()));
+    }
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public Item remove(int index) {
+    checkIndex(index, size);
+    closeHoles();
+    Item old = slots[index];
+    removeSlot(index);
+    return old;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!(o instanceof Item item) || item.getName() == null) {
+      return false;
+    }
+    List<Integer> named = index().get(key(item.getName()));
+    if (named == null) {
+      return false;
+    }
+    removeSlot(named.get(0));
+    return true;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Item item && find(item.getName()) != null;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (!contains(o)) {
+      return -1;
+    }
+    closeHoles();
+    return index().get(key(((Item) o).getName())).get(0);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(slots, 0, end, null);
+    end = 0;
+    size = 0;
+    byName = null;
+    weight = 0;
+    value = 0;
+    modCount++;
+  }
+
+  @Override
+  public Iterator<Item> iterator() {
+    return new Iterator<>() {
+      private int next = skipHoles(0);
+      private int passed; // items returned and not removed, the position of next
+      private boolean removable;
+      private int expected = modCount;
+      private int closed = closes;
+
+      @Override
+      public boolean hasNext() {
+        follow();
+        return next < end;
+      }
+
+      @Override
+      public Item next() {
+        if (expected != modCount) {
+          throw new ConcurrentModificationException();
+        }
+        follow();
+        if (next >= end) {
+          throw new NoSuchElementException();
+        }
+        Item item = slots[next];
+        next = skipHoles(next + 1);
+        passed++;
+        removable = true;
+        return item;
+      }
+
+      @Override
+      public void remove() {
+        if (!removable) {
+          throw new IllegalStateException();
+        }
+        if (expected != modCount) {
+          throw new ConcurrentModificationException();
+        }
+        follow();
+        // the last item returned is the one right before next
+        int last = next - 1;
+        while (slots[last] == null) {
+          last--;
+        }
+        takeOut(last);
+        passed--;
+        removable = false;
+        expected = modCount;
+      }
+
+      // after the holes were closed, the slot of an item is its position
+      private void follow() {
+        if (closed != closes) {
+          next = passed;
+          closed = closes;
+        }
+      }
+    };
+  }
+
+  private int skipHoles(int slot) {
+    while (slot < end && slots[slot] == null) {
+      slot++;
+    }
+    return slot;
+  }
+
+  private void put(int slot, Item item) {
+    slots[slot] = item;
+    if (byName != null && item.getName() != null) {
+      byName.computeIfAbsent(key(item.getName()), k -> new ArrayList<>(1)).add(slot);
+    }
+    weight += item.getWeight();
+    value += item.getValue();
+  }
+
+  // the reverse of put, the slot is left as it is
+  private void take(int slot, Item item) {
+    if (byName != null && item.getName() != null) {
+      String key = key(item.getName());
+      List<Integer> named = byName.get(key);
+      named.remove((Integer) slot);
+      if (named.isEmpty()) {
+        byName.remove(key);
+      }
+    }
+    weight -= item.getWeight();
+    value -= item.getValue();
+  }
+
+  private void removeSlot(int slot) {
+    takeOut(slot);
+    if (end - size > Math.max(size, 8)) {
+      closeHoles();
+    }
+  }
+
+  private void takeOut(int slot) {
+    take(slot, slots[slot]);
+    slots[slot] = null;
+    size--;
+    modCount++;
+  }
+
+  // moves the items down over the holes, keeping their order
+  private void closeHoles() {
+    if (end == size) {
+      return;
+    }
+    int to = 0;
+    for (int from = 0; from < end; from++) {
+      if (slots[from] != null) {
+        slots[to++] = slots[from];
+      }
+    }
+    Arrays.fill(slots, to, end, null);
+    end = to;
+    closes++;
+    if (byName != null) {
+      byName = null;
+      index();
+    }
+  }
+
+  private HashMap<String, List<Integer>> index() {
+    if (byName == null) {
+      byName = new HashMap<>();
+      for (int slot = 0; slot < end; slot++) {
+        if (slots[slot] != null && slots[slot].getName() != null) {
+          byName.computeIfAbsent(key(slots[slot].getName()), k -> new ArrayList<>(1)).add(slot);
+        }
+      }
+    }
+    return byName;
+  }
+
+  // keeps the slots of one name in order after set put one at the end of its list
+  private void reorder(String key) {
+    if (byName != null) {
+      byName.get(key).sort(null);
+    }
+  }
+
+  private void replaceAll(List<Item> items) {
+    clear();
+    for (Item item : items) {
+      add(item);
+    }
+  }
+
+  private static String key(String name) {
+    return name.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static void checkIndex(int index, int bound) {
+    if (index < 0 || index >= bound) {
+      throw new IndexOutOfBoundsException(index);
+    }
+  }
+}
@@ -20,8 +20,9 @@ public class Item {
   private int uses_remaining;
   private int value;
   private String when_used;
-  private String description;
+  private CharSequence description; // may be packed, see StringPool
   private String picture;
+  private boolean dirty; // uses changed since the last save
 
   /**
    * Default constructor.
@@ -80,7 +81,7 @@ public class Item {
 
   public String getDescription() {
 
-    return description;
+    return StringPool.string(description);
   }
 
   public String getPicture() {
@@ -105,10 +106,12 @@ public class Item {
   public void setMax_uses(int max_uses) {
     this.max_uses = Math.max(max_uses, 0);
     this.uses_remaining = Math.min(this.uses_remaining, this.max_uses);
+    this.dirty = true;
   }
 
   public void setUses_remaining(int uses_remaining) {
     this.uses_remaining = Math.min(Math.max(uses_remaining, 0), this.max_uses);
+    this.dirty = true;
   }
 
   public void setValue(int value) {
@@ -139,6 +142,17 @@ public class Item {
     }
   }
 
+  /**
+   * Replaces the text of this item with the pooled copies.
+   * @param strings the pool of the world
+   */
+  public void internStrings(StringPool strings) {
+    name = strings.intern(name);
+    when_used = strings.intern(when_used);
+    description = strings.text(description);
+    picture = strings.intern(picture);
+  }
+
   /**
    * Uses the item once if possible
    * @return true if item was used successfully, false if no uses remaining
@@ -146,6 +160,7 @@ public class Item {
   public boolean use() {
     if (uses_remaining > 0) {
       uses_remaining--;
+      dirty = true;
       return true;
     }
     return false;
@@ -156,6 +171,7 @@ public class Item {
    */
   public void repair() {
     this.uses_remaining = this.max_uses;
+    this.dirty = true;
   }
 
   /**
@@ -168,6 +184,39 @@ public class Item {
 
 
 
+  /**
+   * Whether the uses of this item changed since the last save.
+   * @return true if the item has to be saved again
+   */
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  /**
+   * Marks the item as saved.
+   */
+  public void clearDirty() {
+    dirty = false;
+  }
+
+  /**
+   * Copies this item, used to give every game session its own uses_remaining.
+   * @return a new item with the same attributes
+   */
+  public Item copy() {
+    Item copy = new Item();
+    copy.name = name;
+    copy.weight = weight;
+    copy.max_uses = max_uses;
+    copy.uses_remaining = uses_remaining;
+    copy.value = value;
+    copy.when_used = when_used;
+    copy.description = description;
+    copy.picture = picture;
+    copy.dirty = dirty;
+    return copy;
+  }
+
   /**
    * Returns a string representation of the model.Item.
    * @return A formatted string that shows the item attributes.
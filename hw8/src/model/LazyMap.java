@@ -0,0 +1,369 @@
+package model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * A map for worlds too big to keep in memory. Rooms are read from a RoomSource the first time
+ * they are looked up, so memory follows the rooms being played rather than the world size.
+ *
+ * Rooms read are kept in an LRU of up to the given number of rooms. A room that changes is
+ * pinned instead until a save of it is on disk (persisted), since reading it again would lose
+ * the change. A room that is still in use after it left the LRU, e.g. the player's room, is
+ * found again through a weak reference, so there is never more than one object per room; the
+ * same goes for the items, puzzles and monsters the rooms name.
+ *
+ * getRooms() reads every room it is asked for, so going through all of it reads the world.
+ * Changes to items, puzzles and monsters must come with a change to their room, like solving
+ * a puzzle opens the room, for the room to be pinned right away.
+ */
+public class LazyMap extends Map {
+  private RoomSource source;
+  private final int capacity;
+  private final LazyMap origin; // map this is a copy of, which a save of this copy updates
+  private final long copiedAt; // changes of the origin when it was copied
+
+  private final HashMap<Integer, Room> pinned = new HashMap<>(); // changed, not persisted yet
+  private final HashMap<Integer, Long> changedAt = new HashMap<>(); // change count of last change
+  private final LinkedHashMap<Integer, Room> cached = new LinkedHashMap<>(16, 0.75f, true);
+  private final HashMap<Integer, Ref<Room>> rooms = new HashMap<>(); // every room handed out
+  private final HashMap<String, Ref<Object>> entities = new HashMap<>(); // "Item:lamp" ...
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private final List<Room> roomList = new RoomList();
+  private long changes;
+  private long loads;
+
+  /**
+   * @param source   where rooms are read from.
+   * @param capacity how many unchanged rooms are kept in memory at most.
+   * @param name     world name.
+   * @param version  world version.
+   */
+  public LazyMap(RoomSource source, int capacity, String name, String version) {
+    this(source, capacity, name, version, null, 0);
+  }
+
+  private LazyMap(RoomSource source, int capacity, String name, String version, LazyMap origin,
+                  long copiedAt) {
+    super(new ArrayList<>(), name, version);
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1");
+    }
+    this.source = source;
+    this.capacity = capacity;
+    this.origin = origin;
+    this.copiedAt = copiedAt;
+    setStrings(StringPool.weak()); // text of rooms that left memory must not stay
+  }
+
+  /**
+   * Copy of this map for one game session or one save, sharing the source.
+   * Only the rooms changed since the last persisted save are copied, every other room is
+   * read again from the source when the copy needs it.
+   *
+   * @return an independent map with the same state
+   */
+  @Override
+  public synchronized Map copy() {
+    LazyMap copy = new LazyMap(source, capacity, getName(), getVersion(), this, changes);
+    IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+    for (Integer position : new TreeMap<>(pinned).keySet()) {
+      Room room = pinned.get(position).copy(copies);
+      copy.adopt(position, room);
+    }
+    copy.setStrings(getStrings());
+    return copy;
+  }
+
+  /**
+   * A copy, which already holds only the changed rooms, so there is nothing to share.
+   *
+   * @return copy()
+   */
+  @Override
+  public Map snapshot() {
+    return copy();
+  }
+
+  // takes over a room copied from the origin, pinned because the origin had it pinned
+  private void adopt(int position, Room room) {
+    watch(position, room);
+    pinned.put(position, room);
+    changedAt.put(position, 0L);
+    if (room.getItem() != null) {
+      for (Item item : room.getItem()) {
+        register(Item.class, item.getName(), item);
+      }
+    }
+    if (room.getFixtures() != null) {
+      for (Fixture fixture : room.getFixtures()) {
+        register(Fixture.class, fixture.getName(), fixture);
+      }
+    }
+    if (room.getPuzzles() != null) {
+      register(Puzzle.class, room.getPuzzles().getName(), room.getPuzzles());
+    }
+    if (room.getMonsters() != null) {
+      register(Monster.class, room.getMonsters().getName(), room.getMonsters());
+    }
+  }
+
+  /**
+   * Every room of the world, read from the source as they are asked for.
+   *
+   * @return a read-only list view
+   */
+  @Override
+  public List<Room> getRooms() {
+    return roomList;
+  }
+
+  /**
+   * Rooms in memory: the changed ones and the ones in the LRU.
+   *
+   * @return the rooms in memory, in map order
+   */
+  @Override
+  public synchronized List<Room> getLoadedRooms() {
+    TreeMap<Integer, Room> loaded = new TreeMap<>(cached);
+    loaded.putAll(pinned);
+    return new ArrayList<>(loaded.values());
+  }
+
+  @Override
+  public Room getRoom(int roomNumber) {
+    int position = currentSource().positionOf(roomNumber);
+    return position < 0 ? null : roomAt(position);
+  }
+
+  /**
+   * The room at a position, read from the source unless it is in memory.
+   *
+   * @param position 0..getRooms().size()-1
+   * @return the room
+   */
+  public synchronized Room roomAt(int position) {
+    Room room = pinned.get(position);
+    if (room != null) {
+      return room;
+    }
+    room = cached.get(position);
+    if (room != null) {
+      return room;
+    }
+    room = resident(position);
+    if (room == null) {
+      room = source.loadRoom(position, this::entity);
+      clearDirty(room); // as read, nothing to save
+      StringPool strings = getStrings();
+      if (strings != null && strings != source.getStrings()) {
+        internStrings(room, strings);
+      }
+      loads++;
+      watch(position, room);
+      expunge();
+      rooms.put(position, new Ref<>(room, position, collected));
+    }
+    cache(position, room);
+    return room;
+  }
+
+  // a room still in use somewhere, though not in the LRU
+  private Room resident(int position) {
+    Ref<Room> ref = rooms.get(position);
+    return ref == null ? null : ref.get();
+  }
+
+  private void watch(int position, Room room) {
+    room.setChangeListener(changed -> roomChanged(position, changed));
+    roomLoaded(room);
+  }
+
+  private synchronized void roomChanged(int position, Room room) {
+    changedAt.put(position, ++changes);
+    if (pinned.put(position, room) == null) {
+      cached.remove(position);
+    }
+  }
+
+  private void cache(int position, Room room) {
+    cached.put(position, room);
+    if (cached.size() > capacity) {
+      Iterator<java.util.Map.Entry<Integer, Room>> eldest = cached.entrySet().iterator();
+      java.util.Map.Entry<Integer, Room> entry = eldest.next();
+      eldest.remove();
+      if (hasChanges(entry.getValue())) {
+        // an item or challenge changed without its room, keep it anyway
+        changedAt.put(entry.getKey(), ++changes);
+        pinned.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * An item, fixture, puzzle or monster by name, the object rooms in memory share if there is
+   * one, else read from the source.
+   *
+   * @param type the entity class, e.g. Item.class.
+   * @param name the entity name, ignoring case.
+   * @return the entity, or null if there is no such entity.
+   */
+  public synchronized <T> T entity(Class<T> type, String name) {
+    if (name == null) {
+      return null;
+    }
+    Ref<Object> ref = entities.get(key(type, name));
+    Object found = ref == null ? null : ref.get();
+    if (found == null) {
+      found = source.loadEntity(type, name);
+      if (found != null) {
+        register(type, name, found);
+      }
+    }
+    return type.cast(found);
+  }
+
+  private void register(Class<?> type, String name, Object entity) {
+    expunge();
+    String key = key(type, name);
+    entities.put(key, new Ref<>(entity, key, collected));
+  }
+
+  private static String key(Class<?> type, String name) {
+    return type.getSimpleName() + ":" + name.trim().toLowerCase(Locale.ROOT);
+  }
+
+  // drops the registry entries of rooms and entities nothing uses any more
+  private void expunge() {
+    Object cleared;
+    while ((cleared = collected.poll()) != null) {
+      Ref<?> ref = (Ref<?>) cleared;
+      if (ref.key instanceof Integer position) {
+        rooms.remove(position, ref);
+      } else {
+        entities.remove(ref.key, ref);
+      }
+    }
+  }
+
+  /**
+   * Tells the map that a save of it is on disk. The source moves on to the saved file and the
+   * rooms changed up to the save are no longer pinned. For a copy, this is about the map it
+   * was copied from, so a save written from a copy unpins the rooms of the live map.
+   *
+   * @param update gets the current source, returns the one to read from from now on.
+   */
+  public void persisted(UnaryOperator<RoomSource> update) {
+    if (origin != null) {
+      origin.persisted(update, copiedAt);
+    } else {
+      synchronized (this) {
+        persisted(update, changes);
+      }
+    }
+  }
+
+  private synchronized void persisted(UnaryOperator<RoomSource> update, long upTo) {
+    source = update.apply(source);
+    List<Integer> saved = new ArrayList<>();
+    for (java.util.Map.Entry<Integer, Long> entry : changedAt.entrySet()) {
+      if (entry.getValue() <= upTo) {
+        saved.add(entry.getKey());
+      }
+    }
+    for (Integer position : saved) {
+      changedAt.remove(position);
+      cache(position, pinned.remove(position));
+    }
+  }
+
+  /**
+   * @return where rooms are read from now
+   */
+  public synchronized RoomSource getSource() {
+    return source;
+  }
+
+  private synchronized RoomSource currentSource() {
+    return source;
+  }
+
+  /**
+   * The room at a position if it is in memory, without reading it.
+   *
+   * @param position 0..getRooms().size()-1
+   * @return the room, or null if it is not in memory
+   */
+  public synchronized Room loadedRoom(int position) {
+    Room room = pinned.get(position);
+    if (room == null) {
+      room = cached.get(position);
+    }
+    return room;
+  }
+
+  /**
+   * @return how many unchanged rooms are kept in memory at most
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return how many rooms are pinned because they changed since the last persisted save
+   */
+  public synchronized int getPinnedCount() {
+    return pinned.size();
+  }
+
+  /**
+   * @return how many rooms were read from the source so far
+   */
+  public synchronized long getLoads() {
+    return loads;
+  }
+
+  /**
+   * Not supported, the rooms come from the source.
+   */
+  @Override
+  public void setRooms(List<Room> rooms) {
+    throw new UnsupportedOperationException("the rooms of a lazy map come from its source");
+  }
+
+  // reads rooms as they are asked for
+  private class RoomList extends AbstractList<Room> {
+    @Override
+    public Room get(int position) {
+      if (position < 0 || position >= size()) {
+        throw new IndexOutOfBoundsException(position);
+      }
+      return roomAt(position);
+    }
+
+    @Override
+    public int size() {
+      return currentSource().size();
+    }
+  }
+
+  // weak reference that remembers its registry key
+  private static class Ref<T> extends WeakReference<T> {
+    final Object key;
+
+    Ref(T referent, Object key, ReferenceQueue<Object> queue) {
+      super(referent, queue);
+      this.key = key;
+    }
+  }
+}
@@ -1,24 +1,217 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 // a map class that contains a list of room
+// rooms are also indexed by number so lookups don't scan the list
 public class Map {
   private List<Room> rooms;
+  private RoomIndex roomIndex;
   private String name;
   private String version;
+  private volatile String saveId; // id of the saved game this map was loaded from or last fully saved to
+  private NavigationGraph navigation; // built on first use
+  private volatile StringPool strings = new StringPool(); // shared by the copies
+  private final List<MapSnapshot> snapshots = new CopyOnWriteArrayList<>(); // not written yet
 
   public Map(List<Room> rooms, String name, String version) {
     this.rooms = rooms;
+    this.roomIndex = new RoomIndex(rooms);
     this.name = name;
     this.version = version;
   }
 
+  /**
+   * Copy of this map for one game session.
+   * Rooms, items, puzzles and monsters are copied because playing changes them,
+   * fixtures and all text are shared with this map, so is the string pool. Dirty flags are
+   * copied too, so a copy can be saved as a delta in place of this map.
+   *
+   * @return an independent map with the same state
+   */
+  public Map copy() {
+    IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+    List<Room> roomCopies = new ArrayList<>(rooms.size());
+    for (Room room : rooms) {
+      roomCopies.add(room.copy(copies));
+    }
+    Map copy = new Map(roomCopies, name, version);
+    copy.strings = strings;
+    return copy;
+  }
+
+  /**
+   * Copy of this map for a save written on another thread, see model.MapSnapshot.
+   * Only the rooms with unsaved changes are copied now, the others are shared until a command
+   * is about to change them (beforeChange) or the writer reads them. Call release() on the
+   * snapshot once it is written.
+   *
+   * @return the map as it is now, dirty flags included
+   */
+  public Map snapshot() {
+    MapSnapshot snapshot = new MapSnapshot(this);
+    snapshots.add(snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Lets the snapshots of this map that are still to be written keep a room as it is.
+   * Must be called before a room is changed, for every room a command may change.
+   *
+   * @param room a room of this map, null is ignored
+   */
+  public void beforeChange(Room room) {
+    if (room == null || snapshots.isEmpty()) {
+      return;
+    }
+    for (MapSnapshot snapshot : snapshots) {
+      snapshot.preserve(room);
+    }
+  }
+
+  /**
+   * Called on a snapshot once it is written or no longer needed, so its map stops keeping rooms
+   * for it. Does nothing on other maps.
+   */
+  public void release() {
+  }
+
+  void released(MapSnapshot snapshot) {
+    snapshots.remove(snapshot);
+  }
+
+  /**
+   * Marks every room and the items, puzzles and monsters in them as saved.
+   */
+  public void clearDirty() {
+    for (Room room : getLoadedRooms()) {
+      clearDirty(room);
+    }
+  }
+
+  // whether a room or the items, puzzle and monster in it have unsaved changes
+  static boolean hasChanges(Room room) {
+    if (room.isDirty()) {
+      return true;
+    }
+    if (room.getPuzzles() != null && room.getPuzzles().isDirty()) {
+      return true;
+    }
+    if (room.getMonsters() != null && room.getMonsters().isDirty()) {
+      return true;
+    }
+    if (room.getItem() != null) {
+      for (Item item : room.getItem()) {
+        if (item.isDirty()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // marks one room and the items, puzzle and monster in it as saved
+  static void clearDirty(Room room) {
+    room.clearDirty();
+    if (room.getItem() != null) {
+      for (Item item : room.getItem()) {
+        item.clearDirty();
+      }
+    }
+    if (room.getPuzzles() != null) {
+      room.getPuzzles().clearDirty();
+    }
+    if (room.getMonsters() != null) {
+      room.getMonsters().clearDirty();
+    }
+  }
+
+  /**
+   * Sends the text of the rooms in memory, and of the items, fixtures, puzzles and monsters in
+   * them, through the string pool of this map. The loaders call it, nothing is marked dirty.
+   */
+  public void internStrings() {
+    StringPool strings = getStrings();
+    if (strings != null) {
+      for (Room room : getLoadedRooms()) {
+        internStrings(room, strings);
+      }
+    }
+  }
+
+  // one room and what is in it, entities shared by rooms come back as they are
+  static void internStrings(Room room, StringPool strings) {
+    room.internStrings(strings);
+    if (room.getItem() != null) {
+      for (Item item : room.getItem()) {
+        item.internStrings(strings);
+      }
+    }
+    if (room.getFixtures() != null) {
+      for (Fixture fixture : room.getFixtures()) {
+        fixture.internStrings(strings);
+      }
+    }
+    if (room.getPuzzles() != null) {
+      room.getPuzzles().internStrings(strings);
+    }
+    if (room.getMonsters() != null) {
+      room.getMonsters().internStrings(strings);
+    }
+  }
+
   public List<Room> getRooms() {
     return rooms;
   }
 
+  /**
+   * Rooms this map holds in memory, the only ones that can have unsaved changes.
+   * That is every room, except for a LazyMap.
+   *
+   * @return the rooms in memory, in map order
+   */
+  public List<Room> getLoadedRooms() {
+    return rooms;
+  }
+
+  /**
+   * Finds a room by its number in constant time.
+   * If the list returned by getRooms() is changed directly, call setRooms again to refresh the index.
+   *
+   * @param roomNumber the room number
+   * @return the room with this number, or null if there is none
+   */
+  public Room getRoom(int roomNumber) {
+    return roomIndex.get(roomNumber);
+  }
+
+  /**
+   * Route questions about this map: distances, reachability, the way to a room.
+   * Built on first use and kept up to date when exits change.
+   * If the list returned by getRooms() is changed directly, call setRooms again to rebuild it.
+   *
+   * @return the navigation graph of this map
+   */
+  public synchronized NavigationGraph getNavigation() {
+    if (navigation == null) {
+      navigation = new NavigationGraph(this);
+    }
+    return navigation;
+  }
+
+  /**
+   * Called by a LazyMap for every room it reads, so a built navigation graph keeps up with it.
+   */
+  synchronized void roomLoaded(Room room) {
+    if (navigation != null) {
+      navigation.watch(room);
+    }
+  }
+
   public String getName() {
     return name;
   }
@@ -27,8 +220,41 @@ public class Map {
     return version;
   }
 
+  /**
+   * Id of the saved game file this map matches, changes since then are saved as deltas.
+   * @return the id, or null if the map was never saved or loaded from a save
+   */
+  public String getSaveId() {
+    return saveId;
+  }
+
+  public void setSaveId(String saveId) {
+    this.saveId = saveId;
+  }
+
   public void setRooms(List<Room> rooms) {
     this.rooms = rooms;
+    this.roomIndex = new RoomIndex(rooms);
+    synchronized (this) {
+      this.navigation = null;
+    }
+  }
+
+  /**
+   * @return the pool the text of this world goes through, null if text is kept as read
+   */
+  public StringPool getStrings() {
+    return strings;
+  }
+
+  /**
+   * Sets the pool for text read from now on, e.g. the pool of the world a save belongs to,
+   * so the save shares its text with the world. Text already read is not moved.
+   *
+   * @param strings the pool, or null to keep text as read
+   */
+  public void setStrings(StringPool strings) {
+    this.strings = strings;
   }
 
   public void setName(String name) {
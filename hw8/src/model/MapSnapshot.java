@@ -0,0 +1,112 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The state of a map at one moment, for a save written on another thread.
+ *
+ * Only the rooms with unsaved changes are copied when the snapshot is taken, dirty flags
+ * included. Every other room is shared with the live map until one side needs a copy of its
+ * own: the live map has a room copied before a command changes it (Map.beforeChange), the
+ * writer has it copied when it reads it. Entities shared by rooms are copied once, like in
+ * Map.copy. Once the snapshot is written, release() stops the live map from copying for it.
+ */
+class MapSnapshot extends Map {
+  private final Map live;
+  private final List<Room> liveRooms; // the list of the live map, it is not changed in place
+  private final IdentityHashMap<Room, Room> own = new IdentityHashMap<>(); // live -> copy
+  private final List<Room> copied = new ArrayList<>(); // copies in the order they were made
+  private final IdentityHashMap<Object, Object> copies = new IdentityHashMap<>();
+  private final List<Room> roomList = new RoomList();
+
+  MapSnapshot(Map live) {
+    super(new ArrayList<>(), live.getName(), live.getVersion());
+    this.live = live;
+    this.liveRooms = live.getRooms();
+    setStrings(live.getStrings());
+    for (Room room : liveRooms) {
+      if (hasChanges(room)) {
+        preserve(room);
+      }
+    }
+  }
+
+  /**
+   * The copy of a live room in this snapshot, made now if there is none yet.
+   *
+   * @param room a room of the live map
+   * @return its state when the snapshot was taken
+   */
+  synchronized Room preserve(Room room) {
+    Room copy = own.get(room);
+    if (copy == null) {
+      copy = room.copy(copies);
+      own.put(room, copy);
+      copied.add(copy);
+    }
+    return copy;
+  }
+
+  /**
+   * Every room of the snapshot, rooms still shared are copied as they are asked for.
+   *
+   * @return a read-only list view
+   */
+  @Override
+  public List<Room> getRooms() {
+    return roomList;
+  }
+
+  /**
+   * Rooms copied so far, every room with changes among them.
+   *
+   * @return the copies, in the order they were made
+   */
+  @Override
+  public synchronized List<Room> getLoadedRooms() {
+    return new ArrayList<>(copied);
+  }
+
+  @Override
+  public Room getRoom(int roomNumber) {
+    Room room = live.getRoom(roomNumber);
+    return room == null ? null : preserve(room);
+  }
+
+  @Override
+  public void release() {
+    live.released(this);
+  }
+
+  /**
+   * Not supported, a snapshot is not played.
+   */
+  @Override
+  public Map copy() {
+    throw new UnsupportedOperationException("a snapshot is only written");
+  }
+
+  /**
+   * Not supported, the rooms come from the live map.
+   */
+  @Override
+  public void setRooms(List<Room> rooms) {
+    throw new UnsupportedOperationException("the rooms of a snapshot come from its map");
+  }
+
+  // copies rooms as they are asked for
+  private class RoomList extends AbstractList<Room> {
+    @Override
+    public Room get(int position) {
+      return preserve(liveRooms.get(position));
+    }
+
+    @Override
+    public int size() {
+      return liveRooms.size();
+    }
+  }
+}
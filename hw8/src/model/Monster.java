@@ -72,12 +72,31 @@ public class Monster extends Challenge {
     return player.setHealth(playerHealth + this.damage);
   }
 
+  /**
+   * Copies this monster, used to give every game session its own active state.
+   * @return a new monster with the same attributes
+   */
+  public Monster copy() {
+    Monster copy = new Monster();
+    copy.copyFrom(this);
+    copy.damage = damage;
+    copy.can_attack = can_attack;
+    copy.attack = attack;
+    return copy;
+  }
+
+  @Override
+  public void internStrings(StringPool strings) {
+    super.internStrings(strings);
+    attack = strings.intern(attack);
+  }
+
   @Override
   public Integer solve(Item item) {
-    if (solution.startsWith("'") && solution.endsWith("'")) {
+    if (!acceptsItem()) {
       return SOLVE_WRONG_TYPE;
     } else if (solution.equalsIgnoreCase(item.getName())) {
-      this.active = false;
+      setActive(false);
       return SOLVE_SUCCESS;
     } else {
       return SOLVE_FAIL;
@@ -87,14 +106,10 @@ public class Monster extends Challenge {
 
   @Override
   public Integer solve(String magicWord) {
-    // delete all the punctuations white space
-    String processedSolution = solution.replaceAll("[\\p{Punct}\\s]", "");
-    String processedMagicWord = magicWord.replaceAll("[\\p{Punct}\\s]", "");
-
-    if (!(solution.startsWith("'") || solution.endsWith("'"))) {
+    if (!acceptsText()) {
       return SOLVE_WRONG_TYPE;
-    } else if (processedSolution.equalsIgnoreCase(processedMagicWord)) {
-      this.active = false;
+    } else if (matchesAnswer(magicWord)) {
+      setActive(false);
       return SOLVE_SUCCESS;
     } else {
       return SOLVE_FAIL;
@@ -0,0 +1,372 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rooms of a map and their exits as a compact graph, for route questions: how far is a
+ * room, can it be reached at all, which way to go. Get it with Map.getNavigation().
+ *
+ * Rooms are nodes 0..n-1 in map order. Exits are stored CSR style: the exits of node i are
+ * edges offsets[i] .. offsets[i+1]-1 of the targets array (n, s, e, w order), a blocked exit
+ * is an edge that is not open. A second CSR holds the edges by target, so distances to one
+ * room can be found for every room with a single backwards BFS. Those BFS results are cached
+ * per target, and on maps of up to ALL_PAIRS_MAX rooms every distance is computed once, so
+ * repeated questions are answered from an array.
+ *
+ * Opening an exit (Room.setRoomToPassable) only flips the edge to open; changing where an exit
+ * leads rebuilds the graph on the next question. Either way the cached distances are dropped.
+ */
+public class NavigationGraph {
+  static final int ALL_PAIRS_MAX = 1024;
+  private static final int CACHED_TARGETS = 16;
+  private static final int DENSE_SLACK = 16;
+  private static final String[] DIRECTIONS = {"n", "s", "e", "w"};
+
+  private final Map map;
+  private boolean stale = true; // exits changed in a way that needs a rebuild
+
+  // nodes
+  private int[] numbers; // room number of each node
+  private int[] nodeByNumber; // dense numbering: node of number base + i, -1 for none
+  private int base;
+  private int[] sortedNumbers; // sparse numbering: room numbers sorted, with their nodes
+  private int[] sortedNodes;
+
+  // exits of node i: edges offsets[i] .. offsets[i + 1] - 1
+  private int[] offsets;
+  private int[] targets;
+  private byte[] directions; // index into DIRECTIONS
+  private boolean[] open;
+  // edges into node i: edge ids inEdges[inOffsets[i]] .. inEdges[inOffsets[i + 1] - 1]
+  private int[] inOffsets;
+  private int[] inEdges;
+  private int[] sources; // node each edge starts at
+
+  // distances to cachedTargets[i] from every node, the least recently used slot is replaced
+  private final int[] cachedTargets = new int[CACHED_TARGETS];
+  private final int[][] cachedDistances = new int[CACHED_TARGETS][];
+  private final long[] lastUsed = new long[CACHED_TARGETS];
+  private long uses;
+  private short[] allPairs; // small maps only: allPairs[from * n + to], -1 if unreachable
+
+  NavigationGraph(Map map) {
+    this.map = map;
+    rebuild();
+  }
+
+  /**
+   * Number of moves from one room to another through open exits.
+   *
+   * @param fromRoom room number to start in.
+   * @param toRoom   room number to get to.
+   * @return the number of moves, 0 for the same room, -1 if it can't be reached now.
+   */
+  public synchronized int distance(int fromRoom, int toRoom) {
+    refresh();
+    int from = node(fromRoom);
+    int to = node(toRoom);
+    if (from < 0 || to < 0) {
+      return -1;
+    }
+    return distance(from, to, nodes());
+  }
+
+  /**
+   * @param fromRoom room number to start in.
+   * @param toRoom   room number to get to.
+   * @return true if there is a way through open exits.
+   */
+  public boolean isReachable(int fromRoom, int toRoom) {
+    return distance(fromRoom, toRoom) >= 0;
+  }
+
+  /**
+   * First move of a shortest way, e.g. for a hint.
+   *
+   * @param fromRoom room number to start in.
+   * @param toRoom   room number to get to.
+   * @return "n", "s", "e" or "w", or null if already there or it can't be reached.
+   */
+  public synchronized String nextDirection(int fromRoom, int toRoom) {
+    refresh();
+    int from = node(fromRoom);
+    int to = node(toRoom);
+    if (from < 0 || to < 0) {
+      return null;
+    }
+    int edge = nextEdge(from, to, nodes());
+    return edge < 0 ? null : DIRECTIONS[directions[edge]];
+  }
+
+  /**
+   * A shortest way between two rooms.
+   *
+   * @param fromRoom room number to start in.
+   * @param toRoom   room number to get to.
+   * @return the room numbers along the way, both ends included, or null if it can't be reached.
+   */
+  public synchronized int[] path(int fromRoom, int toRoom) {
+    refresh();
+    int from = node(fromRoom);
+    int to = node(toRoom);
+    int n = nodes();
+    if (from < 0 || to < 0 || distance(from, to, n) < 0) {
+      return null;
+    }
+    int[] path = new int[distance(from, to, n) + 1];
+    path[0] = numbers[from];
+    for (int i = 1; i < path.length; i++) {
+      from = targets[nextEdge(from, to, n)];
+      path[i] = numbers[from];
+    }
+    return path;
+  }
+
+  // open exit of from that is one step closer to to, -1 if none
+  private int nextEdge(int from, int to, int n) {
+    int d = distance(from, to, n);
+    if (d <= 0) {
+      return -1;
+    }
+    for (int edge = offsets[from]; edge < offsets[from + 1]; edge++) {
+      if (open[edge] && distance(targets[edge], to, n) == d - 1) {
+        return edge;
+      }
+    }
+    return -1;
+  }
+
+  private int distance(int from, int to, int n) {
+    if (n <= ALL_PAIRS_MAX) {
+      if (allPairs == null) {
+        allPairs = computeAllPairs(n);
+      }
+      return allPairs[from * n + to];
+    }
+    return distancesTo(to)[from];
+  }
+
+  private int[] distancesTo(int to) {
+    int oldest = 0;
+    for (int i = 0; i < CACHED_TARGETS; i++) {
+      if (cachedDistances[i] != null && cachedTargets[i] == to) {
+        lastUsed[i] = ++uses;
+        return cachedDistances[i];
+      }
+      if (lastUsed[i] < lastUsed[oldest]) {
+        oldest = i;
+      }
+    }
+    int[] distances = cachedDistances[oldest];
+    if (distances == null || distances.length != nodes()) {
+      distances = new int[nodes()];
+    }
+    bfsBackwards(to, distances, new int[nodes()]);
+    cachedTargets[oldest] = to;
+    cachedDistances[oldest] = distances;
+    lastUsed[oldest] = ++uses;
+    return distances;
+  }
+
+  private short[] computeAllPairs(int n) {
+    short[] result = new short[n * n];
+    int[] distances = new int[n];
+    int[] queue = new int[n];
+    for (int to = 0; to < n; to++) {
+      bfsBackwards(to, distances, queue);
+      for (int from = 0; from < n; from++) {
+        result[from * n + to] = (short) distances[from];
+      }
+    }
+    return result;
+  }
+
+  // distances[i] = moves from node i to target, -1 if unreachable
+  private void bfsBackwards(int target, int[] distances, int[] queue) {
+    Arrays.fill(distances, -1);
+    distances[target] = 0;
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = target;
+    while (head < tail) {
+      int node = queue[head++];
+      for (int i = inOffsets[node]; i < inOffsets[node + 1]; i++) {
+        int edge = inEdges[i];
+        int source = sources[edge];
+        if (open[edge] && distances[source] < 0) {
+          distances[source] = distances[node] + 1;
+          queue[tail++] = source;
+        }
+      }
+    }
+  }
+
+  /**
+   * Told by a room when its exits change.
+   */
+  private synchronized void exitsChanged(Room room) {
+    dropDistances();
+    if (stale) {
+      return;
+    }
+    int node = node(room.getRoom_number());
+    if (node < 0 || map.getRooms().get(node) != room) {
+      stale = true;
+      return;
+    }
+    int[] exits = {room.getN(), room.getS(), room.getE(), room.getW()};
+    int edge = offsets[node];
+    for (int direction = 0; direction < exits.length; direction++) {
+      int target = exits[direction] == 0 ? -1 : node(Math.abs(exits[direction]));
+      if (target < 0) {
+        continue;
+      }
+      if (edge >= offsets[node + 1] || targets[edge] != target || directions[edge] != direction) {
+        stale = true; // an exit leads somewhere else now
+        return;
+      }
+      open[edge] = exits[direction] > 0;
+      edge++;
+    }
+    if (edge != offsets[node + 1]) {
+      stale = true;
+    }
+  }
+
+  /**
+   * Keeps the graph up to date with a room, e.g. one a LazyMap has just read again.
+   */
+  void watch(Room room) {
+    room.setExitListener(this::exitsChanged);
+  }
+
+  private void dropDistances() {
+    Arrays.fill(lastUsed, 0);
+    for (int i = 0; i < CACHED_TARGETS; i++) {
+      cachedTargets[i] = -1; // arrays are kept for the next BFS
+    }
+    allPairs = null;
+  }
+
+  private void refresh() {
+    if (stale) {
+      rebuild();
+    }
+  }
+
+  private int nodes() {
+    return numbers.length;
+  }
+
+  private void rebuild() {
+    List<Room> rooms = map.getRooms();
+    int n = rooms.size();
+    numbers = new int[n];
+    for (int i = 0; i < n; i++) {
+      Room room = rooms.get(i);
+      numbers[i] = room.getRoom_number();
+      watch(room);
+    }
+    indexNumbers();
+
+    offsets = new int[n + 1];
+    int[] exitTargets = new int[n * 4];
+    byte[] exitDirections = new byte[n * 4];
+    boolean[] exitOpen = new boolean[n * 4];
+    int edges = 0;
+    for (int i = 0; i < n; i++) {
+      Room room = rooms.get(i);
+      int[] exits = {room.getN(), room.getS(), room.getE(), room.getW()};
+      for (int direction = 0; direction < exits.length; direction++) {
+        int target = exits[direction] == 0 ? -1 : node(Math.abs(exits[direction]));
+        if (target >= 0) {
+          exitTargets[edges] = target;
+          exitDirections[edges] = (byte) direction;
+          exitOpen[edges] = exits[direction] > 0;
+          edges++;
+        }
+      }
+      offsets[i + 1] = edges;
+    }
+    targets = Arrays.copyOf(exitTargets, edges);
+    directions = Arrays.copyOf(exitDirections, edges);
+    open = Arrays.copyOf(exitOpen, edges);
+
+    sources = new int[edges];
+    inOffsets = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      for (int edge = offsets[i]; edge < offsets[i + 1]; edge++) {
+        sources[edge] = i;
+        inOffsets[targets[edge] + 1]++;
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      inOffsets[i + 1] += inOffsets[i];
+    }
+    inEdges = new int[edges];
+    int[] filled = Arrays.copyOf(inOffsets, n);
+    for (int edge = 0; edge < edges; edge++) {
+      inEdges[filled[targets[edge]]++] = edge;
+    }
+    dropDistances();
+    stale = false;
+  }
+
+  // room number to node, the first room with a number wins like in Map.getRoom
+  private void indexNumbers() {
+    int n = numbers.length;
+    nodeByNumber = null;
+    sortedNumbers = null;
+    if (n == 0) {
+      nodeByNumber = new int[0];
+      return;
+    }
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int number : numbers) {
+      min = Math.min(min, number);
+      max = Math.max(max, number);
+    }
+    long span = (long) max - min + 1;
+    if (span <= 2L * n + DENSE_SLACK) {
+      base = min;
+      nodeByNumber = new int[(int) span];
+      Arrays.fill(nodeByNumber, -1);
+      for (int i = 0; i < n; i++) {
+        if (nodeByNumber[numbers[i] - base] < 0) {
+          nodeByNumber[numbers[i] - base] = i;
+        }
+      }
+      return;
+    }
+    // sort node ids by number, then keep the first node of every number
+    long[] keyed = new long[n];
+    for (int i = 0; i < n; i++) {
+      keyed[i] = ((long) numbers[i] << 32) | i;
+    }
+    Arrays.sort(keyed);
+    int[] sorted = new int[n];
+    int[] nodes = new int[n];
+    int count = 0;
+    for (long key : keyed) {
+      int number = (int) (key >> 32);
+      if (count == 0 || sorted[count - 1] != number) {
+        sorted[count] = number;
+        nodes[count] = (int) key;
+        count++;
+      }
+    }
+    sortedNumbers = Arrays.copyOf(sorted, count);
+    sortedNodes = Arrays.copyOf(nodes, count);
+  }
+
+  private int node(int roomNumber) {
+    if (nodeByNumber != null) {
+      long slot = (long) roomNumber - base;
+      return slot < 0 || slot >= nodeByNumber.length ? -1 : nodeByNumber[(int) slot];
+    }
+    int found = Arrays.binarySearch(sortedNumbers, roomNumber);
+    return found < 0 ? -1 : sortedNodes[found];
+  }
+}
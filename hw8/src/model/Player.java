@@ -1,5 +1,6 @@
 package model;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -9,7 +10,7 @@ public class Player {
   private String name; // no exits in model.Player class in UML - need discussion
   private Integer score;
   private Integer health;
-  private List<Item> inventory;
+  private Inventory inventory; // keeps weight and value totals and an index by name
   private Integer capacity;
   // max capacity you can carry
   private Room currentRoom;
@@ -27,24 +28,32 @@ public class Player {
     this.name = name;
     this.score = MINIMUM;
     this.health = MAXIMUMHEALTH;
-    this.inventory = inventory;
+    this.inventory = new Inventory(inventory);
     this.capacity = MAXIMUMCAPACITY;
     this.currentRoom = currentRoom;
   }
 
+  /**
+   * Copies what is saved of this player, e.g. for a background save.
+   * The inventory list is copied, the items and the current room are shared.
+   * @return a new player with the same name, score, health, capacity, inventory and room
+   */
+  public Player copy() {
+    Player copy = new Player(name, new ArrayList<>(inventory), currentRoom);
+    copy.score = score;
+    copy.health = health;
+    copy.capacity = capacity;
+    return copy;
+  }
+
   /**
    * Pick up the item.
    * @param pickedItem item
    * @return return false means capacity exceed limit,0 succeed
    */
   public boolean pickUpItem(Item pickedItem) {
-    int sum = MINIMUM;
-    // sum the weight of all items in the inventory
-    for (Item item : inventory) {
-      sum += item.getWeight();
-    }
-    // add the weight of the picked item
-    sum += pickedItem.getWeight();
+    // the weight carried plus the picked item
+    int sum = inventory.getWeight() + pickedItem.getWeight();
     // check if adding the new item exceeds the capacity
     if (sum > capacity) {
       // exit the method if capacity is exceeded
@@ -67,18 +76,50 @@ public class Player {
    *@return return true means success ,false otherwise
    */
   public boolean dropItem(Item droppedItem) {
-    // Check if the inventory contains the dropped item
-    if (inventory.contains(droppedItem)) {
+    // Remove the item from the inventory, false if it isn't there
+    if (inventory.remove(droppedItem)) {
       // add item to model.Room
       this.currentRoom.getItem().add(droppedItem);
-      // Remove the item from the inventory
-      inventory.remove(droppedItem);
       return true;
     } else {
       return false;
     }
   }
 
+  /**
+   * Finds an item the player carries by name.
+   * @param itemName name of the item, case and surrounding spaces are ignored
+   * @return the first item with that name, or null if the player has none
+   */
+  public Item findItem(String itemName) {
+    return inventory.find(itemName);
+  }
+
+  /**
+   * Every item the player carries with a name.
+   * @param itemName name of the item, case and surrounding spaces are ignored
+   * @return the items in inventory order, empty if there are none
+   */
+  public List<Item> findItems(String itemName) {
+    return inventory.findAll(itemName);
+  }
+
+  /**
+   * Total weight of the items carried, kept up to date on every pick up and drop.
+   * @return the weight
+   */
+  public int getInventoryWeight() {
+    return inventory.getWeight();
+  }
+
+  /**
+   * Total value of the items carried, added to the score at the end of the game.
+   * @return the value
+   */
+  public int getInventoryValue() {
+    return inventory.getValue();
+  }
+
   /**
    * Getter function - get the name of the player.
    * @return name of the player
@@ -211,10 +252,11 @@ public class Player {
 
   /**
    * Setter function - set the inventory of the player.
+   * The items are copied into an inventory of the player's own.
    * @param inventory of the player
    */
   public void setInventory(List<Item> inventory) {
-    this.inventory = inventory;
+    this.inventory = new Inventory(inventory);
   }
 
   /**
@@ -341,11 +383,6 @@ public class Player {
   }
 
   public Room findRoomByNumber(int roomNumber, Map map) {
-    for (Room room : map.getRooms()) {
-      if (room.getRoom_number() == roomNumber) {
-        return room;
-      }
-    }
-    return null; // unexpected error
+    return map.getRoom(roomNumber); // null is unexpected error
   }
 }
\ No newline at end of file
@@ -7,6 +7,15 @@ package model;
  */
 public class Puzzle extends Challenge {
 
+  /**
+   * Copies this puzzle, used to give every game session its own active state.
+   * @return a new puzzle with the same attributes
+   */
+  public Puzzle copy() {
+    Puzzle copy = new Puzzle();
+    copy.copyFrom(this);
+    return copy;
+  }
 
   /**
    * Attempts to solve the puzzle using an item.
@@ -18,14 +27,14 @@ public class Puzzle extends Challenge {
    */
   @Override
   public Integer solve(Item item) {
-    if (solution.startsWith("'") && solution.endsWith("'")) {
+    if (!acceptsItem()) {
       // "solution is a text, not an item"
       return SOLVE_WRONG_TYPE;
       // if solution is a text instead of a item ,then return
     } else if (solution.equalsIgnoreCase(item.getName())) {
 
       //check if solution equal to item name,if solution is a item
-      this.active = false;
+      setActive(false);
       //"model.Puzzle solved using the correct item!"
       return SOLVE_SUCCESS;
     } else {
@@ -44,18 +53,13 @@ public class Puzzle extends Challenge {
    */
   @Override
   public Integer solve(String magicWord) {
-
-    // delete all the punctions white space
-    String processedSolution = solution.replaceAll("[\\p{Punct}\\s]", "");
-    String processedMagicWord = magicWord.replaceAll("[\\p{Punct}\\s]", "");
-
-    if (!(solution.startsWith("'") || solution.endsWith("'"))) {
+    if (!acceptsText()) {
       // "solution is a item not a text"
       return SOLVE_WRONG_TYPE;
       // if solution is a item instead of a string
-    } else if (processedSolution.equalsIgnoreCase(processedMagicWord)) {
+    } else if (matchesAnswer(magicWord)) {
       // check if solution equal to magic word
-      this.active = false;
+      setActive(false);
       // "model.Puzzle solved using the correct magic word!"
       return SOLVE_SUCCESS;
     } else {
@@ -1,6 +1,11 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 /**
  * Represents a room in the game environment.
@@ -12,7 +17,7 @@ import java.util.List;
 public class Room {
     private String room_name; // room name
     private int room_number; // number
-    private String description;
+    private CharSequence description; // may be packed, see StringPool
     private int N; // north
     private int S;//south
     private int E; //east
@@ -20,8 +25,13 @@ public class Room {
     private Puzzle puzzle; // puzzle present in room, if any
     private Monster monster; // monster present in room, if any
     private List<Item> item; // list of items in room
+    private Inventory items; // the list under item, finds items by name
     private List<Fixture> fixtures; // list of fixtures in room
+    private HashMap<String, List<Fixture>> fixturesByName; // built on first lookup
     private String picture; // image representing the room
+    private boolean dirty; // changed since the last save
+    private Consumer<Room> exitListener; // told when exits change, see NavigationGraph
+    private Consumer<Room> changeListener; // told when the room is marked dirty, see LazyMap
 
     /**
      * Constructs a new model.Room with the specified attributes.
@@ -49,11 +59,49 @@ public class Room {
         W = w;
         this.puzzle = puzzles;
         this.monster = monster;
-        this.item = item;
+        this.item = track(item);
         this.fixtures = fixtures;
         this.picture = picture;
     }
 
+    // item list that marks the room dirty whenever an item is added or removed
+    private List<Item> track(List<Item> items) {
+        if (items == null) {
+            this.items = null;
+            return null;
+        }
+        this.items = new Inventory(items);
+        return new TrackedList<>(this.items, this::markDirty);
+    }
+
+    /**
+     * Copies this room for another game session.
+     * Items, puzzle and monster are copied once per session through the copies table,
+     * so entities shared by several rooms stay shared. Fixtures and text are not copied.
+     *
+     * @param copies originals mapped to their session copies.
+     * @return the copied room.
+     */
+    Room copy(IdentityHashMap<Object, Object> copies) {
+        List<Item> itemCopies = null; // a room without an item list stays without one
+        if (item != null) {
+            itemCopies = new ArrayList<>(item.size());
+            for (Item original : item) {
+                itemCopies.add((Item) copies.computeIfAbsent(original, o -> original.copy()));
+            }
+        }
+        Puzzle puzzleCopy = puzzle == null ? null
+                : (Puzzle) copies.computeIfAbsent(puzzle, o -> puzzle.copy());
+        Monster monsterCopy = monster == null ? null
+                : (Monster) copies.computeIfAbsent(monster, o -> monster.copy());
+        Room copy = new Room(room_name, room_number, null, N, S, E, W, puzzleCopy,
+                monsterCopy, itemCopies, fixtures == null ? null : new ArrayList<>(fixtures),
+                picture);
+        copy.description = description;
+        copy.dirty = dirty;
+        return copy;
+    }
+
     // getter method
 
     /**
@@ -103,17 +151,19 @@ public class Room {
         if (monster != null && monster.isActive()) {
             return monster.getEffects();
         }
-        return description;
+        return StringPool.string(description);
     }
 
     /**
      * Helper function that set model.Room's direction to passable by converting to absolute values.
      */
     public void setRoomToPassable() {
+        markDirty();
         this.N = Math.abs(this.N);
         this.W = Math.abs(this.W);
         this.E = Math.abs(this.E);
         this.S = Math.abs(this.S);
+        exitsChanged();
     }
 
     // Getters for room properties
@@ -121,7 +171,7 @@ public class Room {
      * Helper function that return the original descritption
      */
     public String getOriginalDescription() {
-        return description;
+        return StringPool.string(description);
     }
 
     public int getN() {
@@ -156,6 +206,50 @@ public class Room {
         return fixtures;
     }
 
+    /**
+     * Finds an item in the room by name in constant time, see Inventory.
+     * @param name the item name, case and surrounding spaces are ignored.
+     * @return the first item with that name, or null if there is none.
+     */
+    public Item findItem(String name) {
+        return items == null ? null : items.find(name);
+    }
+
+    /**
+     * Every item in the room with a name.
+     * @param name the item name, case and surrounding spaces are ignored.
+     * @return the items in room order, empty if there are none.
+     */
+    public List<Item> findItems(String name) {
+        return items == null ? List.of() : items.findAll(name);
+    }
+
+    /**
+     * Every fixture in the room with a name. The index behind it is built on first use;
+     * if the list returned by getFixtures() is changed directly, call setFixtures again.
+     * @param name the fixture name, case and surrounding spaces are ignored.
+     * @return the fixtures in room order, empty if there are none.
+     */
+    public synchronized List<Fixture> findFixtures(String name) {
+        if (fixtures == null || name == null) {
+            return List.of();
+        }
+        if (fixturesByName == null) {
+            fixturesByName = new HashMap<>();
+            for (Fixture fixture : fixtures) {
+                if (fixture.getName() != null) {
+                    fixturesByName.computeIfAbsent(key(fixture.getName()),
+                            k -> new ArrayList<>(1)).add(fixture);
+                }
+            }
+        }
+        return fixturesByName.getOrDefault(key(name), List.of());
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
     public String getPicture() {
         return picture;
     }
@@ -165,50 +259,130 @@ public class Room {
 
 
     public void setRoom_name(String room_name) {
+        markDirty();
         this.room_name = room_name;
     }
 
     public void setRoom_number(int room_number) {
+        markDirty();
         this.room_number = room_number;
+        exitsChanged();
     }
 
     public void setDescription(String description) {
+        markDirty();
         this.description = description;
     }
 
     public void setN(int n) {
+        markDirty();
         N = n;
+        exitsChanged();
     }
 
     public void setS(int s) {
+        markDirty();
         S = s;
+        exitsChanged();
     }
 
     public void setE(int e) {
+        markDirty();
         E = e;
+        exitsChanged();
     }
 
     public void setW(int w) {
+        markDirty();
         W = w;
+        exitsChanged();
     }
 
     public void setPuzzles(Puzzle puzzles) {
+        markDirty();
         this.puzzle = puzzles;
     }
 
     public void setMonsters(Monster monsters) {
+        markDirty();
         this.monster = monsters;
     }
 
     public void setItem(List<Item> item) {
-        this.item = item;
+        markDirty();
+        this.item = track(item);
     }
 
     public void setFixtures(List<Fixture> fixtures) {
-        this.fixtures = fixtures;
+        markDirty();
+        synchronized (this) {
+            this.fixtures = fixtures;
+            this.fixturesByName = null;
+        }
     }
 
     public void setPicture(String picture) {
+        markDirty();
         this.picture = picture;
     }
+
+    /**
+     * Replaces the text of this room with the pooled copies, nothing is marked dirty.
+     * The items, fixtures, puzzle and monster are left to the caller, see Map.internStrings.
+     * @param strings the pool of the world.
+     */
+    public void internStrings(StringPool strings) {
+        room_name = strings.intern(room_name);
+        description = strings.text(description);
+        picture = strings.intern(picture);
+    }
+
+    /**
+     * Whether the room changed (exits, items, puzzle, monster ...) since the last save.
+     * @return true if the room has to be saved again.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Marks the room as changed since the last save.
+     */
+    public void markDirty() {
+        dirty = true;
+        Consumer<Room> listener = changeListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
+    }
+
+    /**
+     * Marks the room as saved.
+     */
+    public void clearDirty() {
+        dirty = false;
+    }
+
+    /**
+     * Sets who is told about changed exits, one listener per room.
+     * @param listener called with this room, or null for nobody.
+     */
+    void setExitListener(Consumer<Room> listener) {
+        this.exitListener = listener;
+    }
+
+    /**
+     * Sets who is told when the room is marked dirty, one listener per room.
+     * @param listener called with this room, or null for nobody.
+     */
+    void setChangeListener(Consumer<Room> listener) {
+        this.changeListener = listener;
+    }
+
+    private void exitsChanged() {
+        Consumer<Room> listener = exitListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Lookup table from room number to model.Room used by model.Map.
+ * Compact numbering (the usual 1..n) is stored as a plain array indexed by number,
+ * sparse numbering falls back to an open-addressing table keyed by the primitive int.
+ * If two rooms share a number the first one in the list wins, like the old linear search.
+ */
+class RoomIndex {
+  private static final int DENSE_SLACK = 16;
+
+  // dense mode: rooms[number - base]
+  private Room[] dense;
+  private int base;
+
+  // sparse mode: linear probing, a null room marks an empty slot
+  private int[] keys;
+  private Room[] values;
+  private int mask;
+
+  RoomIndex(List<Room> rooms) {
+    if (rooms == null || rooms.isEmpty()) {
+      dense = new Room[0];
+      return;
+    }
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (Room room : rooms) {
+      min = Math.min(min, room.getRoom_number());
+      max = Math.max(max, room.getRoom_number());
+    }
+    long span = (long) max - min + 1;
+    if (span <= 2L * rooms.size() + DENSE_SLACK) {
+      buildDense(rooms, min, (int) span);
+    } else {
+      buildSparse(rooms);
+    }
+  }
+
+  private void buildDense(List<Room> rooms, int min, int span) {
+    base = min;
+    dense = new Room[span];
+    for (Room room : rooms) {
+      int slot = room.getRoom_number() - base;
+      if (dense[slot] == null) {
+        dense[slot] = room;
+      }
+    }
+  }
+
+  private void buildSparse(List<Room> rooms) {
+    int capacity = Integer.highestOneBit(Math.max(rooms.size(), 1) * 2 - 1) << 1;
+    keys = new int[capacity];
+    values = new Room[capacity];
+    mask = capacity - 1;
+    for (Room room : rooms) {
+      int number = room.getRoom_number();
+      int slot = hash(number) & mask;
+      while (values[slot] != null && keys[slot] != number) {
+        slot = (slot + 1) & mask;
+      }
+      if (values[slot] == null) {
+        keys[slot] = number;
+        values[slot] = room;
+      }
+    }
+  }
+
+  /**
+   * Finds a room by its number.
+   * @param number room number
+   * @return the room, or null if no room has this number
+   */
+  Room get(int number) {
+    if (dense != null) {
+      int slot = number - base;
+      return slot >= 0 && slot < dense.length ? dense[slot] : null;
+    }
+    int slot = hash(number) & mask;
+    while (values[slot] != null) {
+      if (keys[slot] == number) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  private static int hash(int number) {
+    int h = number * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,67 @@
+package model;
+
+/**
+ * Where a LazyMap reads its rooms from, one at a time, e.g. controller.WorldFile.
+ * Rooms are addressed by position, their place in the world file, 0..size()-1.
+ * Every load returns new objects, except for fixtures a source may share since playing never
+ * changes them, and loads may come from several threads at once.
+ */
+public interface RoomSource {
+
+  /**
+   * @return the number of rooms.
+   */
+  int size();
+
+  /**
+   * @param position a room position.
+   * @return the room number of the room at that position.
+   */
+  int numberAt(int position);
+
+  /**
+   * Finds a room by number, the first room with a number wins like in Map.getRoom.
+   *
+   * @param roomNumber the room number.
+   * @return its position, or -1 if there is no such room.
+   */
+  int positionOf(int roomNumber);
+
+  /**
+   * Reads one room, the names in it are resolved through the given entities.
+   *
+   * @param position the room position.
+   * @param entities finds the items, fixtures, puzzles and monsters the room names.
+   * @return a new room.
+   */
+  Room loadRoom(int position, Entities entities);
+
+  /**
+   * Reads one item, fixture, puzzle or monster by name, ignoring case.
+   *
+   * @param type the entity class, e.g. Item.class.
+   * @param name the entity name.
+   * @return a new object, or null if there is no such entity.
+   */
+  <T> T loadEntity(Class<T> type, String name);
+
+  /**
+   * @return the pool the text of loaded rooms and entities already comes from, null if none;
+   *         a map on this pool doesn't send their text through it again.
+   */
+  default StringPool getStrings() {
+    return null;
+  }
+
+  /**
+   * Resolves entity names while a room is read, so rooms share the objects they name.
+   */
+  interface Entities {
+    /**
+     * @param type the entity class, e.g. Item.class.
+     * @param name the entity name, ignoring case.
+     * @return the entity, or null if there is no such entity.
+     */
+    <T> T get(Class<T> type, String name);
+  }
+}
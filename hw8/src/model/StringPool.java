@@ -0,0 +1,207 @@
+package model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One copy of every text of a world. The loaders send names, descriptions, effects and pictures
+ * through the pool of the map they build, so text that repeats across rooms, entities and loads
+ * of the same world (a save loaded next to the world it came from) is kept once.
+ *
+ * A pool keeps its text for as long as it is used itself, which costs a table slot per text
+ * and is right for a map that keeps all of its text anyway. A weak pool never keeps text alive
+ * by itself, at about 40 bytes per text; that is the one for a LazyMap, whose rooms come and go.
+ *
+ * Long text can be packed as UTF-8 bytes, decoded every time it is read. Java already keeps
+ * Latin-1 text in one byte per character, so only text with other characters is packed, and
+ * only when its UTF-8 is shorter than the two bytes per character Java uses for it.
+ */
+public class StringPool {
+  private static final int NO_PACKING = Integer.MAX_VALUE;
+
+  private final int packAbove;
+  private final boolean weak;
+  private Object[] texts; // the text itself, open addressing, unless weak
+  private Entry[] table; // chains of weak entries, if weak
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private int size;
+
+  /**
+   * Pool that keeps every text as a String, and keeps it.
+   */
+  public StringPool() {
+    this(NO_PACKING, false);
+  }
+
+  /**
+   * @param packAbove descriptions longer than this many characters may be packed as UTF-8.
+   * @param weak      whether text nothing else uses any more drops out of the pool.
+   */
+  public StringPool(int packAbove, boolean weak) {
+    if (packAbove < 0) {
+      throw new IllegalArgumentException("packAbove must not be negative");
+    }
+    this.packAbove = packAbove;
+    this.weak = weak;
+    if (weak) {
+      table = new Entry[64];
+    } else {
+      texts = new Object[64];
+    }
+  }
+
+  /**
+   * Weak pool that keeps every text as a String.
+   *
+   * @return a new pool
+   */
+  public static StringPool weak() {
+    return new StringPool(NO_PACKING, true);
+  }
+
+  /**
+   * @param text any text, or null.
+   * @return the pooled string equal to it, the text itself if it is new to the pool.
+   */
+  public String intern(String text) {
+    return text == null ? null : (String) canonical(text);
+  }
+
+  /**
+   * Like intern, for descriptions: long text may come back packed.
+   *
+   * @param text any text, or null.
+   * @return the pooled text equal to it, packed if packing is on and saves memory.
+   */
+  public CharSequence text(CharSequence text) {
+    if (text instanceof String string && string.length() > packAbove && !isLatin1(string)) {
+      byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+      if (utf8.length < 2 * string.length()) {
+        return (CharSequence) canonical(new Utf8Text(utf8));
+      }
+    }
+    return text == null ? null : (CharSequence) canonical(text);
+  }
+
+  /**
+   * @return how many texts are in the pool, for a weak pool not counting text nothing uses.
+   */
+  public synchronized int size() {
+    if (weak) {
+      expunge();
+    }
+    return size;
+  }
+
+  // null safe toString, how the model hands out text that may be packed
+  static String string(CharSequence text) {
+    return text == null ? null : text.toString();
+  }
+
+  private static boolean isLatin1(String text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) > 0xFF) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private synchronized Object canonical(Object text) {
+    if (!weak) {
+      return kept(text);
+    }
+    expunge();
+    int hash = spread(text.hashCode());
+    int slot = hash & (table.length - 1);
+    for (Entry entry = table[slot]; entry != null; entry = entry.next) {
+      Object found;
+      if (entry.hash == hash && (found = entry.get()) != null && found.equals(text)) {
+        return found;
+      }
+    }
+    table[slot] = new Entry(text, hash, table[slot], collected);
+    if (++size > table.length / 4 * 3) {
+      resize();
+    }
+    return text;
+  }
+
+  // linear probing, the table is at most two thirds full
+  private Object kept(Object text) {
+    int mask = texts.length - 1;
+    for (int slot = spread(text.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+      Object found = texts[slot];
+      if (found == null) {
+        texts[slot] = text;
+        if (++size * 3 > texts.length * 2) {
+          Object[] old = texts;
+          texts = new Object[old.length * 2];
+          size = 0;
+          for (Object kept : old) {
+            if (kept != null) {
+              kept(kept);
+            }
+          }
+        }
+        return text;
+      }
+      if (found.equals(text)) {
+        return found;
+      }
+    }
+  }
+
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private void resize() {
+    Entry[] old = table;
+    table = new Entry[old.length * 2];
+    for (Entry head : old) {
+      Entry entry = head;
+      while (entry != null) {
+        Entry next = entry.next;
+        int slot = entry.hash & (table.length - 1);
+        entry.next = table[slot];
+        table[slot] = entry;
+        entry = next;
+      }
+    }
+  }
+
+  // unlinks the entries of text that was collected
+  private void expunge() {
+    Object cleared;
+    while ((cleared = collected.poll()) != null) {
+      Entry dead = (Entry) cleared;
+      int slot = dead.hash & (table.length - 1);
+      Entry previous = null;
+      for (Entry entry = table[slot]; entry != null; previous = entry, entry = entry.next) {
+        if (entry == dead) {
+          if (previous == null) {
+            table[slot] = entry.next;
+          } else {
+            previous.next = entry.next;
+          }
+          size--;
+          break;
+        }
+      }
+    }
+  }
+
+  // a pooled text, the reference is the entry so there is no map entry on top of it
+  private static class Entry extends WeakReference<Object> {
+    final int hash;
+    Entry next;
+
+    Entry(Object text, int hash, Entry next, ReferenceQueue<Object> queue) {
+      super(text, queue);
+      this.hash = hash;
+      this.next = next;
+    }
+  }
+}
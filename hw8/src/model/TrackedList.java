@@ -0,0 +1,99 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List view over another list that reports every change, so the owner
+ * (e.g. a room and its items) knows it has to be saved again.
+ * Lookups and removals go to the list underneath, so they are as fast as it makes them,
+ * e.g. by name for an Inventory.
+ *
+ * @param <E> element type
+ */
+public class TrackedList<E> extends AbstractList<E> implements RandomAccess {
+  private final List<E> elements;
+  private final Runnable onChange;
+
+  /**
+   * @param elements the list that holds the elements, changes go through to it.
+   * @param onChange called after every add, set or remove.
+   */
+  public TrackedList(List<E> elements, Runnable onChange) {
+    this.elements = elements;
+    this.onChange = onChange;
+  }
+
+  @Override
+  public E get(int index) {
+    return elements.get(index);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public E set(int index, E element) {
+    E old = elements.set(index, element);
+    onChange.run();
+    return old;
+  }
+
+  @Override
+  public void add(int index, E element) {
+    elements.add(index, element);
+    onChange.run();
+  }
+
+  @Override
+  public E remove(int index) {
+    E old = elements.remove(index);
+    onChange.run();
+    return old;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!elements.remove(o)) {
+      return false;
+    }
+    onChange.run();
+    return true;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return elements.contains(o);
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    return elements.indexOf(o);
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    Iterator<E> iterator = elements.iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public E next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void remove() {
+        iterator.remove();
+        onChange.run();
+      }
+    };
+  }
+}
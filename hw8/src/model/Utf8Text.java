@@ -0,0 +1,48 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Text kept as UTF-8 bytes, see StringPool. Every read decodes it again, so the model only
+ * hands it out through toString when the text is shown or saved.
+ */
+final class Utf8Text implements CharSequence {
+  private final byte[] utf8;
+  private final int hash;
+
+  Utf8Text(byte[] utf8) {
+    this.utf8 = utf8;
+    this.hash = Arrays.hashCode(utf8);
+  }
+
+  @Override
+  public int length() {
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+
+  @Override
+  public String toString() {
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof Utf8Text other && Arrays.equals(utf8, other.utf8);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
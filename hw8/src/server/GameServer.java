@@ -0,0 +1,302 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import controller.Autosave;
+import controller.CommandJournal;
+import controller.GameController;
+import controller.LoadGameData;
+import controller.RoomLocks;
+import controller.SaveBudget;
+import controller.WorldTemplate;
+import model.Map;
+import view.View;
+
+/**
+ * Hosts many players on one loaded world.
+ * Accepts line-based connections on a local TCP port, every connection is a headless
+ * controller.GameController session on its own thread with its own model.Player and its own
+ * copy of the world state, so sessions never see each other's moves.
+ * The copies are controller.WorldTemplate sessions: the world is parsed once and every session
+ * keeps only what it changed.
+ * In shared mode all sessions play in the same world instead, guarded by controller.RoomLocks,
+ * or with --actors by one server.RoomActors actor per room.
+ * With --autosave every session autosaves after that many commands (or a minute), all
+ * sessions together within one controller.SaveBudget.
+ * Sessions save under save/run-T/session-N, T being when the server started, so a restarted
+ * server never writes into the saves of an earlier run.
+ * With --journal every session writes its commands to save/run-T/session-N/commands.journal,
+ * which controller.JournalReplay can play back (exactly only for sessions that had their own
+ * copy).
+ * A session's output for one command goes out in one write; --menu diff or --menu none spares
+ * scripted clients the menu before every command.
+ * With --lazy the world is read room by room as sessions get there (model.LazyMap), keeping
+ * at most that many unchanged rooms in memory per copy, for worlds too big to load.
+ *
+ * Usage: java server.GameServer world.json [port] [--shared | --actors] [--autosave commands]
+ *        [--journal] [--menu full|diff|none] [--lazy rooms]
+ */
+public class GameServer {
+  public static final int DEFAULT_PORT = 4848;
+  private static final int LOCK_STRIPES = 256;
+  private static final int AUTOSAVE_SLOTS = 3;
+  private static final long AUTOSAVE_MILLIS = 60_000;
+  private static final long AUTOSAVE_BYTES_PER_SECOND = 32L * 1024 * 1024;
+
+  private final String worldPath;
+  private final Map world; // null when sessions start from the template
+  private final WorldTemplate template; // null unless sessions get their own copy of a world
+  private final int port;
+  private final RoomLocks sharedLocks; // null unless all sessions share the world
+  private final RoomActors roomActors; // null unless the shared world runs on room actors
+  private final ExecutorService sessions = SessionThreads.newPerSessionExecutor();
+  private final AtomicInteger activeSessions = new AtomicInteger();
+  private final AtomicLong sessionIds = new AtomicLong();
+  private final Path runDirectory = Paths.get("save",
+          "run-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").format(LocalDateTime.now()));
+  private volatile ServerSocket serverSocket;
+  private int autosaveCommands; // 0 means no autosave
+  private SaveBudget autosaveBudget;
+  private boolean journal;
+  private View.MenuMode menuMode = View.MenuMode.FULL;
+
+  /**
+   * Loads the world once, sessions copy it when they start.
+   *
+   * @param worldPath path of the world JSON file.
+   * @param port      local port to listen on, 0 picks a free one.
+   * @throws IOException if the world can't be loaded.
+   */
+  public GameServer(String worldPath, int port) throws IOException {
+    this(worldPath, port, false);
+  }
+
+  /**
+   * Loads the world once.
+   *
+   * @param worldPath path of the world JSON file.
+   * @param port      local port to listen on, 0 picks a free one.
+   * @param shared    true to put every session into the same world instead of a copy.
+   * @throws IOException if the world can't be loaded.
+   */
+  public GameServer(String worldPath, int port, boolean shared) throws IOException {
+    this(worldPath, port, shared, false);
+  }
+
+  /**
+   * Loads the world once.
+   *
+   * @param worldPath path of the world JSON file.
+   * @param port      local port to listen on, 0 picks a free one.
+   * @param shared    true to put every session into the same world instead of a copy.
+   * @param actors    with shared, run each room as an actor instead of locking rooms.
+   * @throws IOException if the world can't be loaded.
+   */
+  public GameServer(String worldPath, int port, boolean shared, boolean actors) throws IOException {
+    this(worldPath, port, shared, actors, 0);
+  }
+
+  /**
+   * Loads the world once, or only indexes it for a lazy world.
+   *
+   * @param worldPath  path of the world JSON file.
+   * @param port       local port to listen on, 0 picks a free one.
+   * @param shared     true to put every session into the same world instead of a copy.
+   * @param actors     with shared, run each room as an actor instead of locking rooms.
+   * @param lazyRooms  unchanged rooms kept in memory per copy of a lazy world, 0 to load it all.
+   * @throws IOException if the world can't be loaded.
+   */
+  public GameServer(String worldPath, int port, boolean shared, boolean actors, int lazyRooms)
+          throws IOException {
+    this.worldPath = worldPath;
+    // sessions with a copy of their own start from the parsed world, only changes are theirs
+    this.template = !shared && lazyRooms == 0 ? WorldTemplate.of(worldPath) : null;
+    this.world = template != null ? null : lazyRooms > 0
+            ? LoadGameData.loadLazyMap(worldPath, lazyRooms) : LoadGameData.loadMap(worldPath);
+    this.port = port;
+    this.sharedLocks = shared && !actors ? new RoomLocks(LOCK_STRIPES) : null;
+    this.roomActors = shared && actors ? new RoomActors(world) : null;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: GameServer world.json [port] [--shared | --actors]"
+              + " [--autosave commands] [--journal] [--menu full|diff|none] [--lazy rooms]");
+      return;
+    }
+    int port = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+    boolean actors = Arrays.asList(args).contains("--actors");
+    boolean shared = actors || Arrays.asList(args).contains("--shared");
+    int lazy = Arrays.asList(args).indexOf("--lazy");
+    int lazyRooms = lazy > 0 && lazy + 1 < args.length ? Integer.parseInt(args[lazy + 1]) : 0;
+    GameServer server = new GameServer(args[0], port, shared, actors, lazyRooms);
+    int autosave = Arrays.asList(args).indexOf("--autosave");
+    if (autosave > 0 && autosave + 1 < args.length) {
+      server.setAutosave(Integer.parseInt(args[autosave + 1]), AUTOSAVE_BYTES_PER_SECOND);
+    }
+    server.setJournal(Arrays.asList(args).contains("--journal"));
+    int menu = Arrays.asList(args).indexOf("--menu");
+    if (menu > 0 && menu + 1 < args.length) {
+      server.setMenuMode(View.MenuMode.valueOf(args[menu + 1].toUpperCase()));
+    }
+    server.bind();
+    System.out.println("Serving " + args[0] + " on port " + server.getPort());
+    server.serve();
+  }
+
+  /**
+   * Turns on autosave for sessions that start from now on.
+   * Each session rotates through its own slots under save/run-T/session-N/autosave.
+   *
+   * @param everyCommands  autosave after this many commands, or after a minute.
+   * @param bytesPerSecond disk budget shared by the autosaves of all sessions.
+   */
+  public void setAutosave(int everyCommands, long bytesPerSecond) {
+    this.autosaveBudget = new SaveBudget(bytesPerSecond);
+    this.autosaveCommands = everyCommands;
+  }
+
+  /**
+   * Turns the command journal on or off for sessions that start from now on.
+   *
+   * @param journal true to write save/run-T/session-N/commands.journal for every session.
+   */
+  public void setJournal(boolean journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * How sessions that start from now on show the menu.
+   *
+   * @param menuMode FULL, DIFF or NONE.
+   */
+  public void setMenuMode(View.MenuMode menuMode) {
+    this.menuMode = menuMode;
+  }
+
+  /**
+   * Opens the listening socket on the loopback address.
+   *
+   * @throws IOException if the port can't be bound.
+   */
+  public void bind() throws IOException {
+    serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+  }
+
+  /**
+   * Accepts connections until stop() is called, each one runs as a session.
+   */
+  public void serve() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        socket.setTcpNoDelay(true); // answers are small, don't wait for more data
+        sessions.execute(() -> runSession(socket));
+      } catch (IOException e) {
+        if (!serverSocket.isClosed()) {
+          // usually out of file descriptors, give sessions a moment to close
+          System.out.println("accept failed: " + e.getMessage());
+          pause();
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops accepting and ends all sessions.
+   */
+  public void stop() throws IOException {
+    serverSocket.close();
+    sessions.shutdownNow();
+    if (roomActors != null) {
+      roomActors.shutdown();
+    }
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  public int getActiveSessions() {
+    return activeSessions.get();
+  }
+
+  private static void pause() {
+    try {
+      Thread.sleep(100);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void runSession(Socket socket) {
+    activeSessions.incrementAndGet();
+    try (socket;
+         BufferedReader in = new BufferedReader(
+                 new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+         // the view collects a command's output and flushes it once, no second buffer needed
+         OutputStreamWriter out =
+                 new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+      GameController controller;
+      CommandJournal commands = null;
+      if (sharedLocks != null) {
+        controller = new GameController(world, worldPath, in, out);
+        controller.setRoomLocks(sharedLocks);
+      } else if (roomActors != null) {
+        controller = new GameController(world, worldPath, in, out);
+        controller.setCommandRouter(roomActors);
+      } else if (template != null) {
+        controller = new GameController(template.newSession(), worldPath, in, out);
+      } else {
+        controller = new GameController(world.copy(), worldPath, in, out);
+      }
+      // sessions must not overwrite each other's saves, nor those of an earlier run
+      String saveDirectory = runDirectory.resolve("session-" + sessionIds.incrementAndGet())
+              .toString();
+      controller.setSaveDirectory(saveDirectory);
+      controller.setMenuMode(menuMode);
+      if (autosaveCommands > 0) {
+        controller.setAutosave(new Autosave(Paths.get(saveDirectory, "autosave").toString(),
+                AUTOSAVE_SLOTS, autosaveCommands, AUTOSAVE_MILLIS, autosaveBudget));
+      }
+      if (journal) {
+        Path journalFile = Paths.get(saveDirectory, "commands.journal");
+        Files.createDirectories(journalFile.getParent());
+        commands = CommandJournal.create(journalFile, worldPath, controller.getPlayer().getName());
+        controller.setJournal(commands);
+      }
+      try {
+        controller.gameLoop();
+      } finally {
+        if (commands != null) {
+          commands.close();
+        }
+      }
+    } catch (IOException | UncheckedIOException e) {
+      // the client went away, nothing to clean up beyond the socket
+    } catch (RuntimeException e) {
+      // a bug, not a disconnect; the session ends but must not vanish without a trace
+      System.err.println("Session on " + socket.getRemoteSocketAddress() + " failed:");
+      e.printStackTrace();
+    } finally {
+      activeSessions.decrementAndGet();
+    }
+  }
+}
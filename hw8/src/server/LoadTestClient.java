@@ -0,0 +1,133 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import view.View;
+
+/**
+ * Load test for server.GameServer.
+ * Opens a number of idle sessions that only log in, plus active sessions that send
+ * commands as fast as the server answers them, then reports commands per second.
+ *
+ * Usage: java server.LoadTestClient (port | world.json) [idle] [active] [seconds] [menu]
+ * Given a world file instead of a port, the server is started inside this JVM, showing the
+ * menu as given (full, diff or none).
+ */
+public class LoadTestClient {
+  private static final String PROMPT = "Your choice:";
+  // moves back and forth between the first two rooms of the bundled worlds
+  private static final String[] SCRIPT = {"l", "i", "n", "x lamp", "s", "t notebook", "d notebook"};
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      System.out.println("Usage: LoadTestClient (port | world.json) [idle] [active] [seconds]"
+              + " [menu]");
+      return;
+    }
+    int idle = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int active = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+    int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+    GameServer embedded = null;
+    int port;
+    if (args[0].matches("\\d+")) {
+      port = Integer.parseInt(args[0]);
+    } else {
+      embedded = new GameServer(args[0], 0);
+      if (args.length > 4) {
+        embedded.setMenuMode(View.MenuMode.valueOf(args[4].toUpperCase()));
+      }
+      embedded.bind();
+      GameServer server = embedded;
+      Thread acceptor = new Thread(server::serve, "acceptor");
+      acceptor.setDaemon(true);
+      acceptor.start();
+      port = embedded.getPort();
+    }
+
+    List<Socket> idleSockets = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int i = 0; i < idle; i++) {
+      Socket socket = connect(port);
+      Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+      out.write("idle-" + i + "\n");
+      out.flush();
+      idleSockets.add(socket);
+    }
+    System.out.printf("opened %d idle sessions in %.1f s%n", idle, (System.nanoTime() - start) / 1e9);
+
+    LongAdder commands = new LongAdder();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    ExecutorService clients = SessionThreads.newPerSessionExecutor();
+    for (int i = 0; i < active; i++) {
+      String name = "bot-" + i;
+      clients.execute(() -> runBot(port, name, deadline, commands));
+    }
+    clients.shutdown();
+    clients.awaitTermination(seconds + 30L, TimeUnit.SECONDS);
+
+    System.out.printf("%d active sessions: %d commands in %d s = %.0f commands/s%n",
+            active, commands.sum(), seconds, commands.sum() / (double) seconds);
+    if (embedded != null) {
+      System.out.println("server sessions still open: " + embedded.getActiveSessions());
+    }
+    for (Socket socket : idleSockets) {
+      socket.close();
+    }
+    if (embedded != null) {
+      embedded.stop();
+    }
+  }
+
+  private static Socket connect(int port) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    socket.setTcpNoDelay(true);
+    return socket;
+  }
+
+  private static void runBot(int port, String name, long deadline, LongAdder commands) {
+    try (Socket socket = connect(port)) {
+      BufferedReader in = new BufferedReader(
+              new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+      out.write(name + "\n");
+      out.flush();
+      awaitPrompt(in);
+      for (int i = 0; System.nanoTime() < deadline; i++) {
+        out.write(SCRIPT[i % SCRIPT.length] + "\n");
+        out.flush();
+        if (!awaitPrompt(in)) {
+          return;
+        }
+        commands.increment();
+      }
+      out.write("q\n");
+      out.flush();
+    } catch (IOException e) {
+      System.out.println(name + " failed: " + e.getMessage());
+    }
+  }
+
+  // reads the answer to one command, which ends with the prompt for the next one
+  private static boolean awaitPrompt(BufferedReader in) throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.trim().equals(PROMPT)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
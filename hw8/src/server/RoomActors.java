@@ -0,0 +1,143 @@
+package server;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import controller.CommandRouter;
+import controller.GameController;
+import model.Map;
+import model.Room;
+
+/**
+ * Actor per room for a world shared by many sessions.
+ * A command becomes a message in the mailbox of the player's current room, and every room
+ * works through its mailbox on one thread at a time, so take, drop, look, answer and use
+ * need no locks. A move runs on the room the player leaves, then the room the player enters
+ * admits them before the session sends its next command.
+ * Save and load read the whole map, they stop every room first.
+ */
+public class RoomActors implements CommandRouter {
+  private static final int BATCH = 64; // messages per turn before the thread is given back
+
+  private final Map world;
+  private final HashMap<Integer, Actor> actors = new HashMap<>();
+  private final Actor[] ordered;
+  private final ExecutorService executor;
+
+  /**
+   * Creates one actor for every room of the map.
+   *
+   * @param world    the shared map.
+   * @param executor runs actor turns, ideally one virtual thread per turn.
+   */
+  public RoomActors(Map world, ExecutorService executor) {
+    this.world = world;
+    this.executor = executor;
+    this.ordered = new Actor[world.getRooms().size()];
+    int i = 0;
+    for (Room room : world.getRooms()) {
+      Actor actor = actors.computeIfAbsent(room.getRoom_number(), number -> new Actor());
+      ordered[i++] = actor;
+    }
+  }
+
+  /**
+   * @param world the shared map.
+   */
+  public RoomActors(Map world) {
+    this(world, SessionThreads.newPerSessionExecutor());
+  }
+
+  @Override
+  public void route(GameController session, String[] command) {
+    String action = command[0];
+    if (session.isExclusive(action)) {
+      runExclusive(session, command);
+      return;
+    }
+    if (session.getMap() != world) {
+      // the session loaded another map, its rooms are its own even where the numbers match
+      session.executeCommand(command);
+      return;
+    }
+    Actor actor = actors.get(session.getPlayer().getCurrentRoom().getRoom_number());
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    actor.post(() -> {
+      try {
+        session.executeCommand(command);
+      } catch (RuntimeException e) {
+        done.completeExceptionally(e);
+        return;
+      }
+      Actor next = actors.get(session.getPlayer().getCurrentRoom().getRoom_number());
+      if (next != null && next != actor) {
+        // hand the player over, the next command waits until the new room has taken them
+        next.post(() -> done.complete(null));
+      } else {
+        done.complete(null);
+      }
+    });
+    done.join();
+  }
+
+  /**
+   * Stops the executor, mailboxes are not drained.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void runExclusive(GameController session, String[] command) {
+    for (Actor actor : ordered) {
+      actor.turn.lock();
+    }
+    try {
+      session.executeCommand(command);
+    } finally {
+      for (int i = ordered.length - 1; i >= 0; i--) {
+        ordered[i].turn.unlock();
+      }
+    }
+  }
+
+  /**
+   * Mailbox of one room, at most one turn of it is scheduled at any time.
+   */
+  private class Actor {
+    private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // held for a whole turn, uncontended except while a save stops all rooms
+    private final ReentrantLock turn = new ReentrantLock();
+
+    void post(Runnable message) {
+      mailbox.add(message);
+      schedule();
+    }
+
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        executor.execute(this::runTurn);
+      }
+    }
+
+    private void runTurn() {
+      turn.lock();
+      try {
+        Runnable message;
+        for (int i = 0; i < BATCH && (message = mailbox.poll()) != null; i++) {
+          message.run();
+        }
+      } finally {
+        turn.unlock();
+        scheduled.set(false);
+      }
+      if (!mailbox.isEmpty()) {
+        schedule();
+      }
+    }
+  }
+}
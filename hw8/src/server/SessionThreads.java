@@ -0,0 +1,31 @@
+package server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads for game sessions, one per connection.
+ * Uses virtual threads when the running JDK has them (21+), otherwise small-stack daemon threads.
+ */
+class SessionThreads {
+  private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+  /**
+   * @return an executor that starts a new thread for every submitted session
+   */
+  static ExecutorService newPerSessionExecutor() {
+    try {
+      Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) virtual.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      return Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(null, task, "session-" + count.incrementAndGet(), PLATFORM_STACK_SIZE);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+}
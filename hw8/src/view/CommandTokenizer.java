@@ -0,0 +1,198 @@
+package view;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Locale;
+
+/**
+ * Reads input line by line and splits each line into a verb and an argument, lower-cased,
+ * the way View.getInput always did (trim, lower case, split at the first space).
+ *
+ * Lines are found in one reused CharBuffer. Words are looked up in a small cache of strings
+ * seen before, comparing the buffered characters case-insensitively, so a command made of
+ * known words allocates nothing. A word that is not cached is lower-cased into a scratch
+ * array and becomes a new string, which then replaces whatever was in its cache slot.
+ */
+public class CommandTokenizer {
+  private static final int INITIAL_BUFFER = 8 * 1024;
+  private static final int CACHE_SLOTS = 1024; // a power of two
+  private static final String LANGUAGE = Locale.getDefault().getLanguage();
+  // outside these locales String.toLowerCase lower-cases a char at a time, like we do
+  private static final boolean PLAIN_LOCALE =
+          !LANGUAGE.equals("tr") && !LANGUAGE.equals("az") && !LANGUAGE.equals("lt");
+
+  private final Readable input;
+  private CharBuffer buffer = CharBuffer.allocate(INITIAL_BUFFER); // unread chars, read mode
+  private boolean ended; // the input has no more chars
+  private final String[] cache = new String[CACHE_SLOTS];
+  private char[] scratch = new char[64];
+  private int lineStart;
+  private int lineEnd;
+  private String verb = "";
+  private String argument = "";
+
+  /**
+   * @param input where lines are read from.
+   */
+  public CommandTokenizer(Readable input) {
+    this.input = input;
+    buffer.limit(0);
+  }
+
+  /**
+   * Reads the next line as a command.
+   *
+   * @return false if the input has ended.
+   */
+  public boolean nextCommand() {
+    if (!nextLine()) {
+      return false;
+    }
+    int start = lineStart;
+    int end = lineEnd;
+    while (start < end && buffer.get(start) <= ' ') {
+      start++;
+    }
+    while (end > start && buffer.get(end - 1) <= ' ') {
+      end--;
+    }
+    int space = start;
+    while (space < end && buffer.get(space) != ' ') {
+      space++;
+    }
+    verb = word(start, space);
+    argument = space < end ? word(space + 1, end) : "";
+    return true;
+  }
+
+  /**
+   * @return the verb of the last command, lower case.
+   */
+  public String getVerb() {
+    return verb;
+  }
+
+  /**
+   * @return what came after the first space of the last command, lower case, may be empty.
+   */
+  public String getArgument() {
+    return argument;
+  }
+
+  /**
+   * Reads the next line as it was typed, e.g. a name or a file path.
+   *
+   * @return the trimmed line, or null if the input has ended.
+   */
+  public String nextRawLine() {
+    if (!nextLine()) {
+      return null;
+    }
+    return new String(chars(lineStart, lineEnd, false), 0, lineEnd - lineStart).trim();
+  }
+
+  // finds the next line, sets lineStart and lineEnd and moves the position past its end
+  private boolean nextLine() {
+    int scanned = 0; // chars after the position already known not to end a line
+    while (true) {
+      int start = buffer.position();
+      for (int i = start + scanned; i < buffer.limit(); i++) {
+        char c = buffer.get(i);
+        if (c == '\n' || c == '\u2028' || c == '\u2029' || c == '\u0085') {
+          return takeLine(start, i, i + 1);
+        }
+        if (c == '\r') {
+          if (i + 1 < buffer.limit()) {
+            return takeLine(start, i, buffer.get(i + 1) == '\n' ? i + 2 : i + 1);
+          }
+          if (ended) {
+            return takeLine(start, i, i + 1);
+          }
+          break; // a \n may follow in the next read
+        }
+        scanned = i + 1 - start;
+      }
+      if (ended) {
+        if (buffer.hasRemaining()) {
+          return takeLine(start, buffer.limit(), buffer.limit());
+        }
+        return false;
+      }
+      fill();
+    }
+  }
+
+  private boolean takeLine(int start, int end, int next) {
+    lineStart = start;
+    lineEnd = end;
+    buffer.position(next);
+    return true;
+  }
+
+  // reads more input behind the unread chars, growing the buffer only for a very long line
+  private void fill() {
+    buffer.compact();
+    if (!buffer.hasRemaining()) {
+      CharBuffer bigger = CharBuffer.allocate(buffer.capacity() * 2);
+      buffer.flip();
+      bigger.put(buffer);
+      buffer = bigger;
+    }
+    try {
+      int read = input.read(buffer);
+      if (read < 0) {
+        ended = true;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      buffer.flip();
+    }
+  }
+
+  // the lower-cased word between two buffer indexes, from the cache when it was seen before
+  private String word(int start, int end) {
+    int length = end - start;
+    if (length == 0) {
+      return "";
+    }
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      char c = buffer.get(i);
+      if (!PLAIN_LOCALE || c == '\u0130' || c == '\u03A3' || Character.isSurrogate(c)) {
+        // lower-cased differently as a whole string, rare enough not to be cached
+        return new String(chars(start, end, false), 0, length).toLowerCase();
+      }
+      hash = 31 * hash + Character.toLowerCase(c);
+    }
+    int slot = (hash ^ (hash >>> 16)) & (CACHE_SLOTS - 1);
+    String cached = cache[slot];
+    if (cached != null && cached.length() == length && sameWord(cached, start)) {
+      return cached;
+    }
+    String word = new String(chars(start, end, true), 0, length);
+    cache[slot] = word;
+    return word;
+  }
+
+  private boolean sameWord(String cached, int start) {
+    for (int i = 0; i < cached.length(); i++) {
+      if (Character.toLowerCase(buffer.get(start + i)) != cached.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private char[] chars(int start, int end, boolean lowerCase) {
+    if (scratch.length < end - start) {
+      scratch = new char[Math.max(end - start, scratch.length * 2)];
+    }
+    for (int i = start; i < end; i++) {
+      char c = buffer.get(i);
+      scratch[i - start] = lowerCase ? Character.toLowerCase(c) : c;
+    }
+    return scratch;
+  }
+}
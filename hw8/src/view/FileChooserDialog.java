@@ -0,0 +1,29 @@
+package view;
+
+import java.io.File;
+import javax.swing.JFileChooser;
+
+/**
+ * Swing file picker for the console game.
+ * Kept in its own class so headless sessions never load Swing.
+ */
+public class FileChooserDialog {
+
+  /**
+   * Opens a file chooser window.
+   *
+   * @param directory directory the chooser starts in.
+   * @param title     window title.
+   * @return the absolute path of the chosen file, or null if nothing was chosen.
+   */
+  public static String choose(String directory, String title) {
+    JFileChooser fileChooser = new JFileChooser(new File(directory));
+    fileChooser.setDialogTitle(title);
+    int returnValue = fileChooser.showOpenDialog(null);
+
+    if (returnValue == JFileChooser.APPROVE_OPTION) {
+      return fileChooser.getSelectedFile().getAbsolutePath();
+    }
+    return null;
+  }
+}
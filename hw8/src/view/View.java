@@ -1,23 +1,86 @@
 package view;
 
-import java.util.Scanner;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
 public class View {
-  private Scanner scanner;
-  private String[] inputs;
+  private static final String[] MENU = {
+      "\n===== Game Menu=====",
+      "To move, enter: (N)orth, (S)outh, (E)ast, or (W)est.",
+      "Other actions: ",
+      " - (I)nventory: Check your items.",
+      " - (L)ook: Look around your location.",
+      " - (U)se: Use an item.",
+      " - (T)ake: Take an item.",
+      " - (D)rop: Drop an item.",
+      " - (X)amine: Examine something closely.",
+      " - (A)nswer: Answer a question or provide a text solution.",
+      " - Save: Save the game.(enter full word)",
+      " - Load: load the game.(enter full word)",
+      " - (Q)uit: Exit the game.",
+      "==================================="};
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private Readable input;
+  private CommandTokenizer tokenizer; // parses lines without a copy per command
+  private Appendable output;
+  private String[] inputs = new String[2]; // handed out by getInput, reused every time
   private String playerName;
+  // everything shown since the last flush, written in one go before the next read
+  private final StringBuilder pending = new StringBuilder(4096);
+  private char[] chars = new char[4096]; // pending copied out for a Writer
+  private MenuMode menuMode = MenuMode.FULL;
+  private String[] shownMenu; // the menu as last shown, for DIFF
+
+  /**
+   * How the menu is shown before every command.
+   */
+  public enum MenuMode {
+    /** the whole menu every time. */
+    FULL,
+    /** only the lines that changed since it was last shown, the whole menu the first time. */
+    DIFF,
+    /** never, for scripted clients. */
+    NONE
+  }
 
   public View() {
-    scanner = new Scanner(System.in);
+    this(new InputStreamReader(System.in), System.out);
+  }
+
+  /**
+   * View that reads commands from any input and writes everything to any output,
+   * used to run sessions without a console.
+   *
+   * @param input  where commands are read from.
+   * @param output where messages are written to.
+   */
+  public View(Readable input, Appendable output) {
+    this.input = input;
+    this.output = output;
+    tokenizer = new CommandTokenizer(input);
+  }
+
+  /**
+   * @param menuMode how the menu is shown from now on.
+   */
+  public void setMenuMode(MenuMode menuMode) {
+    this.menuMode = menuMode;
   }
 
   /**
    * get the player name.
    */
   public String getPlayerName() {
-    System.out.println("\n===== Welcome to the Game! =====");
-    System.out.println("Enter your name: ");
-    playerName = scanner.nextLine().trim();
+    println("\n===== Welcome to the Game! =====");
+    println("Enter your name: ");
+    flush();
+    String line = tokenizer.nextRawLine();
+    playerName = line != null ? line : "";
     return playerName;
   }
 
@@ -25,41 +88,51 @@ public class View {
    * display the game menu.
    */
   public void displayMenu() {
-    System.out.println("\n===== Game Menu=====");
-    System.out.println("To move, enter: (N)orth, (S)outh, (E)ast, or (W)est.");
-    System.out.println("Other actions: ");
-    System.out.println(" - (I)nventory: Check your items.");
-    System.out.println(" - (L)ook: Look around your location.");
-    System.out.println(" - (U)se: Use an item.");
-    System.out.println(" - (T)ake: Take an item.");
-    System.out.println(" - (D)rop: Drop an item.");
-    System.out.println(" - (X)amine: Examine something closely.");
-    System.out.println(" - (A)nswer: Answer a question or provide a text solution.");
-    System.out.println(" - Save: Save the game.(enter full word)");
-    System.out.println(" - Load: load the game.(enter full word)");
-    System.out.println(" - (Q)uit: Exit the game.");
-    System.out.println("===================================");
+    switch (menuMode) {
+      case FULL:
+        for (String line : MENU) {
+          println(line);
+        }
+        break;
+      case DIFF:
+        for (int i = 0; i < MENU.length; i++) {
+          if (shownMenu == null || i >= shownMenu.length || !MENU[i].equals(shownMenu[i])) {
+            println(MENU[i]);
+          }
+        }
+        shownMenu = MENU;
+        break;
+      default:
+        break;
+    }
   }
 
   /**
    * get the action choice from user.
+   * The array is reused by the next call, copy it to keep a command around.
    *
-   * @return user input as a string
+   * @return action and item (empty if none) in lower case, or null when the input has ended
    */
   public String[] getInput() {
-    System.out.println("Your choice: ");
-    String input = scanner.nextLine().trim().toLowerCase();
-
-    String[] partition = input.split(" ",2); // split the action and the item(if any
-    String action = partition[0];// get action
-    String item; // get item if any
-    if (partition.length > 1) {
-      item = partition[1];
-    } else {
-      item = "";
+    println("Your choice: ");
+    flush();
+    if (!tokenizer.nextCommand()) {
+      return null;
     }
+    inputs[0] = tokenizer.getVerb();
+    inputs[1] = tokenizer.getArgument();
+    return inputs;
+  }
 
-    return new String[]{action, item};
+  /**
+   * read one raw line from the user, e.g. a file path.
+   *
+   * @return the trimmed line, or an empty string when the input has ended
+   */
+  public String getLine() {
+    flush();
+    String line = tokenizer.nextRawLine();
+    return line != null ? line : "";
   }
 
 
@@ -69,14 +142,53 @@ public class View {
    * @param message message of player action
    */
   public void displayMessage(String message) {
-    System.out.println(message);
+    println(message);
   }
 
   /**
-   * close scanner when game ends.
+   * close the input when game ends.
    */
   public void closeScanner() {
-    scanner.close();
+    if (input instanceof Closeable) {
+      try {
+        ((Closeable) input).close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
   }
 
+  /**
+   * Writes out everything shown since the last flush, as one write.
+   * Happens by itself before the view waits for input.
+   */
+  public void flush() {
+    if (pending.length() == 0) {
+      return;
+    }
+    try {
+      if (output instanceof Writer) {
+        // no String copy of the whole output
+        if (chars.length < pending.length()) {
+          chars = new char[Math.max(pending.length(), chars.length * 2)];
+        }
+        pending.getChars(0, pending.length(), chars, 0);
+        ((Writer) output).write(chars, 0, pending.length());
+      } else {
+        output.append(pending);
+      }
+      if (output instanceof Flushable) {
+        ((Flushable) output).flush();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      pending.setLength(0);
+    }
+  }
+
+  // one line of output, kept until the next flush
+  private void println(String line) {
+    pending.append(line).append(LINE_SEPARATOR);
+  }
 }